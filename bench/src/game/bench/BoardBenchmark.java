@@ -0,0 +1,56 @@
+package game.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import game.engine.GameEngine;
+import game.engine.GameListener;
+import game.engine.Rules;
+import game.simulation.Perft;
+
+/**
+ * How long it takes to make a board, which every new game and every copy of one for a search has to do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+	// A game in its first movement stage, to copy.
+	private GameEngine position;
+
+	@Setup
+	public void setUp() {
+		position = Perft.makePosition(Rules.DEFAULT, 0);
+	}
+
+	/**
+	 * Makes a new game, and with it an empty board with every ship unplaced.
+	 * @return The game.
+	 */
+	@Benchmark
+	public GameEngine newGame() {
+		return new GameEngine(Rules.DEFAULT, GameListener.NONE, Support.DEFENDER_WINS);
+	}
+
+	/**
+	 * Copies a game in the middle of being played, as the searches do before they start.
+	 * @return The copy.
+	 */
+	@Benchmark
+	public GameEngine copyGame() {
+		return position.copy(GameListener.NONE, Support.DEFENDER_WINS);
+	}
+}
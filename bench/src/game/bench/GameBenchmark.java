@@ -0,0 +1,85 @@
+package game.bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import game.ai.AdvancePolicy;
+import game.ai.Policy;
+import game.ai.RandomPolicy;
+import game.engine.BoardState;
+import game.engine.GameEngine;
+import game.engine.GameListener;
+import game.engine.PlayerState;
+import game.engine.Rules;
+
+/**
+ * How long it takes to play a whole game, every placement, shot and move of it, through the same calls that the
+ * display makes. The game is scripted by its seed, so every run plays exactly the same one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+	/**
+	 * The seed of the game to play.
+	 */
+	@Param({ "0", "1", "2", "3" })
+	public long seed;
+
+	// Games that go on for longer than this are stopped, so that a run always takes about as long.
+	private static final int MAX_TURNS = 1000;
+
+	private final Policy random = new RandomPolicy(), advance = new AdvancePolicy();
+
+	/**
+	 * Plays one game between a random policy and an advancing one.
+	 * @return The number of turns the game took.
+	 */
+	@Benchmark
+	public int scriptedGame() {
+		Random choices = new Random(seed);
+		GameEngine game = new GameEngine(Rules.DEFAULT, GameListener.NONE, Support.DEFENDER_WINS);
+		BoardState board = game.getBoard();
+		PlayerState[] players = game.getPlayers();
+		Policy[] policies = { random, advance };
+
+		game.start();
+		while (!game.getState().equals(GameEngine.GameState.Ended) && game.getTurn() <= MAX_TURNS) {
+			// Take turns making one action each.
+			for (int i = 0; i < players.length; i++) {
+				PlayerState player = players[i];
+				switch (game.getState()) {
+				case ShipPlacement:
+					if (player.getNumShipsUnplaced() == 0) break;
+					int placement = policies[i].choosePlacement(player, choices);
+					game.placeShip(player, board.getXOfIndex(placement), board.getYOfIndex(placement));
+					break;
+				case Firing:
+					if (!player.canShoot()) break;
+					int shot = policies[i].chooseShot(player, choices);
+					game.shoot(player, board.getXOfIndex(shot), board.getYOfIndex(shot));
+					break;
+				case Movement:
+					if (player.canMove()) game.moveShip(policies[i].chooseMove(player, choices));
+					break;
+				default:
+				}
+			}
+		}
+		return game.getTurn();
+	}
+}
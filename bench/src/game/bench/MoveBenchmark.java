@@ -0,0 +1,119 @@
+package game.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import game.engine.BoardState;
+import game.engine.GameEngine;
+import game.engine.MoveGenerator;
+import game.engine.PlayerState;
+import game.engine.Rules;
+import game.engine.ShipState;
+import game.simulation.Perft;
+
+/**
+ * How long it takes to work out where ships can go: the squares that every ship can move to (what
+ * {@link game.ships.Ship} shows as its possible squares), whether each ship can move, and every move of a player.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmark {
+	/**
+	 * The seed of the position to look at, played out at random by {@link Perft#makePosition(Rules, long)}.
+	 */
+	@Param({ "0", "1", "2", "3" })
+	public long seed;
+
+	private GameEngine position;
+	private ShipState[] ships;
+	private final int[] squares = new int[MoveGenerator.MAX_MOVES_PER_SHIP];
+	private int[] moves;
+
+	@Setup
+	public void setUp() {
+		position = Perft.makePosition(Rules.DEFAULT, seed);
+		ships = position.getBoard().getShips();
+		moves = new int[MoveGenerator.getMaxMovesPerPlayer(Rules.DEFAULT)];
+	}
+
+	/**
+	 * Finds the squares that every ship on the board can move to.
+	 * @param blackhole Takes the squares so that they aren't optimized away.
+	 */
+	@Benchmark
+	public void possibleSquares(Blackhole blackhole) {
+		for (ShipState ship : ships) {
+			int count = MoveGenerator.generateDestinations(ship, squares);
+			for (int i = 0; i < count; i++) {
+				blackhole.consume(squares[i]);
+			}
+		}
+	}
+
+	/**
+	 * Determines whether each ship on the board can move.
+	 * @param blackhole Takes the answers so that they aren't optimized away.
+	 */
+	@Benchmark
+	public void shipCanMove(Blackhole blackhole) {
+		for (ShipState ship : ships) {
+			blackhole.consume(ship.canMove());
+		}
+	}
+
+	/**
+	 * Determines whether each player can move at all.
+	 * @param blackhole Takes the answers so that they aren't optimized away.
+	 */
+	@Benchmark
+	public void playerCanMove(Blackhole blackhole) {
+		for (PlayerState player : position.getPlayers()) {
+			blackhole.consume(player.canMove());
+		}
+	}
+
+	/**
+	 * Generates every move of both players.
+	 * @return The number of moves, so that they aren't optimized away.
+	 */
+	@Benchmark
+	public int generateMoves() {
+		int count = 0;
+		for (PlayerState player : position.getPlayers()) {
+			count += MoveGenerator.generateMoves(player, moves);
+		}
+		return count;
+	}
+
+	/**
+	 * Checks each square of the board as a destination for the first ship, as the display does when it shows where a
+	 * ship can go.
+	 * @return The number of squares that the ship can move to.
+	 */
+	@Benchmark
+	public int canMoveToSquare() {
+		BoardState board = position.getBoard();
+		ShipState ship = ships[0];
+		int count = 0;
+		for (int square = 0; square < board.getNumSquares(); square++) {
+			if (board.canMoveToSquare(ship, square)) count++;
+		}
+		return count;
+	}
+}
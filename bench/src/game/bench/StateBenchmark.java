@@ -0,0 +1,64 @@
+package game.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import game.engine.GameEngine;
+import game.engine.Rules;
+import game.simulation.Perft;
+
+/**
+ * How long it takes to check whether the game has been won or has moved on to its next stage, which happens after
+ * every action.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StateBenchmark {
+	/**
+	 * The seed of the position to look at, played out at random by {@link Perft#makePosition(Rules, long)}.
+	 */
+	@Param({ "0", "1", "2", "3" })
+	public long seed;
+
+	// A game in the middle of its movement stage, which refreshing leaves where it is.
+	private GameEngine position;
+
+	@Setup
+	public void setUp() {
+		position = Perft.makePosition(Rules.DEFAULT, seed);
+	}
+
+	/**
+	 * Refreshes the game's state.
+	 * @return The state afterwards.
+	 */
+	@Benchmark
+	public GameEngine.GameState refreshState() {
+		position.refreshState();
+		return position.getState();
+	}
+
+	/**
+	 * Determines if anyone has won.
+	 * @return Whether they have.
+	 */
+	@Benchmark
+	public boolean isWinner() {
+		return position.isWinner();
+	}
+}
@@ -0,0 +1,21 @@
+package game.bench;
+
+import game.engine.Contest;
+import game.engine.ContestResolver;
+
+/**
+ * Things that the benchmarks share.
+ */
+final class Support {
+	/**
+	 * Settles contests straight away in favour of the defender, so that nothing waits on a person.
+	 */
+	static final ContestResolver DEFENDER_WINS = new ContestResolver() {
+		@Override
+		public void resolve(Contest contest) {
+			contest.settle(contest.defender);
+		}
+	};
+
+	private Support() {}
+}
@@ -1,11 +1,25 @@
 package game;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import game.board.Battle;
 import game.board.Board;
+import game.board.ClickLog;
+import game.board.Square;
+import game.engine.Contest;
+import game.engine.ContestResolver;
+import game.engine.GameEngine;
+import game.engine.GameListener;
+import game.engine.PlayerState;
+import game.engine.Rules;
+import game.engine.ShipState;
 import game.player.IMC;
+import game.player.MCTSPlayer;
 import game.player.Militia;
 import game.player.Player;
-import game.ships.Ship;
-import main.InputHandler;
+import javafx.animation.AnimationTimer;
+import main.InputSession;
 import manipulation.PlayerManipulation;
 import manipulation.ShipManipulation;
 
@@ -15,7 +29,12 @@ import manipulation.ShipManipulation;
  * 2018-06-05
  * ICS3U
  */
-public class Game {
+public class Game implements GameListener, ContestResolver {
+	/**
+	 * The engine that holds the rules and state of this game.
+	 */
+	private final GameEngine engine;
+	
 	/**
 	 * The board that belongs to this game.
 	 */
@@ -24,39 +43,80 @@ public class Game {
 	public final ShipManipulation shipManipulation;
 	
 	/**
-	 * The current round number.
+	 * The players of this game.
+	 */
+	Player[] players;
+	
+	/**
+	 * The input of this game, which only this game's players are bound to.
+	 */
+	private final InputSession input = new InputSession();
+	
+	/**
+	 * Handles this game's queued up input once per frame, on the JavaFX thread.
+	 */
+	private final AnimationTimer inputPump = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			input.drain();
+		}
+	};
+	
+	/**
+	 * The clicks of every battle fought in this game, in order, kept to check battles for fairness afterwards.
 	 */
-	private int turn = 0;
+	private final ArrayList<ClickLog> battleLogs = new ArrayList<ClickLog>();
 	
 	/**
-	 * The state of this current game.
+	 * Instantiates a new game object with the default rules and readies for the playing of a new game.
 	 */
-	public static enum GameState {
-		ShipPlacement, Firing, Movement, Ended;  
+	public Game() {
+		this(Rules.DEFAULT);
 	}
 	
-	// The current game state. Start it in ship placement by default.
-	private GameState state = GameState.ShipPlacement;
+	/**
+	 * Instantiates a new game object and readies for the playing of a new game.
+	 * @param rules The rules to play the game by.
+	 */
+	public Game(Rules rules) {
+		this(rules, false);
+	}
 	
 	/**
-	 * The players of this game.
+	 * Instantiates a new game object and readies for the playing of a new game.
+	 * @param rules The rules to play the game by.
+	 * @param againstComputer True to have the computer play the Militia, false for two people at the keyboard.
 	 */
-	Player[] players;
+	public Game(Rules rules, boolean againstComputer) {
+		this(rules, againstComputer, Board.DEFAULT_RENDERER);
+	}
 	
 	/**
 	 * Instantiates a new game object and readies for the playing of a new game.
+	 * @param rules The rules to play the game by.
+	 * @param againstComputer True to have the computer play the Militia, false for two people at the keyboard.
+	 * @param renderer How to draw the board.
 	 */
-	public Game() {
-		
-		// Reset input from any previous games (if any)
-		InputHandler.stopMonitoring();
-		InputHandler.resetBindings();
+	public Game(Rules rules, boolean againstComputer, Board.Renderer renderer) {
+		// Make the engine, which holds the actual state of the game.
+		engine = new GameEngine(rules, this, this);
 		
 		// Make the players
-		players = new Player[] { new IMC(this, Player.StartSide.BottomRight), new Militia(this, Player.StartSide.TopLeft) };
+		PlayerState[] playerStates = engine.getPlayers();
+		Player militia = againstComputer ? new MCTSPlayer(this, playerStates[1]) : new Militia(this, playerStates[1]);
+		players = new Player[] { new IMC(this, playerStates[0]), militia };
+		
+		// Give everyone their default keys before loading any saved ones, so that the saved keys can be checked against
+		// all of the other players' keys.
+		for (Player player : players) {
+			player.bindDefaultKeys();
+		}
+		for (Player player : players) {
+			player.loadKeyBindings();
+		}
 		
 		// Make the board
-		board = new Board(this);
+		board = new Board(this, renderer);
 
 		// Set the player help controls.
 		for (Player player : getPlayers()) {
@@ -77,191 +137,195 @@ public class Game {
 		}
 		
 		// Begin monitoring input
-		InputHandler.startMonitoring();
+		input.startMonitoring();
+		inputPump.start();
 		
-		startPlacement();
+		engine.start();
 	}
 	
 	/**
-	 * Begin the placement stage of the game
+	 * Determines if there is a winner in this game.
+	 * @return True if there's a winner in the game, false othwerwise.
 	 */
-	private void startPlacement() {
-		// Set the state to ship placement.
-		state = GameState.ShipPlacement;
-		
-		// Give the user a little help with what to do
-		board.setMessage("Place your ships on the board.");
+	public boolean isWinner() {
+		return engine.isWinner();
 	}
 	
 	/**
-	 * Begin the firing stage of the game
+	 * Ends this game, displaying the victor
 	 */
-	private void startFiring() {
-		state = GameState.Firing;
-		updateTurn();
-		
-		board.setMessage("Firing stage: Hit your opponents!");
+	public void end() {
+		engine.end();
 	}
 	
 	/**
-	 * Begin the movement stage of the game.
+	 * Gets the players participating in this game
+	 * @return An array of the players in this game.
 	 */
-	private void startMovement() {
-		state = GameState.Movement;
-		updateTurn();
-		// Set a message for the users.
-		board.setMessage("Select your ships and move them with the move keys!");
+	public Player[] getPlayers() {
+		return players;
 	}
 	
 	/**
-	 * Begins the next round of the game.
+	 * Gets the player object for the given player state.
+	 * @param state The engine state of the player.
+	 * @return The player with that state.
 	 */
-	public void updateTurn() {
-		// Set a stage display message
-		String stage = getState().equals(GameState.Firing) ? "Firing " : "Movement ";
-		
-		// Only actually advance the round if it's a movement stage.
-		if (getState().equals(GameState.Firing)) {
-			for (Player player : players) {			
-				player.resetForNextRound();
-			}
-			
-			turn++;
-		}
-		
-		// if there's a winner in this game, end the game.
-		if (isWinner()) end();
-		board.setStatus(stage + " turn " + turn);
-		
-		// Set a new number of shots for turn 6
-		if (turn == 5) {
-			Player.setNewTotalShots(6);
-		}
-		else if (turn == 9) {
-			Player.setNewTotalShots(10);
-		}
+	public Player getPlayer(PlayerState state) {
+		return players[state.index];
 	}
 	
-	String winner = "";
-	Player winningPlayer;
 	/**
-	 * Determines if there is a winner in this game and sets the winner variable
-	 * to a win message if there is a winner.
-	 * @return True if there's a winner in the game, false othwerwise.
+	 * Gets the board on which this game is being played
+	 * @return The board on which this game is being played.
 	 */
-	public boolean isWinner() {
-		Player player1 = players[0];
-		Player player2 = players[1];
-		
-		boolean player1Won = player1.hasWon() || player2.getNumShipsLeft() <= 0;
-		boolean player2Won = player2.hasWon() || player1.getNumShipsLeft() <= 0;
-		
-		// If any of the players have won, set up the win message.
-		if (player1Won && player2Won) {
-			winner = "Both players won!";
-		}
-		else if (player1Won) {
-			winner = player1.getName() + " won!";
-			winningPlayer = player1;
-		}
-		else if (player2Won) {
-			winner = player2.getName() + " won!";
-			winningPlayer = player2;
-			
-		}
-		
-		// Return results.
-		return player1Won || player2Won;
+	public Board getBoard() {
+		return board;
 	}
 	
 	/**
-	 * Ends this game, displaying the victor
+	 * Gets the input session of this game, to which key presses for it should be submitted.
+	 * @return The input of this game.
 	 */
-	public void end() {
-		// Set the state to ended.
-		state = GameState.Ended;
-		// Set the message to the winner.
-		board.setMessage(winner);
-		
-		// Handle input termination properly.
-		InputHandler.stopMonitoring();
-		InputHandler.resetBindings();
-		
-		// Do the end game animation!
-		if (winningPlayer != null) {
-			board.endGameAnimation(winningPlayer.getSelectionColour());
-		}
+	public InputSession getInput() {
+		return input;
 	}
 	
 	/**
-	 * Gets the players participating in this game
-	 * @return An array of the players in this game.
+	 * Keeps the clicks of a battle that's just been fought.
+	 * @param log The clicks of the battle.
 	 */
-	public Player[] getPlayers() {
-		return players;
+	public void addBattleLog(ClickLog log) {
+		battleLogs.add(log);
 	}
 	
 	/**
-	 * Gets the board on which this game is being played
-	 * @return The board on which this game is being played.
+	 * Gets the clicks of every battle fought in this game so far.
+	 * @return The click logs, oldest battle first.
 	 */
-	public Board getBoard() {
-		return board;
+	public List<ClickLog> getBattleLogs() {
+		return battleLogs;
+	}
+	
+	/**
+	 * Gets the engine that holds the rules and state of this game.
+	 * @return The engine for this game.
+	 */
+	public GameEngine getEngine() {
+		return engine;
 	}
 	
 	/**
 	 * Returns the state of the current game, what's going on.
 	 * @return The game's state.
 	 */
-	public GameState getState() {
-		return state;
+	public GameEngine.GameState getState() {
+		return engine.getState();
 	}
 
 	/**
 	 * Refreshes the game's current state.
 	 */
 	public void refreshState() {
-		GameState state = getState();
-		// winner beats all other states
-		if (isWinner()) {
-			this.state = GameState.Ended;
-			end();
+		engine.refreshState();
+	}
+	
+	@Override
+	public void stateChanged(GameEngine.GameState state) {
+		if (state.equals(GameEngine.GameState.ShipPlacement)) {
+			// Give the user a little help with what to do
+			board.setMessage("Place your ships on the board.");
+		}
+		else if (state.equals(GameEngine.GameState.Firing)) {
+			board.setStatus("Firing turn " + engine.getTurn());
+			board.setMessage("Firing stage: Hit your opponents!");
 		}
-		// If we're in ship placement, check if all ships for each player have been placed.
-		else if (state.equals(GameState.ShipPlacement)) {
-			boolean unplacedShip = false;
-			for (Ship ship : getBoard().getShips()) {
-				if (!ship.hasBeenPlaced()) {
-					unplacedShip = true;
-					break;
-				}
-			}
-			
-			// If there are no unplaced ships, let's move on to first round of firing. 
-			if (!unplacedShip) { 
-				startFiring();
-			}
+		else if (state.equals(GameEngine.GameState.Movement)) {
+			board.setStatus("Movement turn " + engine.getTurn());
+			// Set a message for the users.
+			board.setMessage("Select your ships and move them with the move keys!");
 		}
-		else if (state.equals(GameState.Firing)) {
-			boolean canFire = false;
-			// Iterate through each player and see if any of them can stil move
-			for (Player player : getPlayers()) {
-				canFire = player.canShoot();
-				if (canFire) break;
-			}
-			
-			if (!canFire) startMovement();
+		else if (state.equals(GameEngine.GameState.Ended)) {
+			onEnded();
 		}
-		else if (state.equals(GameState.Movement)) {
-			boolean canMove = false;
-			// Iterate through each player and see if any of them can stil move
-			for (Player player : getPlayers()) {
-				canMove = player.canMove();
-				if (canMove) break;
-			}
-			
-			if (!canMove) startFiring();
+		
+		notifyPlayers();
+	}
+	
+	/**
+	 * Lets every player know that the game has changed, so that the ones that act on their own can.
+	 */
+	private void notifyPlayers() {
+		for (Player player : players) {
+			player.gameUpdated();
 		}
+	}
+	
+	/**
+	 * Displays the victor once the game has ended.
+	 */
+	private void onEnded() {
+		PlayerState winningState = engine.getWinningPlayer();
+		Player winningPlayer = (winningState != null) ? getPlayer(winningState) : null;
+		
+		// Set the message to the winner.
+		if (engine.didBothWin()) board.setMessage("Both players won!");
+		else if (winningPlayer != null) board.setMessage(winningPlayer.getName() + " won!");
 		
+		// Handle input termination properly.
+		input.stopMonitoring();
+		input.resetBindings();
+		inputPump.stop();
+		input.clearQueue();
+		
+		// Do the end game animation!
+		if (winningPlayer != null) {
+			board.endGameAnimation(winningPlayer.getSelectionColour());
+		}
+	}
+	
+	@Override
+	public void shipPlaced(ShipState ship) {
+		board.addShip(board.getShip(ship));
+	}
+	
+	@Override
+	public void shipRemoved(ShipState ship, int x, int y) {
+		board.removeShip(board.getShip(ship));
+	}
+	
+	@Override
+	public void shipMoved(ShipState ship, int oldX, int oldY) {
+		board.moveShip(board.getShip(ship));
+	}
+	
+	@Override
+	public void shotFired(PlayerState shooter, int x, int y, ShipState hitShip) {
+		Square square = board.getSquare(x, y);
+		if (hitShip != null) {
+			board.getShip(hitShip).refreshFill();
+			square.hit();
+		}
+		else square.miss();
+	}
+	
+	@Override
+	public void shipDestroyed(ShipState ship) {
+		board.getShip(ship).refreshFill();
+		board.getSquare(ship.getX(), ship.getY()).shipDestroyed();
+	}
+	
+	/**
+	 * Settles contests by having the two players battle it out on the keyboard.
+	 */
+	@Override
+	public void resolve(Contest contest) {
+		new Battle(contest, board.getShip(contest.defender), board.getShip(contest.contester));
+	}
+	
+	@Override
+	public void playerUpdated(PlayerState player) {
+		getPlayer(player).refreshSidebar();
+		notifyPlayers();
 	}
 }
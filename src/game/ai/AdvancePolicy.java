@@ -0,0 +1,64 @@
+package game.ai;
+
+import java.util.Random;
+
+import game.engine.BoardState;
+import game.engine.MoveGenerator;
+import game.engine.PlayerState;
+import game.engine.ShipState;
+
+/**
+ * Plays for the race to the enemy's territory: ships are placed at the front of the player's territory and always
+ * moved as far towards the enemy's side as they can go, and ships already in the enemy's territory are left there.
+ * Shots are fired at random.
+ */
+public class AdvancePolicy extends RandomPolicy {
+	@Override
+	public int choosePlacement(PlayerState player, Random random) {
+		BoardState board = player.getGame().getBoard();
+		int territorySize = board.getRules().getTerritorySize();
+		boolean bottomRight = player.getStartPosition().equals(PlayerState.StartSide.BottomRight);
+
+		// Go from the front column of the territory backwards, placing on a random empty square of the first column with room.
+		for (int i = territorySize - 1; i >= 0; i--) {
+			int x = bottomRight ? board.getNumColumns() - 1 - i : i;
+			int y = random.nextInt(board.getNumRows());
+			for (int j = 0; j < board.getNumRows(); j++) {
+				int row = (y + j) % board.getNumRows();
+				if (board.getShip(x, row) == null) return board.getIndex(x, row);
+			}
+		}
+		return super.choosePlacement(player, random);
+	}
+
+	@Override
+	public int chooseMove(PlayerState player, Random random) {
+		BoardState board = player.getGame().getBoard();
+		// Which way is forwards for this player.
+		int forwards = player.getStartPosition().equals(PlayerState.StartSide.BottomRight) ? -1 : 1;
+		int chosen = -1, bestScore = Integer.MIN_VALUE, count = 0;
+
+		for (ShipState ship : player.getShips()) {
+			if (!ship.hasBeenPlaced() || ship.isDestroyed()) continue;
+			for (BoardState.MoveDirection direction : BoardState.MOVE_DIRECTIONS) {
+				int x = ship.getXInDirection(direction), y = ship.getYInDirection(direction);
+				if (!board.canMoveToSquare(ship, x, y)) continue;
+
+				int score = (x - ship.getX()) * forwards;
+				// Never leave the enemy's territory once we're in it, since that's how the game is won.
+				if (ship.isInEnemyTerritory() && !board.isWithinTerritory(player.getOpponentSide(), x, y)) score -= 10;
+
+				// Keep the best move, picking at random between equally good ones.
+				if (score > bestScore) {
+					bestScore = score;
+					chosen = MoveGenerator.encodeMove(ship, direction);
+					count = 1;
+				}
+				else if (score == bestScore && random.nextInt(++count) == 0) {
+					chosen = MoveGenerator.encodeMove(ship, direction);
+				}
+			}
+		}
+		return chosen;
+	}
+}
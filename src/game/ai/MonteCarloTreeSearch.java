@@ -0,0 +1,557 @@
+package game.ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import game.engine.BeliefState;
+import game.engine.Bitboard;
+import game.engine.BoardState;
+import game.engine.ContestResolver;
+import game.engine.GameEngine;
+import game.engine.GameListener;
+import game.engine.MoveGenerator;
+import game.engine.PlayerState;
+import game.engine.Rules;
+import game.engine.ShipState;
+import game.engine.StochasticContestResolver;
+
+/**
+ * Picks a player's next action (a placement, a shot or a move, whatever the game is waiting for) with Monte Carlo
+ * tree search, giving it a fixed amount of wall-clock time to think.
+ * <p>
+ * The player usually can't see where the enemy's ships are, so every iteration starts by guessing: the hidden ships
+ * are put on random squares that they could have got to by now, or drawn from the player's beliefs about them if
+ * there's a heatmap (a determinization). The tree only has the searching
+ * player's own actions in it, with the enemy played by the rollout policy, so the statistics of each action are
+ * gathered over many different guesses rather than over one made-up board that the player can't actually see.
+ * <p>
+ * The search is parallelized at the root: every thread of the pool grows its own tree from the same position, and
+ * their visit counts are added up at the end. Rollouts are cut off after a few turns and scored by how the game is
+ * going, since whole games are far too long to play out within a fraction of a second.
+ */
+public class MonteCarloTreeSearch {
+	/**
+	 * How much the search favours trying actions it knows little about over ones that have done well so far.
+	 */
+	public static final double EXPLORATION = 0.7;
+
+	/**
+	 * The number of turns played out after the tree before the position is scored, by default.
+	 */
+	public static final int DEFAULT_ROLLOUT_TURNS = 3;
+
+	// How many squares to try when guessing a ship's square from a heatmap before falling back on an even guess.
+	private static final int MAX_SAMPLE_TRIES = 4096;
+
+	private final Policy rolloutPolicy;
+	private final ForkJoinPool pool;
+	private final int rolloutTurns;
+
+	/**
+	 * Makes a new search that uses every thread of the common pool.
+	 * @param rolloutPolicy The policy that plays both sides once the search leaves its tree, and the enemy inside it.
+	 */
+	public MonteCarloTreeSearch(Policy rolloutPolicy) {
+		this(rolloutPolicy, ForkJoinPool.commonPool(), DEFAULT_ROLLOUT_TURNS);
+	}
+
+	/**
+	 * Makes a new search.
+	 * @param rolloutPolicy The policy that plays both sides once the search leaves its tree, and the enemy inside it.
+	 * @param pool The threads to search on; one tree is grown for each.
+	 * @param rolloutTurns The number of turns to play out before scoring a position.
+	 */
+	public MonteCarloTreeSearch(Policy rolloutPolicy, ForkJoinPool pool, int rolloutTurns) {
+		this.rolloutPolicy = rolloutPolicy;
+		this.pool = pool;
+		this.rolloutTurns = rolloutTurns;
+	}
+
+	/**
+	 * Searches for the best action for the given player. The position is only read, so it should be a copy that
+	 * nothing else changes while the search is going on (see {@link GameEngine#copy(GameListener, ContestResolver)}).
+	 * @param position The game as it is now.
+	 * @param playerIndex The index of the player to search for, who must be able to act.
+	 * @param hidden Which ships the player can't see, indexed by {@link ShipState#index}; their positions are guessed.
+	 * @param budget How long to search for, in nanoseconds.
+	 * @param seed The seed for the random numbers.
+	 * @return The action: a square index for placements and shots, or a packed move (see
+	 * {@link MoveGenerator#encodeMove(ShipState, BoardState.MoveDirection)}). -1 if the player can't do anything.
+	 */
+	public int search(GameEngine position, int playerIndex, boolean[] hidden, long budget, long seed) {
+		return search(position, playerIndex, hidden, null, budget, seed);
+	}
+
+	/**
+	 * Searches for the best action for the given player, guessing where the hidden ships are from what the player
+	 * believes about them rather than just from how far they could have got.
+	 * @param position The game as it is now, which nothing else changes while the search is going on.
+	 * @param playerIndex The index of the player to search for, who must be able to act.
+	 * @param hidden Which ships the player can't see, indexed by {@link ShipState#index}; their positions are guessed.
+	 * @param heatmap How likely each square is to hold a hidden ship, indexed by square index (see
+	 * {@link BeliefState#getHeatmap(double[])}), or null to spread them evenly over the squares they could reach.
+	 * @param budget How long to search for, in nanoseconds.
+	 * @param seed The seed for the random numbers.
+	 * @return The action, or -1 if the player can't do anything.
+	 */
+	public int search(GameEngine position, int playerIndex, boolean[] hidden, double[] heatmap, long budget, long seed) {
+		long deadline = System.nanoTime() + budget;
+
+		// Grow one tree per thread.
+		List<Future<Node>> trees = new ArrayList<Future<Node>>();
+		for (int i = 0; i < pool.getParallelism(); i++) {
+			trees.add(pool.submit(new Worker(position, playerIndex, hidden, heatmap, deadline, seed + i)));
+		}
+
+		// Add up how often each action was tried over all the trees, and go with the most tried. When the budget is
+		// too small for anything to have been tried more than once, the best scoring of the most tried wins.
+		Node merged = new Node(-1);
+		Node best = null;
+		for (Future<Node> tree : trees) {
+			Node root;
+			try {
+				root = tree.get();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			catch (ExecutionException e) {
+				throw new IllegalStateException("The search failed.", e.getCause());
+			}
+
+			for (Node child : root.children) {
+				if (child == null) continue;
+				Node total = merged.getChild(child.action);
+				if (total == null) {
+					total = new Node(child.action);
+					merged.addChild(total);
+				}
+				total.visits += child.visits;
+				total.score += child.score;
+			}
+		}
+
+		for (Node total : merged.children) {
+			if (total == null) continue;
+			if (best == null || total.visits > best.visits || (total.visits == best.visits && total.score > best.score)) best = total;
+		}
+		return (best != null) ? best.action : -1;
+	}
+
+	/**
+	 * Determines if the given player has anything to do in the game's current stage.
+	 * @param game The game.
+	 * @param player The player.
+	 * @return True if the player can place a ship, fire or move right now, false otherwise.
+	 */
+	static boolean canAct(GameEngine game, PlayerState player) {
+		switch (game.getState()) {
+		case ShipPlacement: return player.getNumShipsUnplaced() > 0;
+		case Firing: return player.canShoot();
+		case Movement: return player.canMove();
+		default: return false;
+		}
+	}
+
+	/**
+	 * Asks a policy for the given player's next action in the game's current stage.
+	 * @param game The game.
+	 * @param player The player acting.
+	 * @param policy The policy to ask.
+	 * @param random The random numbers to use.
+	 * @return The action.
+	 */
+	static int choose(GameEngine game, PlayerState player, Policy policy, Random random) {
+		switch (game.getState()) {
+		case ShipPlacement: return policy.choosePlacement(player, random);
+		case Firing: return policy.chooseShot(player, random);
+		default: return policy.chooseMove(player, random);
+		}
+	}
+
+	/**
+	 * Scores a position for the given player, from 0 for a certain loss to 1 for a certain win.
+	 * @param game The game.
+	 * @param player The player to score for.
+	 * @return The score.
+	 */
+	static double evaluate(GameEngine game, PlayerState player) {
+		PlayerState opponent = player.getOpponent();
+		if (game.getState().equals(GameEngine.GameState.Ended)) {
+			if (game.getWinningPlayer() == player) return 1;
+			if (game.getWinningPlayer() == opponent) return 0;
+			return 0.5;
+		}
+
+		double ships = game.getRules().getShipsPerPlayer();
+		// Having more ships left matters most, then having more of them where they need to be, then being closer to getting there.
+		double material = (player.getNumShipsLeft() - opponent.getNumShipsLeft()) / ships;
+		double territory = (player.getNumShipsInEnemyTerritory() - opponent.getNumShipsInEnemyTerritory()) / ships;
+		double advance = getAdvance(game, player) - getAdvance(game, opponent);
+		return 0.5 + 0.25 * material + 0.15 * territory + 0.1 * advance;
+	}
+
+	/**
+	 * Works out how far across the board the given player's ships have got on average.
+	 * @param game The game.
+	 * @param player The player.
+	 * @return 0 if every living ship is at the player's own end of the board, 1 if every one is at the enemy's end.
+	 */
+	private static double getAdvance(GameEngine game, PlayerState player) {
+		int columns = game.getBoard().getNumColumns();
+		boolean bottomRight = player.getStartPosition().equals(PlayerState.StartSide.BottomRight);
+		double total = 0;
+		int count = 0;
+		for (ShipState ship : player.getShips()) {
+			if (!ship.hasBeenPlaced() || ship.isDestroyed()) continue;
+			total += bottomRight ? columns - 1 - ship.getX() : ship.getX();
+			count++;
+		}
+		return (count > 0) ? total / count / (columns - 1) : 0;
+	}
+
+	/**
+	 * A node of a search tree: one of the searching player's actions, following on from the actions above it.
+	 */
+	private static class Node {
+		// How many children there's room for once a node has any, and the empty table that every node starts with.
+		private static final int INITIAL_CHILDREN = 8;
+		private static final int[] NO_ACTIONS = new int[0];
+		private static final Node[] NO_CHILDREN = new Node[0];
+
+		final int action;
+
+		// The children in an open addressing table keyed by their actions, so that finding one boxes nothing: each
+		// child is in the first free slot at or after the hash of its action. Empty until the first child, a power of 2
+		// in size and never more than half full. Slots without a child are null.
+		int[] childActions = NO_ACTIONS;
+		Node[] children = NO_CHILDREN;
+		int numChildren;
+
+		// The number of times this node was visited, the number of times it could have been, and the total score.
+		int visits, availability;
+		double score;
+
+		Node(int action) {
+			this.action = action;
+		}
+
+		/**
+		 * Gets the child for the given action.
+		 * @return The child, or null if the action hasn't been tried from this node.
+		 */
+		Node getChild(int action) {
+			int mask = children.length - 1;
+			if (mask < 0) return null;
+			for (int slot = getSlot(action, mask); children[slot] != null; slot = (slot + 1) & mask) {
+				if (childActions[slot] == action) return children[slot];
+			}
+			return null;
+		}
+
+		/**
+		 * Adds a child for an action that doesn't have one yet, making the table bigger if it would be over half full.
+		 */
+		void addChild(Node child) {
+			if ((numChildren + 1) * 2 > children.length) {
+				Node[] oldChildren = children;
+				int length = Math.max(INITIAL_CHILDREN, oldChildren.length * 2);
+				childActions = new int[length];
+				children = new Node[length];
+				for (Node oldChild : oldChildren) {
+					if (oldChild != null) insert(oldChild);
+				}
+			}
+			insert(child);
+			numChildren++;
+		}
+
+		/**
+		 * Puts a child in the first free slot for its action, which the table has to have room for.
+		 */
+		private void insert(Node child) {
+			int mask = children.length - 1;
+			int slot = getSlot(child.action, mask);
+			while (children[slot] != null) {
+				slot = (slot + 1) & mask;
+			}
+			childActions[slot] = child.action;
+			children[slot] = child;
+		}
+
+		/**
+		 * Gets the slot that the given action hashes to. Actions are mostly runs of square indices, so they're mixed
+		 * up to spread them over the table.
+		 */
+		private static int getSlot(int action, int mask) {
+			int hash = action * 0x9e3779b9;
+			return (hash ^ (hash >>> 16)) & mask;
+		}
+	}
+
+	/**
+	 * Grows one search tree until the deadline.
+	 */
+	private class Worker implements Callable<Node> {
+		private final GameEngine position;
+		private final int playerIndex;
+		private final boolean[] hidden;
+		private final double[] heatmap;
+		private final long deadline;
+		private final Random random;
+		private final StochasticContestResolver resolver;
+		private final Node root = new Node(-1);
+
+		// The game that every guess is played out on. Each iteration puts the hidden ships on new squares and takes
+		// back everything that it did at the end, so the position is only copied once per search.
+		private final GameEngine game;
+
+		// Scratch space for legal actions, guessed ship positions and the nodes visited in an iteration.
+		private final int[] actions, shipSquares;
+		private final long[] taken, missed;
+		private Node[] path = new Node[16];
+
+		// The most likely square of the heatmap, for sampling from it.
+		private double maxHeat;
+
+		Worker(GameEngine position, int playerIndex, boolean[] hidden, double[] heatmap, long deadline, long seed) {
+			this.position = position;
+			this.playerIndex = playerIndex;
+			this.hidden = hidden;
+			this.heatmap = heatmap;
+			if (heatmap != null) {
+				for (double heat : heatmap) {
+					maxHeat = Math.max(maxHeat, heat);
+				}
+			}
+			this.deadline = deadline;
+			this.random = new Random(seed);
+			this.resolver = new StochasticContestResolver(random.nextLong());
+			this.game = position.copy(GameListener.NONE, resolver);
+
+			Rules rules = position.getRules();
+			actions = new int[Math.max(rules.getNumSquares(), MoveGenerator.getMaxMovesPerPlayer(rules))];
+			shipSquares = new int[position.getBoard().getShips().length];
+			taken = Bitboard.create(rules.getNumSquares());
+			missed = Bitboard.create(rules.getNumSquares());
+			// The squares that the player has missed this turn don't change between guesses.
+			if (position.getState().equals(GameEngine.GameState.Firing)) position.getShotHistory().getMisses(position.getPlayers()[playerIndex], position.getTurn(), missed);
+		}
+
+		@Override
+		public Node call() {
+			// Always do at least one iteration, so that there's an answer even if the budget is tiny.
+			do {
+				iterate();
+			} while (System.nanoTime() < deadline);
+			return root;
+		}
+
+		/**
+		 * Guesses a board, follows the tree down to a new node, plays out a few turns after it and scores the result.
+		 */
+		private void iterate() {
+			determinize();
+			PlayerState player = game.getPlayers()[playerIndex], opponent = player.getOpponent();
+			int lastTurn = Math.max(game.getTurn(), 1) + rolloutTurns;
+
+			// The nodes visited, which all get the score at the end.
+			int pathLength = 0;
+			path[pathLength++] = root;
+			Node node = root;
+			boolean inTree = true;
+
+			// The searching player always acts first, since it's their decision that we're making.
+			PlayerState actor = player;
+			while (!game.getState().equals(GameEngine.GameState.Ended) && game.getTurn() <= lastTurn) {
+				if (!canAct(game, actor)) {
+					actor = actor.getOpponent();
+					if (!canAct(game, actor)) break;
+				}
+
+				int action;
+				if (actor == player && inTree) {
+					Node child = select(game, player, node);
+					// A new node ends the tree part of this iteration; everything after it is played out by the policy.
+					if (child.visits == 0) inTree = false;
+					node = child;
+					if (pathLength == path.length) path = Arrays.copyOf(path, pathLength * 2);
+					path[pathLength++] = node;
+					action = node.action;
+				}
+				else action = choose(game, actor, rolloutPolicy, random);
+
+				act(actor, action);
+				actor = (actor == player) ? opponent : player;
+			}
+
+			double score = evaluate(game, player);
+			for (int i = 0; i < pathLength; i++) {
+				path[i].visits++;
+				path[i].score += score;
+			}
+
+			// Put the game back as it was guessed, ready for the next guess.
+			while (game.getUndoDepth() > 0) {
+				game.unmake();
+			}
+		}
+
+		/**
+		 * Carries out an action for the given player in the game's current stage, so that it can be taken back. A
+		 * contest is settled straight away by a made-up click race.
+		 * @param player The player acting.
+		 * @param action A square index for placements and shots, a packed move for moves.
+		 */
+		private void act(PlayerState player, int action) {
+			BoardState board = game.getBoard();
+			switch (game.getState()) {
+			case ShipPlacement: game.makePlacement(player, board.getXOfIndex(action), board.getYOfIndex(action)); break;
+			case Firing: game.makeShot(player, board.getXOfIndex(action), board.getYOfIndex(action)); break;
+			case Movement: game.makeMove(action, resolver.drawContesterWins()); break;
+			default:
+			}
+		}
+
+		/**
+		 * Picks the child of a node to go down next: one of the actions that are legal on this guessed board that
+		 * hasn't been tried yet, or otherwise the best by UCB, counting only the times that each was available.
+		 */
+		private Node select(GameEngine game, PlayerState player, Node node) {
+			int count = getLegalActions(game, player);
+			Node best = null;
+			int untried = -1, untriedCount = 0;
+			double bestValue = Double.NEGATIVE_INFINITY;
+
+			for (int i = 0; i < count; i++) {
+				Node child = node.getChild(actions[i]);
+				if (child == null) {
+					// Pick one of the untried actions at random without storing them.
+					if (random.nextInt(++untriedCount) == 0) untried = actions[i];
+					continue;
+				}
+				child.availability++;
+				double value = child.score / child.visits + EXPLORATION * Math.sqrt(Math.log(child.availability) / child.visits);
+				if (value > bestValue) {
+					bestValue = value;
+					best = child;
+				}
+			}
+
+			if (untriedCount > 0) {
+				Node child = new Node(untried);
+				child.availability++;
+				node.addChild(child);
+				return child;
+			}
+			return best;
+		}
+
+		/**
+		 * Writes every action that the player could take right now into the actions buffer.
+		 * @return The number of actions.
+		 */
+		private int getLegalActions(GameEngine game, PlayerState player) {
+			BoardState board = game.getBoard();
+			int count = 0;
+			switch (game.getState()) {
+			case ShipPlacement:
+				for (int x = 0; x < board.getNumColumns(); x++) {
+					for (int y = 0; y < board.getNumRows(); y++) {
+						if (board.isWithinTerritory(player.getStartPosition(), x, y) && board.getShip(x, y) == null) actions[count++] = board.getIndex(x, y);
+					}
+				}
+				break;
+			case Firing:
+				for (int x = 0; x < board.getNumColumns(); x++) {
+					for (int y = 0; y < board.getNumRows(); y++) {
+						if (board.isUsable(x, y) && board.hasEnemyOrNothing(player, x, y)) actions[count++] = board.getIndex(x, y);
+					}
+				}
+				break;
+			case Movement:
+				count = MoveGenerator.generateMoves(player, actions);
+				break;
+			default:
+			}
+			return count;
+		}
+
+		/**
+		 * Puts each hidden ship of the worker's game on a random free square that it could have reached by now.
+		 */
+		private void determinize() {
+			BoardState board = position.getBoard();
+			ShipState[] ships = board.getShips();
+			Rules rules = position.getRules();
+
+			// Every square with a wreck or a ship that we can see is off limits, and so is every square that the player
+			// has missed while firing this turn, since nothing has moved since.
+			board.getWrecks(taken);
+			for (int square = Bitboard.nextSetBit(missed, 0); square >= 0; square = Bitboard.nextSetBit(missed, square + 1)) {
+				Bitboard.set(taken, square);
+			}
+			for (ShipState ship : ships) {
+				shipSquares[ship.index] = -1;
+				if (!hidden[ship.index] && ship.hasBeenPlaced() && !ship.isDestroyed()) Bitboard.set(taken, board.getIndex(ship.getX(), ship.getY()));
+			}
+
+			for (ShipState ship : ships) {
+				if (!hidden[ship.index] || !ship.hasBeenPlaced() || ship.isDestroyed()) continue;
+
+				int square = sampleHeatmap();
+				if (square < 0) {
+					// A ship can't have got further from its own end of the board than its player has had moves.
+					int reach = Math.min(rules.getNumColumns(), rules.getTerritorySize() + getMovesMade(ship.player));
+					boolean bottomRight = ship.player.getStartPosition().equals(PlayerState.StartSide.BottomRight);
+					do {
+						int column = random.nextInt(reach);
+						int x = bottomRight ? rules.getNumColumns() - 1 - column : column;
+						square = board.getIndex(x, random.nextInt(rules.getNumRows()));
+					} while (Bitboard.get(taken, square));
+				}
+
+				Bitboard.set(taken, square);
+				shipSquares[ship.index] = square;
+			}
+			game.reseatShips(shipSquares);
+		}
+
+		/**
+		 * Picks a free square at random in proportion to how likely the heatmap says it is to hold a hidden ship.
+		 * @return The index of the square, or -1 if there's no heatmap or no likely square could be found.
+		 */
+		private int sampleHeatmap() {
+			if (heatmap == null || maxHeat <= 0) return -1;
+
+			// Rejection sampling; the heatmap changes every search, so it's not worth building anything cleverer.
+			for (int tries = 0; tries < MAX_SAMPLE_TRIES; tries++) {
+				int square = random.nextInt(heatmap.length);
+				if (!Bitboard.get(taken, square) && random.nextDouble() * maxHeat < heatmap[square]) return square;
+			}
+			return -1;
+		}
+
+		/**
+		 * Works out the most moves that the given player could have made so far this game, which anyone can work out
+		 * from the rules and the moves left shown on screen.
+		 */
+		private int getMovesMade(PlayerState player) {
+			Rules rules = position.getRules();
+			int moves = 0;
+			// Each turn's movement stage comes after its firing stage.
+			for (int turn = 1; turn < position.getTurn(); turn++) {
+				moves += rules.getMoves(turn);
+			}
+			if (position.getState().equals(GameEngine.GameState.Movement)) moves += rules.getMoves(position.getTurn()) - player.getMovesLeft();
+			return moves;
+		}
+	}
+}
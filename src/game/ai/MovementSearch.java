@@ -0,0 +1,477 @@
+package game.ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import game.engine.BoardState;
+import game.engine.Contest;
+import game.engine.ContestResolver;
+import game.engine.GameEngine;
+import game.engine.GameListener;
+import game.engine.MoveGenerator;
+import game.engine.PlayerState;
+import game.engine.ShipState;
+import game.engine.Zobrist;
+
+/**
+ * Searches the movement stage with iterative deepening alpha-beta, treating it as the race that it is once every ship
+ * can be seen. Each move is one ply, and the players take turns moving for as long as they both have moves left this
+ * turn, after which whoever still has moves makes the rest of theirs. The search never goes past the end of the
+ * stage, so the deepest it can usefully go is the moves that both players have left put together.
+ * <p>
+ * Moves are tried in the order most likely to cause a cutoff: the principal variation of the last iteration first,
+ * then moves that caused cutoffs at the same ply (killers), then contests, then moves that have caused cutoffs
+ * anywhere (history), with forward moves before sideways and backward ones. Positions are scored with
+ * {@link MonteCarloTreeSearch#evaluate(GameEngine, PlayerState)}.
+ * <p>
+ * Contests in the search are always won by the defender, which is also who wins when both ships click the same
+ * number of times. A searcher keeps its move ordering tables between calls, so it should only be used by one
+ * thread at a time; to search in parallel, give a searcher on each thread the same {@link TranspositionTable}, or use
+ * {@link #search(GameEngine, int, long, ForkJoinPool)}. Positions are recognized in the table by their hash, with the
+ * player to move XORed in. Games with more ships than the table has room for moves of are turned down.
+ */
+public class MovementSearch {
+	/**
+	 * The deepest the search can go, in plies.
+	 */
+	public static final int MAX_DEPTH = 64;
+
+	/**
+	 * The size of the transposition table that a searcher makes for itself, in megabytes.
+	 */
+	public static final int DEFAULT_TABLE_SIZE = 16;
+
+	// How often the clock is checked, in nodes, less one.
+	private static final int CHECK_INTERVAL = 1023;
+
+	// Scores for ordering moves, from most to least likely to be good.
+	private static final int PV_SCORE = 1 << 30, HASH_SCORE = 1 << 29, KILLER_SCORE = 1 << 28, CONTEST_SCORE = 1 << 26, FORWARD_SCORE = 1 << 24, SIDEWAYS_SCORE = 1 << 23;
+
+	// A win found this many plies sooner is worth this much more, so that the search goes for the quickest one.
+	private static final double PLY_BONUS = 1e-4;
+
+	// The score of winning the game right away, which is more than any position is scored while the game is still
+	// going, and the least that a win found anywhere in the search can be worth, less than a ply to spare.
+	private static final double WIN = 1, WIN_THRESHOLD = WIN - (MAX_DEPTH + 1) * PLY_BONUS;
+
+	/**
+	 * Settles contests in the search's copy of the game straight away, in favour of the defender, though moves are
+	 * made with {@link GameEngine#makeMove(int, boolean)}, which settles them itself the same way.
+	 */
+	private static final ContestResolver DEFENDER_WINS = new ContestResolver() {
+		@Override
+		public void resolve(Contest contest) {
+			contest.settle(contest.defender);
+		}
+	};
+
+	/**
+	 * What a search found.
+	 */
+	public static final class Result {
+		/**
+		 * The best move found, packed as by {@link MoveGenerator#encodeMove(ShipState, BoardState.MoveDirection)},
+		 * or -1 if the player couldn't move.
+		 */
+		public final int move;
+
+		/**
+		 * The depth of the last iteration that finished, in plies.
+		 */
+		public final int depth;
+
+		/**
+		 * How good the position is for the player after the principal variation, from -0.5 to 0.5 if the game is
+		 * still going by then. If the search found the end of the game, it's close to 1 for a win or -1 for a loss,
+		 * a little less the further away the end is.
+		 */
+		public final double score;
+
+		/**
+		 * The moves that both players are expected to make, starting with {@link #move}. Moves alternate between
+		 * the players for as long as both have moves left.
+		 */
+		public final int[] principalVariation;
+
+		/**
+		 * The number of positions looked at over all of the iterations.
+		 */
+		public final long nodes;
+
+		/**
+		 * The number of positions whose score was taken from the transposition table instead of being searched.
+		 */
+		public final long tableHits;
+
+		/**
+		 * How long the search took, in nanoseconds.
+		 */
+		public final long elapsed;
+
+		Result(int move, int depth, double score, int[] principalVariation, long nodes, long tableHits, long elapsed) {
+			this.move = move;
+			this.depth = depth;
+			this.score = score;
+			this.principalVariation = principalVariation;
+			this.nodes = nodes;
+			this.tableHits = tableHits;
+			this.elapsed = elapsed;
+		}
+
+		/**
+		 * Gets how quickly the search went.
+		 * @return The number of positions looked at per second.
+		 */
+		public double getNodesPerSecond() {
+			return (elapsed > 0) ? nodes * 1e9 / elapsed : 0;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("depth %d, score %.4f, %d nodes, %d table hits, %.0f nodes/s, pv %s", depth, score, nodes, tableHits, getNodesPerSecond(), Arrays.toString(principalVariation));
+		}
+	}
+
+	// The principal variation found at each ply of the current iteration (a triangular table), and that of the last one.
+	private final int[][] pv = new int[MAX_DEPTH + 1][MAX_DEPTH + 1];
+	private final int[] pvLength = new int[MAX_DEPTH + 1];
+	private int[] lastPv = new int[0];
+	private boolean followingPv;
+
+	// Two moves per ply that caused a cutoff, and how much each move has caused cutoffs anywhere, indexed by packed move.
+	private final int[][] killers = new int[MAX_DEPTH][2];
+	private int[] history = new int[0];
+
+	// Move buffers and their ordering scores for each ply, made to size for the rules of the game being searched.
+	private final int[][] moves = new int[MAX_DEPTH][], moveScores = new int[MAX_DEPTH][];
+
+	// Positions already searched, possibly shared with other searchers.
+	private final TranspositionTable table;
+
+	private long nodes, hits, deadline;
+	// Whether the search has run out of time, and whether it's allowed to yet (not until the first iteration is done).
+	private boolean aborted, canAbort;
+
+	/**
+	 * Makes a new searcher with a transposition table of its own.
+	 */
+	public MovementSearch() {
+		this(new TranspositionTable(DEFAULT_TABLE_SIZE));
+	}
+
+	/**
+	 * Makes a new searcher.
+	 * @param table The transposition table to use, which can be shared with other searchers on other threads.
+	 */
+	public MovementSearch(TranspositionTable table) {
+		this.table = table;
+	}
+
+	/**
+	 * Searches for the best move for the given player until there's no time left or the search reaches the end of
+	 * the stage. The position is only read.
+	 * @param position The game, which must be in the movement stage with no contest pending.
+	 * @param playerIndex The index of the player to move, who must be able to.
+	 * @param budget How long to search for, in nanoseconds.
+	 * @return What the search found. The first iteration is always finished, so there's a move if the player can move.
+	 */
+	public Result search(GameEngine position, int playerIndex, long budget) {
+		return search(position, playerIndex, budget, MAX_DEPTH);
+	}
+
+	/**
+	 * Searches for the best move for the given player until there's no time left or the given depth is reached.
+	 * The position is only read.
+	 * @param position The game, which must be in the movement stage with no contest pending.
+	 * @param playerIndex The index of the player to move, who must be able to.
+	 * @param budget How long to search for, in nanoseconds.
+	 * @param maxDepth The deepest to search, in plies.
+	 * @return What the search found. The first iteration is always finished, so there's a move if the player can move.
+	 */
+	public Result search(GameEngine position, int playerIndex, long budget, int maxDepth) {
+		checkRules(position);
+		table.newSearch();
+		return run(position, playerIndex, budget, maxDepth, 1);
+	}
+
+	/**
+	 * Searches for the best move for the given player with every thread of the given pool at once, all sharing this
+	 * searcher's transposition table (lazy SMP). The other threads search the same position with searchers of their
+	 * own, half of them starting a ply deeper, and the only thing that they share is the table, which fills up with
+	 * results that this thread then doesn't have to search for itself. The position is only read.
+	 * @param position The game, which must be in the movement stage with no contest pending.
+	 * @param playerIndex The index of the player to move, who must be able to.
+	 * @param budget How long to search for, in nanoseconds.
+	 * @param pool The threads to search with. This thread searches too, so one of them is left idle.
+	 * @return What this thread's search found, with the nodes of every thread added up.
+	 */
+	public Result search(final GameEngine position, final int playerIndex, final long budget, ForkJoinPool pool) {
+		checkRules(position);
+		table.newSearch();
+
+		List<Future<Result>> helpers = new ArrayList<Future<Result>>();
+		for (int i = 1; i < pool.getParallelism(); i++) {
+			final MovementSearch helper = new MovementSearch(table);
+			final int firstDepth = 1 + i % 2;
+			helpers.add(pool.submit(new Callable<Result>() {
+				@Override
+				public Result call() {
+					return helper.run(position, playerIndex, budget, MAX_DEPTH, firstDepth);
+				}
+			}));
+		}
+
+		Result result = run(position, playerIndex, budget, MAX_DEPTH, 1);
+		long totalNodes = result.nodes, totalHits = result.tableHits;
+		for (Future<Result> helper : helpers) {
+			try {
+				Result helped = helper.get();
+				totalNodes += helped.nodes;
+				totalHits += helped.tableHits;
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			catch (ExecutionException e) {
+				throw new IllegalStateException("A search thread failed.", e.getCause());
+			}
+		}
+		return new Result(result.move, result.depth, result.score, result.principalVariation, totalNodes, totalHits, result.elapsed);
+	}
+
+	/**
+	 * Makes sure that every move of the given game can be stored in the transposition table as a hash move.
+	 * @throws IllegalArgumentException If the game has too many ships (see {@link TranspositionTable#canStoreMoves(game.engine.Rules)}).
+	 */
+	private static void checkRules(GameEngine position) {
+		if (!TranspositionTable.canStoreMoves(position.getRules())) throw new IllegalArgumentException("The game has too many ships for their moves to be stored in a transposition table.");
+	}
+
+	/**
+	 * Searches with iterative deepening from the given depth up.
+	 */
+	private Result run(GameEngine position, int playerIndex, long budget, int maxDepth, int firstDepth) {
+		long start = System.nanoTime();
+		deadline = start + budget;
+		nodes = hits = 0;
+		aborted = canAbort = false;
+		prepare(position);
+
+		// Past the end of the stage every line just stops, so there's no point searching any deeper than that.
+		PlayerState player = position.getPlayers()[playerIndex];
+		int pliesLeft = player.getMovesLeft() + player.getOpponent().getMovesLeft();
+		maxDepth = Math.min(Math.max(1, Math.min(maxDepth, pliesLeft)), MAX_DEPTH);
+
+		// Moves are made and taken back on a copy of our own, so that the caller's game is left alone.
+		GameEngine game = position.copy(GameListener.NONE, DEFENDER_WINS);
+		Result result = new Result(-1, 0, 0, new int[0], 0, 0, 0);
+		lastPv = new int[0];
+		for (int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth; depth++) {
+			followingPv = true;
+			double score = negamax(game, playerIndex, depth, 0, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+			// An unfinished iteration can't be trusted.
+			if (aborted) break;
+
+			lastPv = Arrays.copyOf(pv[0], pvLength[0]);
+			result = new Result((lastPv.length > 0) ? lastPv[0] : -1, depth, score, lastPv, nodes, hits, System.nanoTime() - start);
+			canAbort = true;
+		}
+		return new Result(result.move, result.depth, result.score, result.principalVariation, nodes, hits, System.nanoTime() - start);
+	}
+
+	/**
+	 * Sizes the buffers for the rules of the given game and forgets the killers of the last search.
+	 */
+	private void prepare(GameEngine position) {
+		int maxMoves = MoveGenerator.getMaxMovesPerPlayer(position.getRules());
+		if (moves[0] == null || moves[0].length < maxMoves) {
+			for (int ply = 0; ply < MAX_DEPTH; ply++) {
+				moves[ply] = new int[maxMoves];
+				moveScores[ply] = new int[maxMoves];
+			}
+		}
+
+		int moveCodes = position.getBoard().getShips().length << 2;
+		if (history.length < moveCodes) history = new int[moveCodes];
+		// Old history is still a decent guess, but shouldn't outweigh what this search finds.
+		for (int i = 0; i < history.length; i++) {
+			history[i] >>= 2;
+		}
+		for (int[] ply : killers) {
+			Arrays.fill(ply, -1);
+		}
+	}
+
+	/**
+	 * Scores the position for the player to move, searching the given number of plies ahead.
+	 * @return The score (see {@link Result#score}). Meaningless if the search was aborted.
+	 */
+	private double negamax(GameEngine game, int mover, int depth, int ply, double alpha, double beta) {
+		pvLength[ply] = ply;
+		if ((++nodes & CHECK_INTERVAL) == 0 && canAbort && System.nanoTime() >= deadline) aborted = true;
+		if (aborted) return 0;
+
+		PlayerState player = game.getPlayers()[mover];
+		int count = 0;
+		if (depth > 0 && ply < MAX_DEPTH && game.getState().equals(GameEngine.GameState.Movement) && player.canMove()) count = MoveGenerator.generateMoves(player, moves[ply]);
+		if (count == 0) {
+			// The end of this line, and of any principal variation being followed.
+			followingPv = false;
+			return score(game, player, ply);
+		}
+		// See if this position has been searched already, by another order of moves or another thread.
+		long hash = game.getHash() ^ ((mover == 1) ? Zobrist.SECOND_PLAYER_TO_MOVE : 0);
+		long entry = table.probe(hash);
+		int hashMove = -1;
+		if (entry != TranspositionTable.MISSING) {
+			hashMove = TranspositionTable.getMove(entry);
+			// Never cut off at the root, which has to come up with a move and a principal variation.
+			if (ply > 0 && TranspositionTable.getDepth(entry) >= depth) {
+				double stored = fromTable(TranspositionTable.getScore(entry), ply);
+				int bound = TranspositionTable.getBound(entry);
+				if (bound == TranspositionTable.EXACT || (bound == TranspositionTable.LOWER_BOUND && stored >= beta)
+						|| (bound == TranspositionTable.UPPER_BOUND && stored <= alpha)) {
+					hits++;
+					return stored;
+				}
+			}
+		}
+		scoreMoves(game, player, ply, count, hashMove);
+
+		double originalAlpha = alpha, best = Double.NEGATIVE_INFINITY;
+		int bestMove = -1;
+		for (int i = 0; i < count; i++) {
+			int move = pickMove(ply, i, count);
+
+			game.makeMove(move, false);
+
+			// The players take turns, unless the other one has no moves left, in which case the same player goes again.
+			int next = 1 - mover;
+			if (!game.getPlayers()[next].canMove() && game.getPlayers()[mover].canMove()) next = mover;
+			double value = (next == mover) ? negamax(game, next, depth - 1, ply + 1, alpha, beta) : -negamax(game, next, depth - 1, ply + 1, -beta, -alpha);
+			game.unmake();
+			if (aborted) return 0;
+
+			if (value > best) {
+				best = value;
+				bestMove = move;
+			}
+			if (value > alpha) {
+				alpha = value;
+				// This move is the best so far, so it and the best line after it make up the principal variation.
+				pv[ply][ply] = move;
+				System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, pvLength[ply + 1] - ply - 1);
+				pvLength[ply] = Math.max(pvLength[ply + 1], ply + 1);
+			}
+			if (alpha >= beta) {
+				// A cutoff. Remember the move so that it's tried early in similar positions.
+				if (killers[ply][0] != move) {
+					killers[ply][1] = killers[ply][0];
+					killers[ply][0] = move;
+				}
+				history[move] += depth * depth;
+				break;
+			}
+		}
+
+		int bound = (best <= originalAlpha) ? TranspositionTable.UPPER_BOUND : (best >= beta) ? TranspositionTable.LOWER_BOUND : TranspositionTable.EXACT;
+		table.store(hash, bestMove, depth, bound, toTable(best, ply));
+		return best;
+	}
+
+	/**
+	 * Scores a position that isn't searched any further, from the point of view of the given player.
+	 */
+	private static double score(GameEngine game, PlayerState player, int ply) {
+		double score = MonteCarloTreeSearch.evaluate(game, player) - 0.5;
+		if (game.getState().equals(GameEngine.GameState.Ended)) {
+			// Prefer quicker wins and slower losses.
+			if (score > 0) score = WIN - ply * PLY_BONUS;
+			else if (score < 0) score = -WIN + ply * PLY_BONUS;
+		}
+		return score;
+	}
+
+	/**
+	 * Turns a score into what's stored in the transposition table. A game end found from the root is stored as how far
+	 * it is from the position being stored instead, as chess programs do with mates, since the same position can come
+	 * up at another ply of this search or of a later one, where the end is just as far from it but not from the root.
+	 * @param score The score, as from the root.
+	 * @param ply How many plies the position is from the root.
+	 * @return The score to store.
+	 */
+	private static double toTable(double score, int ply) {
+		if (score >= WIN_THRESHOLD) return score + ply * PLY_BONUS;
+		if (score <= -WIN_THRESHOLD) return score - ply * PLY_BONUS;
+		return score;
+	}
+
+	/**
+	 * Turns a score from the transposition table back into one as from the root (see {@link #toTable(double, int)}).
+	 * @param stored The score that was stored.
+	 * @param ply How many plies the position is from the root.
+	 * @return The score.
+	 */
+	private static double fromTable(double stored, int ply) {
+		if (stored >= WIN_THRESHOLD) return stored - ply * PLY_BONUS;
+		if (stored <= -WIN_THRESHOLD) return stored + ply * PLY_BONUS;
+		return stored;
+	}
+
+	/**
+	 * Gives each of the moves at the given ply a score for how early it should be tried.
+	 */
+	private void scoreMoves(GameEngine game, PlayerState player, int ply, int count, int hashMove) {
+		BoardState board = game.getBoard();
+		ShipState[] ships = board.getShips();
+		int forward = player.getStartPosition().equals(PlayerState.StartSide.BottomRight) ? -1 : 1;
+		int pvMove = (followingPv && ply < lastPv.length) ? lastPv[ply] : -1;
+		followingPv = false;
+
+		for (int i = 0; i < count; i++) {
+			int move = moves[ply][i];
+			ShipState ship = ships[MoveGenerator.getShipIndex(move)];
+			BoardState.MoveDirection direction = MoveGenerator.getDirection(move);
+			int x = ship.getXInDirection(direction), y = ship.getYInDirection(direction);
+
+			int score = history[move];
+			if (move == pvMove) {
+				score = PV_SCORE;
+				// Keep following the last principal variation down this line.
+				followingPv = true;
+			}
+			else if (move == hashMove) score = HASH_SCORE;
+			else if (move == killers[ply][0] || move == killers[ply][1]) score += KILLER_SCORE;
+			else if (board.getShip(x, y) != null) score += CONTEST_SCORE;
+			else if ((x - ship.getX()) * forward > 0) score += FORWARD_SCORE;
+			else if (x == ship.getX()) score += SIDEWAYS_SCORE;
+			moveScores[ply][i] = score;
+		}
+	}
+
+	/**
+	 * Swaps the best scoring of the moves not tried yet at the given ply into place, so that only as many moves are
+	 * sorted as are actually tried before a cutoff.
+	 * @return The move to try next.
+	 */
+	private int pickMove(int ply, int next, int count) {
+		int[] plyMoves = moves[ply], scores = moveScores[ply];
+		int best = next;
+		for (int i = next + 1; i < count; i++) {
+			if (scores[i] > scores[best]) best = i;
+		}
+
+		int move = plyMoves[best], score = scores[best];
+		plyMoves[best] = plyMoves[next];
+		scores[best] = scores[next];
+		plyMoves[next] = move;
+		scores[next] = score;
+		return move;
+	}
+}
@@ -0,0 +1,55 @@
+package game.ai;
+
+import java.util.Random;
+
+import game.engine.BotContestResolver;
+import game.engine.Contest;
+import game.engine.PlayerState;
+import game.engine.ShipState;
+
+/**
+ * Decides what a computer-controlled player does. Policies only ever pick legal actions, and they keep no state of
+ * their own between calls, so that one policy can play any number of games at once on different threads. Anything
+ * random comes from the random number generator that they're given, which belongs to the game being played.
+ * Policies also click in contests, so that games between them can be settled by a {@link BotContestResolver}.
+ */
+public interface Policy extends BotContestResolver.ClickPolicy {
+	/**
+	 * How many times a policy clicks in a contest unless it decides otherwise: seven a second over a ten second
+	 * battle, as fast as the computer player clicks on screen.
+	 */
+	public static final int DEFAULT_CLICKS = 70;
+
+	/**
+	 * Picks where to place the player's next unplaced ship.
+	 * @param player The player placing a ship, which must have one left to place.
+	 * @param random The game's random number generator.
+	 * @return The index of an empty square in the player's territory (see {@link game.engine.BoardState#getIndex(int, int)}).
+	 */
+	int choosePlacement(PlayerState player, Random random);
+
+	/**
+	 * Picks a square for the player to fire at.
+	 * @param player The player firing, which must have shots left.
+	 * @param random The game's random number generator.
+	 * @return The index of a square without a wreck or one of the player's own ships on it.
+	 */
+	int chooseShot(PlayerState player, Random random);
+
+	/**
+	 * Picks a ship for the player to move and where to move it.
+	 * @param player The player moving, which must have moves left and a ship that can move.
+	 * @param random The game's random number generator.
+	 * @return The move, packed as by {@link game.engine.MoveGenerator#encodeMove(game.engine.ShipState, game.engine.BoardState.MoveDirection)}.
+	 */
+	int chooseMove(PlayerState player, Random random);
+
+	/**
+	 * Clicks {@link #DEFAULT_CLICKS} times in every contest, so that between two policies that don't decide otherwise
+	 * the defender always wins, as it does between two computer players on screen.
+	 */
+	@Override
+	default int getClicks(Contest contest, ShipState ship) {
+		return DEFAULT_CLICKS;
+	}
+}
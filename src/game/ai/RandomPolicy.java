@@ -0,0 +1,55 @@
+package game.ai;
+
+import java.util.Random;
+
+import game.engine.BoardState;
+import game.engine.MoveGenerator;
+import game.engine.PlayerState;
+import game.engine.Rules;
+import game.engine.ShipState;
+
+/**
+ * Plays completely at random: every legal placement, shot and move is as likely as any other. Useful as a baseline
+ * to measure other policies against.
+ */
+public class RandomPolicy implements Policy {
+	@Override
+	public int choosePlacement(PlayerState player, Random random) {
+		BoardState board = player.getGame().getBoard();
+		Rules rules = board.getRules();
+		int territorySize = rules.getTerritorySize();
+		int firstColumn = player.getStartPosition().equals(PlayerState.StartSide.BottomRight) ? board.getNumColumns() - territorySize : 0;
+
+		// The territory is never close to full, so just keep trying squares in it until we find an empty one.
+		while (true) {
+			int x = firstColumn + random.nextInt(territorySize), y = random.nextInt(board.getNumRows());
+			if (board.getShip(x, y) == null) return board.getIndex(x, y);
+		}
+	}
+
+	@Override
+	public int chooseShot(PlayerState player, Random random) {
+		BoardState board = player.getGame().getBoard();
+		while (true) {
+			int x = random.nextInt(board.getNumColumns()), y = random.nextInt(board.getNumRows());
+			if (board.isUsable(x, y) && board.hasEnemyOrNothing(player, x, y)) return board.getIndex(x, y);
+		}
+	}
+
+	@Override
+	public int chooseMove(PlayerState player, Random random) {
+		BoardState board = player.getGame().getBoard();
+		int chosen = -1, count = 0;
+
+		// Pick one of the legal moves uniformly without having to store them all.
+		for (ShipState ship : player.getShips()) {
+			if (!ship.hasBeenPlaced() || ship.isDestroyed()) continue;
+			for (BoardState.MoveDirection direction : BoardState.MOVE_DIRECTIONS) {
+				if (board.canMoveToSquare(ship, ship.getXInDirection(direction), ship.getYInDirection(direction)) && random.nextInt(++count) == 0) {
+					chosen = MoveGenerator.encodeMove(ship, direction);
+				}
+			}
+		}
+		return chosen;
+	}
+}
@@ -0,0 +1,174 @@
+package game.ai;
+
+import java.util.Arrays;
+
+import game.engine.Rules;
+
+/**
+ * A fixed-size table of positions that a search has already looked at, indexed by their hash (see
+ * {@link game.engine.GameEngine#getHash()}), so that positions reached again by a different order of moves aren't
+ * searched all over again. One table can be shared by any number of search threads without any locking.
+ * <p>
+ * Everything is kept in one {@code long[]}, two longs per entry: the hash XORed with the data, then the data itself.
+ * Two threads writing the same entry at once can leave the halves from different writes, but then the hash that
+ * comes out of XORing them back together doesn't match, so a torn entry just looks like a miss (the lockless
+ * hashing of Hyatt and Mann). Entries are grouped into buckets of two: the first is only replaced by a search at
+ * least as deep, unless it's from an older search, and the second is always replaced, so deep results stick around
+ * without the table filling up with stale ones.
+ */
+public class TranspositionTable {
+	/**
+	 * The kinds of score that can be stored: the exact score, or only a bound on it from a cutoff.
+	 */
+	public static final int EXACT = 0, LOWER_BOUND = 1, UPPER_BOUND = 2;
+
+	/**
+	 * What {@link #probe(long)} gives for a position that isn't in the table.
+	 */
+	public static final long MISSING = 0;
+
+	// Where each field is in the data of an entry, and how many bits it has. Moves are stored plus one so that 0 means
+	// no move, and bounds are too so that no stored entry is ever MISSING.
+	private static final int MOVE_BITS = 26, DEPTH_SHIFT = 26, BOUND_SHIFT = 33, AGE_SHIFT = 35, SCORE_SHIFT = 40;
+	private static final long MOVE_MASK = (1L << MOVE_BITS) - 1;
+	private static final int DEPTH_MASK = 127, AGE_MASK = 31;
+
+	/**
+	 * The biggest packed move that can be stored (see {@link game.engine.MoveGenerator#encodeMove}), enough for every
+	 * move of the first 16777215 ships. Check {@link #canStoreMoves(Rules)} before searching a game with the table.
+	 */
+	public static final int MAX_MOVE = (int) MOVE_MASK - 1;
+
+	/**
+	 * Scores are stored in fixed point with this many steps per unit, in the 24 bits above the rest of the data, so
+	 * they can be from -2 to 2.
+	 */
+	private static final double SCORE_STEPS = 1 << 22;
+	private static final int MAX_SCORE = (1 << 23) - 1;
+
+	// Each bucket is two entries of two longs.
+	private static final int LONGS_PER_BUCKET = 4;
+
+	private final long[] table;
+	private final int bucketMask;
+
+	// The age of the current search, stored with each entry so that old ones can be told apart.
+	private volatile int age;
+
+	/**
+	 * Makes a new empty table.
+	 * @param megabytes Roughly how much memory to use, rounded down to a power of two buckets.
+	 */
+	public TranspositionTable(int megabytes) {
+		long buckets = Long.highestOneBit(Math.max(1, ((long) megabytes << 20) / (LONGS_PER_BUCKET * 8)));
+		// Java arrays can't be any bigger.
+		buckets = Math.min(buckets, 1L << 28);
+		table = new long[(int) buckets * LONGS_PER_BUCKET];
+		bucketMask = (int) buckets - 1;
+	}
+
+	/**
+	 * Determines if every move of a game played by the given rules can be stored in a table.
+	 * @param rules The rules.
+	 * @return True if the last move of the last ship is no more than {@link #MAX_MOVE}.
+	 */
+	public static boolean canStoreMoves(Rules rules) {
+		return ((long) rules.getShipsPerPlayer() * 2 << 2) - 1 <= MAX_MOVE;
+	}
+
+	/**
+	 * Starts a new search, so that what's stored from now on is preferred to what was stored before.
+	 */
+	public void newSearch() {
+		age = (age + 1) & AGE_MASK;
+	}
+
+	/**
+	 * Forgets everything in the table. Shouldn't be done while anything is searching with it.
+	 */
+	public void clear() {
+		Arrays.fill(table, 0);
+	}
+
+	/**
+	 * Looks up a position.
+	 * @param hash The hash of the position.
+	 * @return The data stored for it, to be read with {@link #getMove(long)} and the like, or {@link #MISSING}.
+	 */
+	public long probe(long hash) {
+		int bucket = ((int) hash & bucketMask) * LONGS_PER_BUCKET;
+		for (int entry = bucket; entry < bucket + LONGS_PER_BUCKET; entry += 2) {
+			long data = table[entry + 1];
+			if ((table[entry] ^ data) == hash && data != MISSING) return data;
+		}
+		return MISSING;
+	}
+
+	/**
+	 * Stores what a search found out about a position.
+	 * @param hash The hash of the position.
+	 * @param move The best move found, or -1 if there isn't one.
+	 * @param depth How deep the position was searched, in plies.
+	 * @param bound {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}.
+	 * @param score The score found, from -2 to 2. Kept to within 2<sup>-22</sup>.
+	 * @throws IllegalArgumentException If the move is more than {@link #MAX_MOVE}, which would leave a different move stored.
+	 */
+	public void store(long hash, int move, int depth, int bound, double score) {
+		if (move > MAX_MOVE) throw new IllegalArgumentException("Move " + move + " is too big to store.");
+		int currentAge = age;
+		long fixedScore = Math.max(-MAX_SCORE, Math.min(MAX_SCORE, Math.round(score * SCORE_STEPS)));
+		long data = (move + 1) | (long) Math.min(depth, DEPTH_MASK) << DEPTH_SHIFT | (long) (bound + 1) << BOUND_SHIFT
+				| (long) currentAge << AGE_SHIFT | fixedScore << SCORE_SHIFT;
+
+		int bucket = ((int) hash & bucketMask) * LONGS_PER_BUCKET;
+		int entry = bucket + 2;
+		long deep = table[bucket + 1];
+		// The deep entry takes the new one if it's the same position, empty, from an older search, or no deeper.
+		if ((table[bucket] ^ deep) == hash || deep == MISSING || getAge(deep) != currentAge || getDepth(deep) <= depth) entry = bucket;
+
+		table[entry] = hash ^ data;
+		table[entry + 1] = data;
+	}
+
+	/**
+	 * Gets the best move stored in an entry.
+	 * @param data The entry, as given by {@link #probe(long)}.
+	 * @return The move, or -1 if there isn't one.
+	 */
+	public static int getMove(long data) {
+		return (int) (data & MOVE_MASK) - 1;
+	}
+
+	/**
+	 * Gets how deep the position of an entry was searched.
+	 * @param data The entry, as given by {@link #probe(long)}.
+	 * @return The depth in plies.
+	 */
+	public static int getDepth(long data) {
+		return (int) (data >>> DEPTH_SHIFT) & DEPTH_MASK;
+	}
+
+	/**
+	 * Gets what kind of score an entry has.
+	 * @param data The entry, as given by {@link #probe(long)}.
+	 * @return {@link #EXACT}, {@link #LOWER_BOUND} or {@link #UPPER_BOUND}.
+	 */
+	public static int getBound(long data) {
+		return ((int) (data >>> BOUND_SHIFT) & 3) - 1;
+	}
+
+	/**
+	 * Gets the score of an entry.
+	 * @param data The entry, as given by {@link #probe(long)}.
+	 * @return The score, to within 2<sup>-22</sup>.
+	 */
+	public static double getScore(long data) {
+		// The arithmetic shift brings the sign down with it.
+		return (data >> SCORE_SHIFT) / SCORE_STEPS;
+	}
+
+	// Gets the age of the search that stored an entry.
+	private static int getAge(long data) {
+		return (int) (data >>> AGE_SHIFT) & AGE_MASK;
+	}
+}
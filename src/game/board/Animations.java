@@ -0,0 +1,294 @@
+package game.board;
+
+import java.util.Arrays;
+
+import javafx.animation.AnimationTimer;
+import javafx.animation.Interpolator;
+import javafx.scene.control.Label;
+import javafx.scene.paint.Color;
+
+/**
+ * Runs every animation of a board from one pulse callback: the fades of squares that have been shot at, the sweep of
+ * the winner's colour across the board at the end of the game, and the countdowns of battles. Each kind of animation
+ * is kept in slots in arrays that are made up front and only ever grow if more are running at once than ever before,
+ * so a whole salvo of shots doesn't make a timeline and a handler for every shot, just fills a few slots. The sweep is
+ * kept as how far it's got rather than in the squares, so a board drawn on a canvas can draw it without a square
+ * object for every square (see {@link #getSweepFill(int, int)}). The pulse only runs while there's something to
+ * animate, or something to draw (see {@link #setPainter(Runnable)}).
+ */
+public class Animations {
+	/**
+	 * Told about a countdown as it runs.
+	 */
+	public interface CountdownListener {
+		/**
+		 * Called every frame while the countdown is running, before the number is counted down.
+		 * @param now The time of the frame, in nanoseconds.
+		 */
+		default void frame(long now) {}
+
+		/**
+		 * Called once the countdown has gone past 0, after which it's over.
+		 */
+		void finished();
+	}
+
+	/**
+	 * How long a square takes to fade back from being shot, in nanoseconds.
+	 */
+	public static final long FADE_LENGTH = 1000000000;
+
+	/**
+	 * How long the sweep at the end of the game waits between squares, in nanoseconds.
+	 */
+	public static final long SWEEP_STEP = 50000000;
+
+	private static final long ONE_SECOND = 1000000000;
+
+	// How many of each kind of animation there's room for to start with.
+	private static final int INITIAL_SLOTS = 16;
+
+	private final Board board;
+
+	// The squares fading, the colours they fade from and to, and when they started, -1 until their first frame.
+	private Square[] fadeSquares = new Square[INITIAL_SLOTS];
+	private Color[] fadeFroms = new Color[INITIAL_SLOTS], fadeTos = new Color[INITIAL_SLOTS];
+	private long[] fadeStarts = new long[INITIAL_SLOTS];
+	private int numFades;
+
+	// The colour being swept across the board, or null if there's never been a sweep, how many squares it's coloured,
+	// back and forth along each row from the top, whether it's still going, and when it last coloured a square.
+	private Color sweepColour;
+	private int numSwept;
+	private boolean sweeping;
+	private long lastSweepStep;
+
+	// The labels that countdowns show their numbers on (null for none), who's told about them, their numbers and when
+	// they last counted down.
+	private Label[] countdownLabels = new Label[INITIAL_SLOTS];
+	private CountdownListener[] countdownListeners = new CountdownListener[INITIAL_SLOTS];
+	private int[] countdownNumbers = new int[INITIAL_SLOTS];
+	private long[] countdownTicks = new long[INITIAL_SLOTS];
+	private int numCountdowns;
+
+	// Draws the board once the animations have moved on, every frame, or null if nothing needs drawing.
+	private Runnable painter;
+
+	private boolean running;
+
+	/**
+	 * Moves every animation on, once a frame.
+	 */
+	private final AnimationTimer pulse = new AnimationTimer() {
+		@Override
+		public void handle(long now) {
+			advance(now);
+		}
+	};
+
+	/**
+	 * Makes the animations of a board, with nothing running.
+	 * @param board The board whose squares are animated.
+	 */
+	Animations(Board board) {
+		this.board = board;
+	}
+
+	/**
+	 * Fades a square from one colour to another over {@link #FADE_LENGTH}, then sets its fill back to whatever it
+	 * should be. Starting a fade on a square that's already fading starts it over.
+	 * @param square The square to fade.
+	 * @param from The colour to start from.
+	 * @param to The colour to fade to.
+	 */
+	public void fade(Square square, Color from, Color to) {
+		int slot = 0;
+		while (slot < numFades && fadeSquares[slot] != square) {
+			slot++;
+		}
+		if (slot == numFades) {
+			if (numFades == fadeSquares.length) growFades();
+			numFades++;
+		}
+
+		fadeSquares[slot] = square;
+		fadeFroms[slot] = from;
+		fadeTos[slot] = to;
+		fadeStarts[slot] = -1;
+		square.setFill(from);
+		start();
+	}
+
+	/**
+	 * Colours every square of the board in the given colour one at a time, back and forth along each row from the top,
+	 * one every {@link #SWEEP_STEP}. Replaces any sweep already going or done.
+	 * @param colour The colour to sweep the board with.
+	 */
+	public void sweep(Color colour) {
+		boolean restarted = numSwept > 0;
+		sweepColour = colour;
+		numSwept = 0;
+		sweeping = true;
+		lastSweepStep = 0;
+		if (restarted) board.sweepRestarted();
+		start();
+	}
+
+	/**
+	 * Gets the colour that the sweep has coloured the square at the given coordinates.
+	 * @param x The x coordinate, which must be on the board.
+	 * @param y The y coordinate, which must be on the board.
+	 * @return The colour of the sweep, or null if it hasn't got to the square.
+	 */
+	Color getSweepFill(int x, int y) {
+		if (numSwept == 0) return null;
+		int numColumns = board.getNumColumns();
+		int order = y * numColumns + ((y % 2 == 0) ? x : numColumns - 1 - x);
+		return (order < numSwept) ? sweepColour : null;
+	}
+
+	/**
+	 * Counts down from the given number once a second, the first time on the next frame, showing the number on a label
+	 * and telling the listener when it goes past 0. Counting down from 10 takes 10 seconds.
+	 * @param label The label to show the number on, or null to just wait.
+	 * @param from The number to count down from.
+	 * @param listener Told about every frame and when the countdown is over.
+	 */
+	public void countdown(Label label, int from, CountdownListener listener) {
+		if (numCountdowns == countdownLabels.length) {
+			int length = numCountdowns * 2;
+			countdownLabels = Arrays.copyOf(countdownLabels, length);
+			countdownListeners = Arrays.copyOf(countdownListeners, length);
+			countdownNumbers = Arrays.copyOf(countdownNumbers, length);
+			countdownTicks = Arrays.copyOf(countdownTicks, length);
+		}
+
+		countdownLabels[numCountdowns] = label;
+		countdownListeners[numCountdowns] = listener;
+		countdownNumbers[numCountdowns] = from;
+		countdownTicks[numCountdowns] = 0;
+		numCountdowns++;
+		start();
+	}
+
+	/**
+	 * Sets what draws the board, which is run every frame after the animations have moved on, for as long as it's set.
+	 * @param painter What draws the board, or null to stop drawing it.
+	 */
+	void setPainter(Runnable painter) {
+		this.painter = painter;
+		if (painter != null) start();
+	}
+
+	/**
+	 * Makes room for twice as many fades.
+	 */
+	private void growFades() {
+		int length = fadeSquares.length * 2;
+		fadeSquares = Arrays.copyOf(fadeSquares, length);
+		fadeFroms = Arrays.copyOf(fadeFroms, length);
+		fadeTos = Arrays.copyOf(fadeTos, length);
+		fadeStarts = Arrays.copyOf(fadeStarts, length);
+	}
+
+	/**
+	 * Starts the pulse if it isn't running already.
+	 */
+	private void start() {
+		if (running) return;
+		running = true;
+		pulse.start();
+	}
+
+	/**
+	 * Moves every animation on to the given time, draws the board, then stops the pulse if there's nothing left to do.
+	 */
+	private void advance(long now) {
+		advanceFades(now);
+		if (sweeping) advanceSweep(now);
+		advanceCountdowns(now);
+		if (painter != null) painter.run();
+
+		if (numFades == 0 && !sweeping && numCountdowns == 0 && painter == null) {
+			running = false;
+			pulse.stop();
+		}
+	}
+
+	/**
+	 * Sets the fill of every fading square for the given time, and finishes the ones that are done.
+	 */
+	private void advanceFades(long now) {
+		for (int slot = 0; slot < numFades;) {
+			if (fadeStarts[slot] < 0) fadeStarts[slot] = now;
+			double fraction = Math.min(1, (double) (now - fadeStarts[slot]) / FADE_LENGTH);
+			Square square = fadeSquares[slot];
+
+			if (fraction < 1) {
+				// Ease in and out, as a fill transition does.
+				square.setFill(fadeFroms[slot].interpolate(fadeTos[slot], Interpolator.EASE_BOTH.interpolate(0.0, 1.0, fraction)));
+				slot++;
+				continue;
+			}
+
+			// The fade is done: make sure the fill is the right colour, and move the last fade into this slot.
+			numFades--;
+			fadeSquares[slot] = fadeSquares[numFades];
+			fadeFroms[slot] = fadeFroms[numFades];
+			fadeTos[slot] = fadeTos[numFades];
+			fadeStarts[slot] = fadeStarts[numFades];
+			fadeSquares[numFades] = null;
+			fadeFroms[numFades] = fadeTos[numFades] = null;
+			square.refreshFill();
+		}
+	}
+
+	/**
+	 * Colours the next square of the sweep if it's been long enough, and ends the sweep after the last one.
+	 */
+	private void advanceSweep(long now) {
+		if (now - lastSweepStep < SWEEP_STEP) return;
+		lastSweepStep = now;
+
+		// Every other row is swept from right to left.
+		int numColumns = board.getNumColumns();
+		int x = numSwept % numColumns, y = numSwept / numColumns;
+		if (y % 2 == 1) x = numColumns - 1 - x;
+		numSwept++;
+		if (numSwept == numColumns * board.getNumRows()) sweeping = false;
+		board.squareSwept(x, y, sweepColour);
+	}
+
+	/**
+	 * Counts down every countdown that's due, and finishes the ones that have gone past 0.
+	 */
+	private void advanceCountdowns(long now) {
+		for (int slot = 0; slot < numCountdowns;) {
+			CountdownListener listener = countdownListeners[slot];
+			listener.frame(now);
+
+			// Only count down once a second.
+			if (now - countdownTicks[slot] < ONE_SECOND) {
+				slot++;
+				continue;
+			}
+			countdownTicks[slot] = now;
+			int number = --countdownNumbers[slot];
+			if (number >= 0) {
+				if (countdownLabels[slot] != null) countdownLabels[slot].setText(String.valueOf(number));
+				slot++;
+				continue;
+			}
+
+			// The countdown is over. Move the last one into this slot before telling the listener, since it might start another.
+			numCountdowns--;
+			countdownLabels[slot] = countdownLabels[numCountdowns];
+			countdownListeners[slot] = countdownListeners[numCountdowns];
+			countdownNumbers[slot] = countdownNumbers[numCountdowns];
+			countdownTicks[slot] = countdownTicks[numCountdowns];
+			countdownLabels[numCountdowns] = null;
+			countdownListeners[numCountdowns] = null;
+			listener.finished();
+		}
+	}
+}
@@ -1,15 +1,11 @@
 package game.board;
 
-import java.util.HashMap;
 import java.util.function.Consumer;
 
-import game.player.Player;
+import game.engine.Contest;
+import game.engine.PlayerState;
+import game.player.KeyBindings;
 import game.ships.Ship;
-import javafx.animation.AnimationTimer;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
-import javafx.event.ActionEvent;
-import javafx.event.EventHandler;
 import javafx.geometry.Insets;
 import javafx.scene.control.Label;
 import javafx.scene.input.KeyCode;
@@ -19,8 +15,7 @@ import javafx.scene.layout.CornerRadii;
 import javafx.scene.layout.HBox;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
-import javafx.util.Duration;
-import main.InputHandler;
+import main.InputSession;
 
 public class Battle {
 	private static final long ONE_SECOND = 1000000000;
@@ -42,18 +37,35 @@ public class Battle {
 	// The ship defending the square and the ship attacking/contesting the square.
 	Ship defender, contester;
 	
-	// The number of clicks that each of the two ships did.
-	int defenderClicks = 0, contesterClicks = 0;
+	/**
+	 * Every click made in this battle and when it was made.
+	 */
+	final ClickLog clicks = new ClickLog();
+	
+	// When clicking started, in nanoseconds.
+	long clickStartTime;
+	
+	// The number of clicks of each of the two ships currently shown on screen.
+	int defenderClicksShown = 0, contesterClicksShown = 0;
+	
+	/**
+	 * The input of the game that this battle is part of.
+	 */
+	InputSession input;
+	
+	/**
+	 * The contest that this battle settles.
+	 */
+	Contest contest;
 	
 	/**
 	 * Begins a new batle between the two ships
+	 * @param contest The contest that the battle settles.
 	 * @param defender The ship defending the square
 	 * @param attacker The ship attacking the square.
 	 */
-	public Battle(Ship defender, Ship contester) {
-		// Stop monitoring user input immediately.
-		InputHandler.stopMonitoring();
-		
+	public Battle(Contest contest, Ship defender, Ship contester) {
+		this.contest = contest;
 		this.defender = defender;
 		this.contester = contester;
 		
@@ -65,6 +77,10 @@ public class Battle {
 		defender.setVisible(true);
 		contester.setVisible(true);
 		
+		// Stop monitoring user input immediately.
+		input = defender.player.getGame().getInput();
+		input.stopMonitoring();
+		
 		board = defender.player.getGame().getBoard();
 		pane = (HBox)board.getBottom();
 		
@@ -78,7 +94,7 @@ public class Battle {
 		contesterLabel.setTextFill(contester.player.getSelectionColour());
 		
 		// Need to decide which label to add first.
-		Label left_side_label = (defender.player.getStartPosition().equals(Player.StartSide.TopLeft)) ? defenderLabel : contesterLabel;
+		Label left_side_label = (defender.player.getStartPosition().equals(PlayerState.StartSide.TopLeft)) ? defenderLabel : contesterLabel;
 		Label right_side_label = (left_side_label.equals(defenderLabel)) ? contesterLabel : defenderLabel;
 		
 		// Add the left side label first so it's on the left.
@@ -100,101 +116,114 @@ public class Battle {
 		// Now add the right side label so that it's on the r ight
 		pane.getChildren().add(right_side_label);
 		
-		AnimationTimer countdownTimer = new AnimationTimer() {
-			long lastRunTime = 0;
-			int number = 10;
+		// Count down from 10 on screen before the battle starts.
+		board.getAnimations().countdown(countdownText, 10, new Animations.CountdownListener() {
 			@Override
-			public void handle(long now) {
-				// Only run this every second
-				if (now - lastRunTime >= ONE_SECOND) {
-					lastRunTime = now;
-					number--;
-					
-					// If the countdown has reached 0, stop counting down.
-					if (number < 0) {
-						stop();
-						onStartTimerEnd();
-					}
-					else {
-						// Otherwise, set the countdown text.
-						countdownText.setText(String.valueOf(number));
-					}
-				}
-				
+			public void finished() {
+				onStartTimerEnd();
 			}
-		};
-		
-		countdownTimer.start();
+		});
 	}
 	/**
 	 * Called when the animation timer for the countdown ends.
 	 */
 	private void onStartTimerEnd() {
-		// Make a new hashmap for the new key bindings.
-		HashMap<KeyCode, Consumer<KeyCode>> newBindings = new HashMap<KeyCode, Consumer<KeyCode>>();
+		// Make a new set of bindings with just the select keys.
+		InputSession.Bindings newBindings = new InputSession.Bindings();
 		
-		newBindings.put(defender.player.getKeyBindings().get(Player.ENTER), new Consumer<KeyCode>() {
+		KeyCode defenderKey = defender.player.getKeyBindings().getKey(KeyBindings.Action.ENTER);
+		if (defenderKey != null) newBindings.put(defenderKey, new Consumer<KeyCode>() {
 			@Override
 			public void accept(KeyCode t) {
-				// Simply add to the number of clicks that the contester did
-				defenderClicks++;				
-				defenderLabel.setText(String.valueOf(defenderClicks));
+				// Just note the click down; the label catches up on the next frame.
+				clicks.record(ClickLog.DEFENDER, input.getPressTime());
 			}
 		});
 		
-		newBindings.put(contester.player.getKeyBindings().get(Player.ENTER), new Consumer<KeyCode>() {
+		KeyCode contesterKey = contester.player.getKeyBindings().getKey(KeyBindings.Action.ENTER);
+		if (contesterKey != null) newBindings.put(contesterKey, new Consumer<KeyCode>() {
 			@Override
 			public void accept(KeyCode t) {
-				// Add to the number of clicks that the constester did.
-				contesterClicks++;
-				contesterLabel.setText(String.valueOf(contesterClicks));
+				clicks.record(ClickLog.CONTESTER, input.getPressTime());
 			}
 		});
 		
 		// Add a little bit of instructional text so the user knows what to do.
 		instructionText.setText("Press your select key more than the opponent!");
 		
-		// Make new animation countdown to let the player know how much time is left in the battle.
-		AnimationTimer actionCountdown = new AnimationTimer() {
-			long lastTime = 0;
-			int secondsLeft = 10;
+		// Override the regular key bindings so the player can't do what they usually can.
+		input.addOverrideBindings(newBindings);
+		
+		// Throw away anything pressed during the countdown, so that nobody gets a head start.
+		input.drain();
+		clickStartTime = System.nanoTime();
+		clicks.start(clickStartTime);
+		input.startMonitoring();
+		
+		// Count down on screen to let the player know how much time is left in the battle.
+		board.getAnimations().countdown(countdownText, 10, new Animations.CountdownListener() {
+			@Override
+			public void frame(long now) {
+				// Players who click on their own (the computer) get the clicks they're owed by now.
+				addAutomaticClicks(ClickLog.DEFENDER, defender.player.getAutomaticClickRate(), now);
+				addAutomaticClicks(ClickLog.CONTESTER, contester.player.getAutomaticClickRate(), now);
+				
+				// Show the clicks so far, once per frame no matter how many there were.
+				refreshClickLabels();
+			}
 			
 			@Override
-			public void handle(long now) {
-				if (now - lastTime >= ONE_SECOND) { 
-					lastTime = now;
-					secondsLeft--;
-					
-					// If there's no time left, end this timer.
-					if (secondsLeft < 0) {
-						stop();
-						determineWinner();
-					}
-					else {
-						// Set the time lefto on screen.
-						countdownText.setText(String.valueOf(secondsLeft));
-					}
-				}
+			public void finished() {
+				// There's no time left.
+				determineWinner();
 			}
-		};
-		
-		// Override the regular key bindings so the player can't do what they usually can.
-		InputHandler.addOverrideBindings(newBindings);
+		});
+	}
+	
+	/**
+	 * Records the clicks of a player that clicks on their own, evenly spaced at their click rate, up until the given time.
+	 * @param side The side of the battle that the player is on.
+	 * @param rate The player's clicks per second, 0 if they click for themselves.
+	 * @param now The time to click up until, in nanoseconds as given by {@link System#nanoTime()}.
+	 */
+	private void addAutomaticClicks(int side, double rate, long now) {
+		if (rate <= 0) return;
 		
-		InputHandler.startMonitoring();
-		actionCountdown.start();
+		long interval = (long) (ONE_SECOND / rate);
+		// The player has no keys, so every click of theirs was made here, and the next one is simply the one after the last.
+		for (long time = clickStartTime + (clicks.getCount(side) + 1) * interval; time <= now; time += interval) {
+			clicks.record(side, time);
+		}
+	}
+	
+	/**
+	 * Updates the click counts on screen if they've changed since they were last shown.
+	 */
+	private void refreshClickLabels() {
+		int defenderClicks = clicks.getCount(ClickLog.DEFENDER), contesterClicks = clicks.getCount(ClickLog.CONTESTER);
+		if (defenderClicks != defenderClicksShown) {
+			defenderClicksShown = defenderClicks;
+			defenderLabel.setText(String.valueOf(defenderClicks));
+		}
+		if (contesterClicks != contesterClicksShown) {
+			contesterClicksShown = contesterClicks;
+			contesterLabel.setText(String.valueOf(contesterClicks));
+		}
 	}
 	
 	/**
 	 * Determines the winner of the battle and effectively ends the battle.
 	 */
 	private void determineWinner() {
-		/* The winner is the defender if they outclicked or matched the contester, or the contester if they outclicked the defender.
-		 * The slight bias towards the defender here is intentional, since they would technically be more prepared. It's
-		 * however unlikely that the two players will match each other in clicks.
-		 */
-		Ship winner = (defenderClicks >= contesterClicks) ? defender : contester;
-		Ship loser = (defenderClicks >= contesterClicks) ? contester : defender;
+		// Time's up. Count any clicks that were made before now but haven't been handled yet, then no more.
+		clicks.end(System.nanoTime());
+		input.drain();
+		refreshClickLabels();
+		board.getGame().addBattleLog(clicks);
+		
+		// The engine decides who won, with a slight bias towards the defender (see Contest.settle).
+		Ship winner = (contest.getClickRaceWinner(clicks.getCount(ClickLog.DEFENDER), clicks.getCount(ClickLog.CONTESTER)) == defender.getShipState()) ? defender : contester;
+		Ship loser = (winner == defender) ? contester : defender;
 		
 		
 		// Fill the area with the winner's colour.
@@ -203,27 +232,25 @@ public class Battle {
 		
 		
 		// Set the clearBattle method for three seconds from this time.
-		Timeline endAnimation = new Timeline(new KeyFrame(Duration.seconds(3), new EventHandler<ActionEvent>() {
-
-		    @Override
-		    public void handle(ActionEvent event) {
-		        clearBattle(winner, loser);
-		    }
-		}));
-		endAnimation.play();
+		board.getAnimations().countdown(null, 3, new Animations.CountdownListener() {
+			@Override
+			public void finished() {
+				clearBattle(winner, loser);
+			}
+		});
 	}
 	
 	/**
 	 * Function to clear all the remnants from the battle on screen. 
 	 */
 	private void clearBattle(Ship winner, Ship loser) {
-		InputHandler.clearOverrideBindings();
+		input.clearOverrideBindings();
 		
 		// Remove the overlay nodes.
 		removeAll();
 		
 		// Carry out the proper actions for destroying the loser
-		loser.destroy();
+		contest.settle(winner.getShipState());
 		
 		// Set the selected ships of both players null
 		loser.player.setSelectedShip(null);
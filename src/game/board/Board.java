@@ -1,9 +1,11 @@
 package game.board;
 
 import game.Game;
+import game.engine.BoardState;
+import game.engine.PlayerState;
+import game.engine.ShipState;
 import game.player.Player;
 import game.ships.Ship;
-import javafx.animation.AnimationTimer;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Label;
@@ -15,7 +17,6 @@ import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
 import main.BattleshipGalactica;
-import main.InputHandler;
 
 /**
  * The board class for all board wide operations
@@ -24,29 +25,58 @@ import main.InputHandler;
  * ICS3U
  */
 public class Board extends BorderPane {
+	/**
+	 * The ways that the playing board can be drawn.
+	 */
+	public enum Renderer {
+		/**
+		 * Every square and ship is a node of its own, laid out in a grid.
+		 */
+		Nodes,
+		/**
+		 * The squares and ships are drawn onto one canvas that scrolls and zooms to follow the cursors, and only the
+		 * squares in view that change are drawn again (see {@link BoardCanvas}). Scales to boards of any size, since
+		 * neither the scene nor the number of square objects grows with the board.
+		 */
+		Canvas
+	}
+	
+	/**
+	 * The renderer that boards use unless they're given another.
+	 */
+	public static final Renderer DEFAULT_RENDERER = Renderer.Canvas;
+	
 	/**
 	 * The Game object to which this board belongs.
 	 */
 	private Game game;
+	
+	// What the playing board is shown with: a grid of the squares and ships themselves, or a canvas that draws them.
+	private final Renderer renderer;
 	private GridPane playingBoard;
+	private BoardCanvas canvas;
+	
+	// Every animation on the board, and the canvas's drawing, run from one pulse.
+	private final Animations animations = new Animations(this);
 	
 	/**
-	 * The number of ships that each player has to deal with.
+	 * The board state that this board displays.
 	 */
-	public static final int NUMBER_OF_SHIPS_PER_PLAYER = 10, NUM_ROWS = 10, NUM_COLUMNS = 20;
+	private final BoardState boardState;
 	
-	private final Square[][] squares = new Square[NUM_COLUMNS][NUM_ROWS];
 	/**
-	 * List of all the ships on the board, whether or not they're alive.
+	 * The size of this board, as given by the game's rules.
 	 */
-	private final Ship[] ships = new Ship[NUMBER_OF_SHIPS_PER_PLAYER * 2];
+	private final int numColumns, numRows;
 	
+	// Every square when they're nodes, indexed by x then y, or only the ones that have been asked for when they're drawn
+	// on a canvas, indexed by square index.
+	private final Square[][] squares;
+	private final SquareTable madeSquares = new SquareTable();
 	/**
-	 * The possible directions for things to move.
+	 * List of all the ships on the board, whether or not they're alive, indexed the same as the board state's ships.
 	 */
-	public static enum MoveDirection {
-		up, down, left, right
-	}
+	private final Ship[] ships;
 	
 	/**
 	 * The label for the current turn
@@ -63,12 +93,27 @@ public class Board extends BorderPane {
 	private static final double PADDING = 15;
 	
 	/**
-	 * Instantiates a new board for the given game
+	 * Instantiates a new board for the given game, drawn with the default renderer.
 	 * @param game The game for this board.
 	 */
 	public Board(Game game) {
+		this(game, DEFAULT_RENDERER);
+	}
+	
+	/**
+	 * Instantiates a new board for the given game
+	 * @param game The game for this board.
+	 * @param renderer How to draw the playing board.
+	 */
+	public Board(Game game, Renderer renderer) {
 		// Set the game object
 		this.game = game;
+		this.renderer = renderer;
+		boardState = game.getEngine().getBoard();
+		numColumns = boardState.getNumColumns();
+		numRows = boardState.getNumRows();
+		squares = renderer.equals(Renderer.Nodes) ? new Square[numColumns][numRows] : null;
+		ships = new Ship[boardState.getShips().length];
 		
 		setPadding(new Insets(PADDING, PADDING, PADDING, PADDING));
 		
@@ -85,16 +130,18 @@ public class Board extends BorderPane {
 		header.setSpacing(50);
 		setTop(header);
 		
-		// Set up a gridpane for the squares
-		playingBoard = new GridPane();
-		playingBoard.setHgap(0);
-		playingBoard.setVgap(0);
-		playingBoard.setPadding(new Insets(0, 0, 0, 0));
-		setCenter(new Pane(playingBoard));
+		// Set up a gridpane for the squares, unless they're being drawn on a canvas.
+		if (renderer.equals(Renderer.Nodes)) {
+			playingBoard = new GridPane();
+			playingBoard.setHgap(0);
+			playingBoard.setVgap(0);
+			playingBoard.setPadding(new Insets(0, 0, 0, 0));
+			setCenter(new Pane(playingBoard));
+		}
 		
-		// Let's get the squares objects rolling. Populate the squares array.
-		for (int y = 0; y < NUM_ROWS; y++) {
-			for (int x = 0; x < NUM_COLUMNS; x++) {
+		// Let's get the squares objects rolling. Populate the squares array. A canvas makes them as they're needed instead.
+		for (int y = 0; squares != null && y < numRows; y++) {
+			for (int x = 0; x < numColumns; x++) {
 				// Make a new square object for this position.
 				Square square = new Square(x, y, this);
 				// Add the square to the row
@@ -104,18 +151,27 @@ public class Board extends BorderPane {
 			}
 		}
 		
-		// Now generate ships for each player
-		for (int playerNum = 0; playerNum < 2; playerNum++) {
-			Player player = game.getPlayers()[playerNum];		
+		// Now make a ship object for each of the ships on the board.
+		for (ShipState shipState : boardState.getShips()) {
+			Player player = game.getPlayer(shipState.player);
+			Ship ship = new Ship(player, shipState);
+			ships[shipState.index] = ship;
 			
-			for (int i = 0; i < NUMBER_OF_SHIPS_PER_PLAYER; i++) {
-				// Make new ship object, giving it the player, the direction and the damage.
-				Ship ship = new Ship(player, (i % 2 == 0) ? Ship.DirectionOfMovement.Diagonal : Ship.DirectionOfMovement.Horizontal);
-				ships[playerNum * NUMBER_OF_SHIPS_PER_PLAYER + i] = ship;
-				
-				// Add the ship to the player's collection
-				player.addShip(ship);
+			// Add the ship to the player's collection
+			player.addShip(ship);
+		}
+		
+		// The canvas watches the ships, so it has to wait until they've all been made.
+		if (renderer.equals(Renderer.Canvas)) {
+			canvas = new BoardCanvas(this);
+			// Any squares asked for while the ships were being made have to be watched too.
+			for (int slot = 0; slot < madeSquares.getCapacity(); slot++) {
+				if (madeSquares.getAt(slot) != null) canvas.watchSquare(madeSquares.getAt(slot));
 			}
+			HBox view = new HBox(canvas);
+			view.setSpacing(10);
+			if (canvas.getMinimap() != null) view.getChildren().add(canvas.getMinimap());
+			setCenter(view);
 		}
 		
 		// Also add a battle zone at the bottom
@@ -139,14 +195,77 @@ public class Board extends BorderPane {
 		Square squareAtPosition = null;
 		
 		// Make sure the coordinates exist
-		if (isValidPosition(x, y)) {
+		if (isValidPosition(x, y) && squares != null) {
 			squareAtPosition = squares[x][y];
 		}
+		// If the squares are drawn on a canvas, make the square if it hasn't been made yet.
+		else if (isValidPosition(x, y)) {
+			squareAtPosition = getSquareIfMade(x, y);
+			if (squareAtPosition == null) {
+				squareAtPosition = new Square(x, y, this);
+				madeSquares.put(boardState.getIndex(x, y), squareAtPosition);
+				if (canvas != null) canvas.watchSquare(squareAtPosition);
+			}
+		}
 		
 		// Return result
 		return squareAtPosition;
 	}
 	
+	/**
+	 * Gets the square at the given coordinates without making it if the board is drawn on a canvas and it hasn't been
+	 * made yet.
+	 * @param x The x coordinate, which must be on the board.
+	 * @param y The y coordinate, which must be on the board.
+	 * @return The square, or null if it hasn't been made.
+	 */
+	Square getSquareIfMade(int x, int y) {
+		return (squares != null) ? squares[x][y] : madeSquares.get(boardState.getIndex(x, y));
+	}
+	
+	/**
+	 * Throws away the squares that are out of view of the canvas and look just as they would if they were made again,
+	 * so that the number of squares kept doesn't grow with the size of the board. Squares asked for again later are
+	 * just made again.
+	 */
+	void releaseSquares() {
+		for (int slot = 0; slot < madeSquares.getCapacity(); slot++) {
+			// Taking a square out can move another one into its slot, so the slot is looked at again.
+			Square square = madeSquares.getAt(slot);
+			while (square != null && !canvas.isInView(square.xCoordinate, square.yCoordinate) && square.isShowingDefault()) {
+				madeSquares.removeAt(slot);
+				square = madeSquares.getAt(slot);
+			}
+		}
+	}
+	
+	/**
+	 * Shows that the end of game sweep has just coloured the square at the given coordinates. A canvas draws the sweep
+	 * from the board's animations, so the square is only drawn again, rather than being made to be coloured in.
+	 * @param x The x coordinate of the square.
+	 * @param y The y coordinate of the square.
+	 * @param colour The colour of the sweep.
+	 */
+	void squareSwept(int x, int y, Color colour) {
+		if (canvas != null) canvas.squareChanged(x, y);
+		else getSquare(x, y).setFill(colour);
+	}
+	
+	/**
+	 * Shows that the end of game sweep has started over, so that a canvas draws the squares that it had swept again.
+	 */
+	void sweepRestarted() {
+		if (canvas != null) canvas.repaint();
+	}
+	
+	/**
+	 * Gets how the playing board is drawn.
+	 * @return The renderer of this board.
+	 */
+	public Renderer getRenderer() {
+		return renderer;
+	}
+	
 	/**
 	 * Gets the game that this board belongs to
 	 * @return The game object for this board.
@@ -155,14 +274,46 @@ public class Board extends BorderPane {
 		return game;
 	}
 	
+	/**
+	 * Gets the board state that this board displays.
+	 * @return The state of this board.
+	 */
+	public BoardState getBoardState() {
+		return boardState;
+	}
+	
+	/**
+	 * Gets the animations of this board, which run every fade, sweep and countdown shown on it.
+	 * @return The animations.
+	 */
+	public Animations getAnimations() {
+		return animations;
+	}
+	
 	/**
 	 * Determines if the given position is a valid position on the board
 	 * @param x The x-coordinate
 	 * @param y The y-coordinate
 	 * @return True if it's a valid position, false otherwise.
 	 */
-	public static boolean isValidPosition(int x, int y) {
-		return (0 <= x && x <= NUM_COLUMNS - 1 && 0 <= y && y <= NUM_ROWS - 1);
+	public boolean isValidPosition(int x, int y) {
+		return boardState.isValidPosition(x, y);
+	}
+	
+	/**
+	 * Gets the number of columns on this board.
+	 * @return The width of the board in squares.
+	 */
+	public int getNumColumns() {
+		return numColumns;
+	}
+	
+	/**
+	 * Gets the number of rows on this board.
+	 * @return The height of the board in squares.
+	 */
+	public int getNumRows() {
+		return numRows;
 	}
 	
 	/**
@@ -173,6 +324,15 @@ public class Board extends BorderPane {
 		return ships;
 	}
 	
+	/**
+	 * Gets the ship object that displays the given ship state.
+	 * @param state The state of the ship.
+	 * @return The ship for that state, or null if the state is null.
+	 */
+	public Ship getShip(ShipState state) {
+		return (state != null) ? ships[state.index] : null;
+	}
+	
 	/**
 	 * Determines the distance between the two coordinates in squares, using the distance formula
 	 * @param x1 The first x-coordinate
@@ -182,7 +342,7 @@ public class Board extends BorderPane {
 	 * @return The distance between the two points in squares.
 	 */
 	public static int getDistanceBetween(int x1, int y1, int x2, int y2) {
-		return (int) Math.round(Math.sqrt(Math.pow(x2-x1, 2) + Math.pow(y2-y1, 2)));
+		return BoardState.getDistanceBetween(x1, y1, x2, y2);
 	}
 	
 	/**
@@ -202,39 +362,37 @@ public class Board extends BorderPane {
 	}
 	
 	/**
-	 * Adds a ship to the board.
+	 * Adds a ship to the board at the position in its state.
 	 * @param ship The ship to add to the board.
 	 */
 	public void addShip(Ship ship) {
+		if (canvas != null) {
+			canvas.showShip(ship);
+			return;
+		}
+		
 		Square squareToAddTo = ship.getSquare();
 		// Now actually add the ship to the GUI
 		playingBoard.add(ship, squareToAddTo.xCoordinate, squareToAddTo.yCoordinate);
-		// Tell the square that a ship has been added on its position
-		squareToAddTo.addShip(ship);
 	}
 	
 	/**
-	 * Removes the given ship from the board. Can only be called during the ship placement stage.
+	 * Removes the given ship from the board display.
 	 * @param ship The ship to remove from the board.
 	 */
 	public void removeShip(Ship ship) {
-		// Make sure the square property of the ship isn't null
-		if (ship.getSquare() != null && game.getState().equals(Game.GameState.ShipPlacement)) {
-			Square square = ship.getSquare();
-			// Remove the ship from the gridpane.
-			playingBoard.getChildren().remove(ship);
-			// Tell the square that that ship was removed.
-			square.removeShip(ship);
-		}		
+		// Remove the ship from the gridpane, or stop drawing it.
+		if (canvas != null) canvas.hideShip(ship);
+		else playingBoard.getChildren().remove(ship);
 	}
 	
 	/**
 	 * Moves the given ship from its old position to its new position.
 	 * @param ship The ship to move
-	 * @param oldPosition The old position that the ship was at.
 	 */
 	public void moveShip(Ship ship) {
-		playingBoard.getChildren().remove(ship);
+		// The canvas takes the ship off of its old square by itself.
+		if (canvas == null) playingBoard.getChildren().remove(ship);
 		addShip(ship);
 	}
 	
@@ -247,7 +405,7 @@ public class Board extends BorderPane {
 		VBox sideBar = new VBox(player.getSidebarItems());
 		
 		// Now just figure out where to put the text and put it there.
-		if (player.getStartPosition().equals(Player.StartSide.BottomRight)) {
+		if (player.getStartPosition().equals(PlayerState.StartSide.BottomRight)) {
 			sideBar.setAlignment(Pos.CENTER_RIGHT);
 			setRight(sideBar);
 		}
@@ -263,39 +421,9 @@ public class Board extends BorderPane {
 	 */
 	public void endGameAnimation(Color newColour) {		
 		// Stop getting user input
-		InputHandler.stopMonitoring();
-		// Make an animation timer to carry out this animation.
-		AnimationTimer winnerAnimation = new AnimationTimer() {
-			// X and y coordinates for the square.
-			int x = -1, y = 0;
-			long lastRunTime = 0;
-			
-			int addition = 1;
-		    @Override
-		    public void handle(long now) {
-		    	// Only run every once in a while.
-		    	if (now - lastRunTime >= 50000000) {
-		    		lastRunTime = now;
-			        x += addition;
-			        
-			        // If the x coordinate becomes out of range, switch the direction that we're going.
-			        if (!(0 <= x && x < NUM_COLUMNS)) {
-			        	addition *= -1;
-			        	x += addition;
-			        	y++;
-			        }
-			        
-			        // If we've gone past the number of rows, end the animation.
-			        if (!(0 <= y && y < NUM_ROWS)) {
-			        	stop();
-			        }
-			        else {
-			        	getSquare(x, y).setFill(newColour);
-			        }
-		    	}
-		    }
-		};
-		winnerAnimation.start();
+		game.getInput().stopMonitoring();
+		// Sweep the colour across the board, one square at a time.
+		animations.sweep(newColour);
 	}
 }
 
@@ -0,0 +1,384 @@
+package game.board;
+
+import java.util.Arrays;
+
+import game.engine.ShipState;
+import game.player.Player;
+import game.ships.Ship;
+import javafx.beans.InvalidationListener;
+import javafx.beans.Observable;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * Draws the playing board, squares and ships, onto a single canvas instead of putting a node in the scene for each of
+ * them (see {@link Board.Renderer#Canvas}). The canvas is a window onto the board no bigger than {@link #VIEW_COLUMNS}
+ * by {@link #VIEW_ROWS} squares at full size, which scrolls and zooms out to keep the players' cursors in view, and
+ * only the squares inside it are ever drawn, so a huge board takes no longer to draw than a small one. Boards too big
+ * to see all at once get a {@link Minimap} as well.
+ * <p>
+ * Squares only get a {@link Square} object when something asks the board for one, and the board throws away the ones
+ * out of view that look just as they would without one (see {@link Board#getSquare(int, int)}); every other square is
+ * drawn from the state of the board, and the sweep at the end of the game from the board's animations. The square
+ * objects and ships keep on being what the rest of the game changes, with their fills, strokes, visibility and so on,
+ * but they're never added to the scene; this canvas watches them instead, and when one of them changes, its square is
+ * marked as needing to be drawn again. Once a pulse, only the squares that have been marked are drawn, so nothing is
+ * laid out and a move or a fading square costs the same however big the board is.
+ */
+class BoardCanvas extends Canvas {
+	/**
+	 * The distance from the corner of one square to the corner of the next at full size, the same as a square with its
+	 * border takes up in a grid.
+	 */
+	static final double PITCH = Square.SIZE + Square.DEFAULT_THICKNESS;
+
+	/**
+	 * The most squares across and down that the canvas shows at full size.
+	 */
+	static final int VIEW_COLUMNS = 20, VIEW_ROWS = 10;
+
+	// How far the view can zoom out, from full size down, to fit both cursors in.
+	private static final double[] ZOOM_LEVELS = { 1, 0.75, 0.5, 0.375, 0.25 };
+
+	// How many squares are kept between a cursor and the edge of the view when there's room.
+	private static final int MARGIN = 2;
+
+	private final Board board;
+	private final Ship[] ships;
+	private final int numColumns, numRows;
+
+	// The size of the view at full size, in squares.
+	private final int viewColumns, viewRows;
+
+	// What the view is showing: how far it's zoomed out, the first column and row in it, and how many of each it shows.
+	private double zoom;
+	private int firstColumn, firstRow, visibleColumns, visibleRows;
+
+	// The index of the square that each ship is drawn on, indexed by the ship's index, or -1 if it isn't on the board.
+	private final int[] shipSquares;
+
+	// Where each player's cursor was last drawn, indexed by player index, and the index of the one that moved last.
+	private final int[] cursorXs, cursorYs;
+	private int lastMover;
+
+	// Which squares of the view need to be drawn again, indexed by their position in the view, and a list of them so
+	// that they don't all have to be looked through every pulse. Sized for the view zoomed all of the way out, so
+	// nothing here grows with the board. Everything is drawn again when the view moves.
+	private final boolean[] dirty;
+	private final int[] dirtySquares;
+	private final int dirtyColumns;
+	private int numDirty;
+	private boolean allDirty;
+
+	// A small picture of the whole board, or null if the view already shows all of it.
+	private final Minimap minimap;
+
+	/**
+	 * Draws the squares that have changed, once a pulse after the board's animations have moved on, while the canvas is
+	 * showing.
+	 */
+	private final Runnable painter = new Runnable() {
+		@Override
+		public void run() {
+			updateView();
+			paintDirtySquares();
+			if (minimap != null) minimap.paint();
+		}
+	};
+
+	/**
+	 * Makes a canvas for the given board, and starts watching its ships.
+	 * @param board The board to draw.
+	 */
+	BoardCanvas(Board board) {
+		this.board = board;
+		ships = board.getShips();
+		numColumns = board.getNumColumns();
+		numRows = board.getNumRows();
+		viewColumns = Math.min(numColumns, VIEW_COLUMNS);
+		viewRows = Math.min(numRows, VIEW_ROWS);
+		setWidth(viewColumns * PITCH);
+		setHeight(viewRows * PITCH);
+
+		shipSquares = new int[ships.length];
+		Arrays.fill(shipSquares, -1);
+		Player[] players = board.getGame().getPlayers();
+		cursorXs = new int[players.length];
+		cursorYs = new int[players.length];
+		for (Player player : players) {
+			cursorXs[player.getPlayerState().index] = player.x;
+			cursorYs[player.getPlayerState().index] = player.y;
+		}
+
+		double smallestZoom = ZOOM_LEVELS[ZOOM_LEVELS.length - 1];
+		dirtyColumns = (int)Math.ceil(viewColumns / smallestZoom) + 1;
+		dirty = new boolean[dirtyColumns * ((int)Math.ceil(viewRows / smallestZoom) + 1)];
+		dirtySquares = new int[dirty.length];
+
+		minimap = (numColumns > viewColumns || numRows > viewRows) ? new Minimap(board, ships) : null;
+
+		// Redraw a ship's square whenever anything that it's drawn with changes.
+		for (final Ship ship : ships) {
+			InvalidationListener listener = new InvalidationListener() {
+				@Override
+				public void invalidated(Observable observable) {
+					int square = shipSquares[ship.getShipState().index];
+					if (square >= 0) squareChanged(square % numColumns, square / numColumns);
+				}
+			};
+			ship.visibleProperty().addListener(listener);
+			ship.opacityProperty().addListener(listener);
+			ship.fillProperty().addListener(listener);
+			ship.rotateProperty().addListener(listener);
+		}
+
+		// Only draw while the board is on screen, so that an old game's board doesn't keep drawing once it's gone.
+		sceneProperty().addListener(new ChangeListener<Scene>() {
+			@Override
+			public void changed(ObservableValue<? extends Scene> observable, Scene oldScene, Scene newScene) {
+				board.getAnimations().setPainter((newScene != null) ? painter : null);
+			}
+		});
+
+		setZoom(1);
+		allDirty = true;
+	}
+
+	/**
+	 * Gets the small picture of the whole board that goes with this canvas.
+	 * @return The minimap, or null if the canvas shows the whole board at once.
+	 */
+	Minimap getMinimap() {
+		return minimap;
+	}
+
+	/**
+	 * Starts watching a square that's just been given a square object, so that it's drawn again whenever it changes.
+	 * @param square The square.
+	 */
+	void watchSquare(final Square square) {
+		InvalidationListener listener = new InvalidationListener() {
+			@Override
+			public void invalidated(Observable observable) {
+				squareChanged(square.xCoordinate, square.yCoordinate);
+			}
+		};
+		square.fillProperty().addListener(listener);
+		square.strokeProperty().addListener(listener);
+		square.strokeWidthProperty().addListener(listener);
+	}
+
+	/**
+	 * Determines if the square at the given coordinates is in view.
+	 * @param x The x coordinate.
+	 * @param y The y coordinate.
+	 * @return True if it's drawn on the canvas, false otherwise.
+	 */
+	boolean isInView(int x, int y) {
+		return firstColumn <= x && x < firstColumn + visibleColumns && firstRow <= y && y < firstRow + visibleRows;
+	}
+
+	/**
+	 * Puts the given ship on the square that it's on now, taking it off of the one it was drawn on before if any.
+	 * @param ship The ship, which must have been placed.
+	 */
+	void showShip(Ship ship) {
+		hideShip(ship);
+		ShipState state = ship.getShipState();
+		shipSquares[state.index] = state.getY() * numColumns + state.getX();
+		squareChanged(state.getX(), state.getY());
+	}
+
+	/**
+	 * Takes the given ship off of the board.
+	 * @param ship The ship.
+	 */
+	void hideShip(Ship ship) {
+		int index = ship.getShipState().index, square = shipSquares[index];
+		shipSquares[index] = -1;
+		if (square >= 0) squareChanged(square % numColumns, square / numColumns);
+	}
+
+	/**
+	 * Called when anything drawn on the square at the given coordinates changes, so that it's drawn again.
+	 * @param x The x coordinate.
+	 * @param y The y coordinate.
+	 */
+	void squareChanged(int x, int y) {
+		if (minimap != null) minimap.squareChanged(x, y);
+		if (allDirty || !isInView(x, y)) return;
+
+		int square = (y - firstRow) * dirtyColumns + (x - firstColumn);
+		if (dirty[square]) return;
+		dirty[square] = true;
+		dirtySquares[numDirty++] = square;
+	}
+
+	/**
+	 * Marks every square in view, and the whole minimap, as needing to be drawn again.
+	 */
+	void repaint() {
+		repaintAll();
+		if (minimap != null) minimap.repaint();
+	}
+
+	/**
+	 * Moves the cursors to where the players are now, then scrolls and zooms the view so that they can be seen:
+	 * both of them if they fit when zoomed all of the way out, otherwise the one that moved last.
+	 */
+	private void updateView() {
+		Player[] players = board.getGame().getPlayers();
+		boolean cursorsMoved = false;
+		for (Player player : players) {
+			int index = player.getPlayerState().index;
+			if (cursorXs[index] == player.x && cursorYs[index] == player.y) continue;
+
+			// The cursor is part of the fill of the squares it's on, so both of them have to be drawn again.
+			squareChanged(cursorXs[index], cursorYs[index]);
+			cursorXs[index] = player.x;
+			cursorYs[index] = player.y;
+			squareChanged(player.x, player.y);
+			lastMover = index;
+			cursorsMoved = true;
+		}
+		if (!cursorsMoved && !allDirty) return;
+
+		// Zoom in as far as possible while keeping every cursor, and a margin around them, in view.
+		int left = Integer.MAX_VALUE, right = Integer.MIN_VALUE, top = Integer.MAX_VALUE, bottom = Integer.MIN_VALUE;
+		for (int i = 0; i < players.length; i++) {
+			left = Math.min(left, cursorXs[i]);
+			right = Math.max(right, cursorXs[i]);
+			top = Math.min(top, cursorYs[i]);
+			bottom = Math.max(bottom, cursorYs[i]);
+		}
+		int neededColumns = Math.min(numColumns, right - left + 1 + 2 * MARGIN), neededRows = Math.min(numRows, bottom - top + 1 + 2 * MARGIN);
+		double newZoom = ZOOM_LEVELS[ZOOM_LEVELS.length - 1];
+		boolean fits = false;
+		for (double level : ZOOM_LEVELS) {
+			if (getVisibleCount(viewColumns, level) >= neededColumns && getVisibleCount(viewRows, level) >= neededRows) {
+				newZoom = level;
+				fits = true;
+				break;
+			}
+		}
+		// If they don't fit, just follow the player that moved last.
+		if (!fits) left = right = cursorXs[lastMover];
+		if (!fits) top = bottom = cursorYs[lastMover];
+
+		int oldColumn = firstColumn, oldRow = firstRow;
+		double oldZoom = zoom;
+		setZoom(newZoom);
+		// Scroll as little as possible to get the cursors inside of the margin.
+		firstColumn = scrollTo(firstColumn, visibleColumns, numColumns, left, right);
+		firstRow = scrollTo(firstRow, visibleRows, numRows, top, bottom);
+
+		if (allDirty || firstColumn != oldColumn || firstRow != oldRow || zoom != oldZoom) {
+			repaintAll();
+			board.releaseSquares();
+			if (minimap != null) minimap.setView(firstColumn, firstRow, visibleColumns, visibleRows);
+		}
+		if (minimap != null) minimap.setCursors(cursorXs, cursorYs);
+	}
+
+	/**
+	 * Gets the number of squares that fit across a side of the view at the given zoom.
+	 */
+	private static int getVisibleCount(int fullSizeCount, double zoom) {
+		return (int)Math.floor(fullSizeCount / zoom + 1e-9);
+	}
+
+	/**
+	 * Zooms the view to the given level, showing as many squares as fit on the board.
+	 */
+	private void setZoom(double zoom) {
+		this.zoom = zoom;
+		visibleColumns = Math.min(numColumns, getVisibleCount(viewColumns, zoom));
+		visibleRows = Math.min(numRows, getVisibleCount(viewRows, zoom));
+	}
+
+	/**
+	 * Works out the first square of one side of the view after scrolling as little as possible to get from the given
+	 * first square to having everything from low to high inside of the margin, staying on the board.
+	 */
+	private static int scrollTo(int first, int visible, int total, int low, int high) {
+		int margin = Math.min(MARGIN, Math.max(0, (visible - (high - low + 1)) / 2));
+		if (high + margin >= first + visible) first = high + margin - visible + 1;
+		if (low - margin < first) first = low - margin;
+		return Math.max(0, Math.min(first, total - visible));
+	}
+
+	/**
+	 * Marks everything in view as needing to be drawn again.
+	 */
+	private void repaintAll() {
+		for (int i = 0; i < numDirty; i++) {
+			dirty[dirtySquares[i]] = false;
+		}
+		numDirty = 0;
+		allDirty = true;
+	}
+
+	/**
+	 * Draws every square that's been marked since the last pulse, then forgets them.
+	 */
+	private void paintDirtySquares() {
+		GraphicsContext graphics = getGraphicsContext2D();
+		if (allDirty) {
+			graphics.clearRect(0, 0, getWidth(), getHeight());
+			for (int y = firstRow; y < firstRow + visibleRows; y++) {
+				for (int x = firstColumn; x < firstColumn + visibleColumns; x++) {
+					paintSquare(graphics, x, y);
+				}
+			}
+			allDirty = false;
+			return;
+		}
+
+		for (int i = 0; i < numDirty; i++) {
+			int square = dirtySquares[i];
+			dirty[square] = false;
+			paintSquare(graphics, firstColumn + square % dirtyColumns, firstRow + square / dirtyColumns);
+		}
+		numDirty = 0;
+	}
+
+	/**
+	 * Draws a square and the ship on it, in the same way as the nodes would be drawn.
+	 */
+	private void paintSquare(GraphicsContext graphics, int x, int y) {
+		double pitch = PITCH * zoom;
+		double left = (x - firstColumn) * pitch, top = (y - firstRow) * pitch;
+		graphics.clearRect(left, top, pitch, pitch);
+
+		// Squares that don't have an object of their own look just as their object would when it's first made, and the
+		// sweep at the end of the game colours over both.
+		Square square = board.getSquareIfMade(x, y);
+		Color swept = board.getAnimations().getSweepFill(x, y);
+		if (swept != null) graphics.setFill(swept);
+		else graphics.setFill((square != null) ? square.getFill() : Square.getCurrentFill(board, x, y));
+		graphics.setStroke((square != null) ? square.getStroke() : Square.DEFAULT_STROKE);
+		graphics.setLineWidth(((square != null) ? square.getStrokeWidth() : Square.DEFAULT_THICKNESS) * zoom);
+
+		// The border is centred on the edge of the square, as with the rectangle's default stroke.
+		double inset = Square.DEFAULT_THICKNESS * zoom / 2, size = Square.SIZE * zoom;
+		graphics.fillRect(left + inset, top + inset, size, size);
+		graphics.strokeRect(left + inset, top + inset, size, size);
+
+		ShipState state = board.getBoardState().getShip(x, y);
+		Ship ship = board.getShip(state);
+		if (ship == null || shipSquares[state.index] != y * numColumns + x || !ship.isVisible()) return;
+
+		graphics.save();
+		graphics.setGlobalAlpha(ship.getOpacity());
+		graphics.translate(left + pitch / 2, top + pitch / 2);
+		graphics.scale(zoom, zoom);
+		graphics.rotate(ship.getRotate());
+		graphics.setFill(ship.getFill());
+		graphics.fillOval(-ship.getRadiusX(), -ship.getRadiusY(), ship.getRadiusX() * 2, ship.getRadiusY() * 2);
+		graphics.restore();
+	}
+}
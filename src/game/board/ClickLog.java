@@ -0,0 +1,163 @@
+package game.board;
+
+/**
+ * A record of every click made during a battle and exactly when it was made, kept so that battles can be
+ * checked for fairness afterwards (who started clicking first, how fast each player clicked, whether one
+ * player's clicks were being handled later than the other's, ...).
+ * <p>
+ * Clicks go into a ring buffer that's allocated up front, so recording one is just a couple of array writes.
+ * If there are more clicks than the buffer holds, the oldest ones are forgotten, but the click counts are
+ * always exact.
+ */
+public class ClickLog {
+	/**
+	 * The side of the battle that a click was made by.
+	 */
+	public static final int DEFENDER = 0, CONTESTER = 1;
+
+	/**
+	 * The number of clicks that a log holds by default, well over what two people can manage in a battle.
+	 */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	// The time of each click, in nanoseconds, and the side that made it. Used as a ring, mask is capacity - 1.
+	private final long[] times;
+	private final byte[] sides;
+	private final int mask;
+
+	// The total number of clicks ever recorded, which is also where the next click goes in the ring.
+	private int recorded;
+
+	// The number of clicks by each side.
+	private final int[] counts = new int[2];
+
+	// When clicking started and ended, in nanoseconds.
+	private long startTime, endTime;
+	private boolean ended;
+
+	/**
+	 * Makes a new log that holds the default number of clicks.
+	 */
+	public ClickLog() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Makes a new log.
+	 * @param capacity The most clicks to remember, rounded up to a power of two.
+	 */
+	public ClickLog(int capacity) {
+		int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+		times = new long[size];
+		sides = new byte[size];
+		mask = size - 1;
+	}
+
+	/**
+	 * Records that clicking has started.
+	 * @param time When it started, in nanoseconds as given by {@link System#nanoTime()}.
+	 */
+	public void start(long time) {
+		startTime = time;
+	}
+
+	/**
+	 * Records that clicking has ended.
+	 * @param time When it ended, in nanoseconds as given by {@link System#nanoTime()}.
+	 */
+	public void end(long time) {
+		endTime = time;
+		ended = true;
+	}
+
+	/**
+	 * Records a click, unless it was made after clicking ended.
+	 * @param side The side that clicked, {@link #DEFENDER} or {@link #CONTESTER}.
+	 * @param time When they clicked, in nanoseconds as given by {@link System#nanoTime()}.
+	 */
+	public void record(int side, long time) {
+		if (ended && time >= endTime) return;
+
+		int slot = recorded++ & mask;
+		times[slot] = time;
+		sides[slot] = (byte) side;
+		counts[side]++;
+	}
+
+	/**
+	 * Gets the number of clicks that the given side made.
+	 * @param side The side, {@link #DEFENDER} or {@link #CONTESTER}.
+	 * @return The number of clicks.
+	 */
+	public int getCount(int side) {
+		return counts[side];
+	}
+
+	/**
+	 * Gets the number of clicks that are still remembered, which may be fewer than were recorded.
+	 * @return The number of clicks that can be looked at.
+	 */
+	public int size() {
+		return Math.min(recorded, times.length);
+	}
+
+	/**
+	 * Gets when one of the remembered clicks happened.
+	 * @param i The click, from 0 for the oldest remembered click up to {@link #size()}.
+	 * @return When the click happened, in nanoseconds after clicking started.
+	 */
+	public long getTime(int i) {
+		return times[slot(i)] - startTime;
+	}
+
+	/**
+	 * Gets which side made one of the remembered clicks.
+	 * @param i The click, from 0 for the oldest remembered click up to {@link #size()}.
+	 * @return {@link #DEFENDER} or {@link #CONTESTER}.
+	 */
+	public int getSide(int i) {
+		return sides[slot(i)];
+	}
+
+	/**
+	 * Gets how long clicking went on for.
+	 * @return The length of the battle in nanoseconds, or 0 if it hasn't ended.
+	 */
+	public long getDuration() {
+		return ended ? endTime - startTime : 0;
+	}
+
+	/**
+	 * Gets how long the given side took to make their first remembered click.
+	 * @param side The side, {@link #DEFENDER} or {@link #CONTESTER}.
+	 * @return The time in nanoseconds after clicking started, or -1 if they have no remembered clicks.
+	 */
+	public long getFirstClickTime(int side) {
+		for (int i = 0; i < size(); i++) {
+			if (getSide(i) == side) return getTime(i);
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets the average time between the remembered clicks of the given side.
+	 * @param side The side, {@link #DEFENDER} or {@link #CONTESTER}.
+	 * @return The mean interval in nanoseconds, or -1 if they have fewer than two remembered clicks.
+	 */
+	public long getMeanInterval(int side) {
+		long first = -1, last = -1;
+		int count = 0;
+		for (int i = 0; i < size(); i++) {
+			if (getSide(i) != side) continue;
+			if (first < 0) first = getTime(i);
+			last = getTime(i);
+			count++;
+		}
+		return (count >= 2) ? (last - first) / (count - 1) : -1;
+	}
+
+	// Gets the position in the ring of the i-th oldest remembered click.
+	private int slot(int i) {
+		return (recorded - size() + i) & mask;
+	}
+}
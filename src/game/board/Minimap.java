@@ -0,0 +1,188 @@
+package game.board;
+
+import game.engine.BoardState;
+import game.engine.ShipState;
+import game.player.Player;
+import game.ships.Ship;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+
+/**
+ * A small picture of the whole board, for boards too big to see all at once, showing where the ships and wrecks are,
+ * which part of the board is in view and where the players' cursors are. Each pixel block stands for a block of
+ * squares, coloured by the most important thing in it: a ship that can be seen, then the sweep at the end of the game,
+ * then a wreck. Like the board's canvas, only the blocks that have changed are drawn again, and the view and cursors
+ * are drawn on a canvas of their own on top so that moving them never means drawing the blocks again.
+ */
+class Minimap extends StackPane {
+	/**
+	 * The most pixels across and down that the minimap takes up.
+	 */
+	static final double MAX_WIDTH = 160, MAX_HEIGHT = 80;
+
+	private final Board board;
+	private final BoardState boardState;
+	private final Ship[] ships;
+	private final int numColumns, numRows;
+
+	// How many squares across and down each block stands for, how many blocks there are and how big each one is drawn.
+	private final int blockSize, numBlockColumns, numBlockRows;
+	private final double blockPixels;
+
+	// The blocks, then the view and cursors over them.
+	private final Canvas blocks, overlay;
+
+	// Which blocks need to be drawn again, indexed by block index, and a list of them.
+	private final boolean[] dirty;
+	private final int[] dirtyBlocks;
+	private int numDirty;
+
+	// What the board's canvas is showing, and whether it or the cursors have moved since the overlay was drawn.
+	private int firstColumn, firstRow, visibleColumns, visibleRows;
+	private int[] cursorXs = new int[0], cursorYs = new int[0];
+	private boolean overlayDirty;
+
+	/**
+	 * Makes a minimap of the given board, with every block needing to be drawn.
+	 * @param board The board to show.
+	 * @param ships The ships on the board, indexed by their index.
+	 */
+	Minimap(Board board, Ship[] ships) {
+		this.board = board;
+		boardState = board.getBoardState();
+		this.ships = ships;
+		numColumns = board.getNumColumns();
+		numRows = board.getNumRows();
+
+		// Use blocks just big enough that the whole board fits, and draw them as big as will still fit.
+		blockSize = Math.max(1, (int)Math.ceil(Math.max(numColumns / MAX_WIDTH, numRows / MAX_HEIGHT)));
+		numBlockColumns = (numColumns + blockSize - 1) / blockSize;
+		numBlockRows = (numRows + blockSize - 1) / blockSize;
+		blockPixels = Math.max(1, Math.floor(Math.min(MAX_WIDTH / numBlockColumns, MAX_HEIGHT / numBlockRows)));
+
+		blocks = new Canvas(numBlockColumns * blockPixels, numBlockRows * blockPixels);
+		overlay = new Canvas(blocks.getWidth(), blocks.getHeight());
+		getChildren().addAll(blocks, overlay);
+		setMaxSize(blocks.getWidth(), blocks.getHeight());
+
+		dirty = new boolean[numBlockColumns * numBlockRows];
+		dirtyBlocks = new int[dirty.length];
+		repaint();
+	}
+
+	/**
+	 * Marks every block as needing to be drawn again.
+	 */
+	void repaint() {
+		for (int block = 0; block < dirty.length; block++) {
+			if (dirty[block]) continue;
+			dirty[block] = true;
+			dirtyBlocks[numDirty++] = block;
+		}
+	}
+
+	/**
+	 * Called when anything on the square at the given coordinates changes, so that its block is drawn again.
+	 * @param x The x coordinate of the square.
+	 * @param y The y coordinate of the square.
+	 */
+	void squareChanged(int x, int y) {
+		int block = (y / blockSize) * numBlockColumns + x / blockSize;
+		if (dirty[block]) return;
+		dirty[block] = true;
+		dirtyBlocks[numDirty++] = block;
+	}
+
+	/**
+	 * Sets which part of the board is in view.
+	 * @param firstColumn The first column in view.
+	 * @param firstRow The first row in view.
+	 * @param visibleColumns The number of columns in view.
+	 * @param visibleRows The number of rows in view.
+	 */
+	void setView(int firstColumn, int firstRow, int visibleColumns, int visibleRows) {
+		this.firstColumn = firstColumn;
+		this.firstRow = firstRow;
+		this.visibleColumns = visibleColumns;
+		this.visibleRows = visibleRows;
+		overlayDirty = true;
+	}
+
+	/**
+	 * Sets where the players' cursors are.
+	 * @param xs The x coordinate of each player's cursor, indexed by player index. Kept, not copied.
+	 * @param ys The y coordinate of each player's cursor, indexed by player index. Kept, not copied.
+	 */
+	void setCursors(int[] xs, int[] ys) {
+		cursorXs = xs;
+		cursorYs = ys;
+		overlayDirty = true;
+	}
+
+	/**
+	 * Draws the blocks that have changed, and the view and cursors if they've moved.
+	 */
+	void paint() {
+		GraphicsContext graphics = blocks.getGraphicsContext2D();
+		for (int i = 0; i < numDirty; i++) {
+			int block = dirtyBlocks[i];
+			dirty[block] = false;
+			int blockX = block % numBlockColumns, blockY = block / numBlockColumns;
+			graphics.setFill(getBlockColour(blockX, blockY));
+			graphics.fillRect(blockX * blockPixels, blockY * blockPixels, blockPixels, blockPixels);
+		}
+		numDirty = 0;
+
+		if (overlayDirty) paintOverlay();
+	}
+
+	/**
+	 * Works out what colour a block is: that of a ship in it that can be seen, that of the sweep if it's got to the
+	 * block, red if there's a wreck in it, or the colour of an empty square.
+	 */
+	private Color getBlockColour(int blockX, int blockY) {
+		Animations animations = board.getAnimations();
+		Color colour = Square.DEFAULT_FILL;
+		boolean swept = false;
+		for (int y = blockY * blockSize; y < Math.min(numRows, (blockY + 1) * blockSize); y++) {
+			for (int x = blockX * blockSize; x < Math.min(numColumns, (blockX + 1) * blockSize); x++) {
+				ShipState state = boardState.getShip(x, y);
+				if (state != null) {
+					Ship ship = ships[state.index];
+					if (ship.isVisible() && ship.getOpacity() > 0 && ship.getFill() instanceof Color) return (Color)ship.getFill();
+				}
+				if (swept) continue;
+				Color sweepFill = animations.getSweepFill(x, y);
+				if (sweepFill != null) {
+					colour = sweepFill;
+					swept = true;
+				}
+				else if (state == null && !boardState.isUsable(x, y)) colour = Square.HIT_FILL;
+			}
+		}
+		return colour;
+	}
+
+	/**
+	 * Draws the outline of the view and a dot for each cursor.
+	 */
+	private void paintOverlay() {
+		overlayDirty = false;
+		GraphicsContext graphics = overlay.getGraphicsContext2D();
+		graphics.clearRect(0, 0, overlay.getWidth(), overlay.getHeight());
+
+		double scale = blockPixels / blockSize;
+		graphics.setStroke(Color.BLACK);
+		graphics.setLineWidth(1);
+		graphics.strokeRect(firstColumn * scale + 0.5, firstRow * scale + 0.5, Math.max(1, visibleColumns * scale - 1), Math.max(1, visibleRows * scale - 1));
+
+		Player[] players = board.getGame().getPlayers();
+		double dot = Math.max(3, scale);
+		for (int i = 0; i < cursorXs.length && i < players.length; i++) {
+			graphics.setFill(players[i].getSelectionColour());
+			graphics.fillRect((cursorXs[i] + 0.5) * scale - dot / 2, (cursorYs[i] + 0.5) * scale - dot / 2, dot, dot);
+		}
+	}
+}
@@ -2,12 +2,8 @@ package game.board;
 
 import game.player.Player;
 import game.ships.Ship;
-import javafx.animation.FillTransition;
-import javafx.event.ActionEvent;
-import javafx.event.EventHandler;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
-import javafx.util.Duration;
 
 /**
  * The square class, representing a square on the board.
@@ -19,8 +15,6 @@ public class Square extends Rectangle {
 	// The x and y coordinate of this square.
 	public final int xCoordinate, yCoordinate;
 	
-	// The ship currently on this square
-	private Ship currentShip;
 	// The board that this square belongs to.
 	private Board board;
 	
@@ -29,28 +23,9 @@ public class Square extends Rectangle {
 	static final double DEFAULT_THICKNESS = 1.0, SELECTED_THICKNESS = 2.0;
 	
 	/**
-	 * The size of each player's territory, used both to restrict where player's may place their ships at the
-	 * start of the game and to determine if the other player's ship is in the enemy's territory 
-	 * at the end of the game.
+	 * The width and height of a square, not counting its border.
 	 */
-	public static final int TERRITORY_SIZE = 2;
-	
-	/**
-	 * Determines whether the given point is within the territory of the provided side.
-	 * @param territorySide The side to look at.
-	 * @param x The x-value for object.
-	 * @param y The y-value for the object.
-	 * @return True if the object is within the specified territory, false otherwise.
-	 */
-	public static final boolean isWithinTerritory(Player.StartSide territorySide, int x, int y) {
-		int territoryX = territorySide.equals(Player.StartSide.BottomRight) ? Board.NUM_COLUMNS - 1 : 0;
-		return  Board.getDistanceBetween(x, y, territoryX, y) < TERRITORY_SIZE;
-	}
-	
-	/**
-	 * Whether or not this square is currently selected by a player
-	 */
-	private boolean isSelected;
+	static final double SIZE = 30;
 	
 	/**
 	 * Instantiates a square and makes a square on the UI.
@@ -59,7 +34,7 @@ public class Square extends Rectangle {
 	 */
 	public Square(int x, int y, Board board) {
 		// Actually make a rectangle now.
-		super(30, 30);
+		super(SIZE, SIZE);
 		
 		// Set up the board object
 		this.board = board;
@@ -77,7 +52,7 @@ public class Square extends Rectangle {
 	 * @return The ship on this square
 	 */
 	public Ship getShipOnSquare() {
-		return currentShip;
+		return board.getShip(board.getBoardState().getShip(xCoordinate, yCoordinate));
 	}
 	
 	/**
@@ -87,30 +62,14 @@ public class Square extends Rectangle {
 	 * player has a ship on this square.
 	 */
 	public boolean hasEnemyOrNothing(Player player) {
-		return currentShip == null || !currentShip.player.equals(player);
-	}
-	
-	/**
-	 * Shoots the ship at this position if there is one and then applies damage to it if it's hit
-	 * @param shooter The player shooting at this square
-	 */
-	public void shoot(Player shooter) {
-		if (currentShip != null) {
-			// Don't allow the player to shoot their own ship
-			if (!currentShip.player.equals(shooter) && isUsable()) {
-				currentShip.hit(shooter.getDamage());
-				hit();
-			}
-		}
-		// Otherwise, call the miss function.
-		else miss();
+		return board.getBoardState().hasEnemyOrNothing(player.getPlayerState(), xCoordinate, yCoordinate);
 	}
 	
 	/**
 	 * Carries out the proper actions to signify to the player that they hit this square
 	 * but there were no ships on it.
 	 */
-	private void miss() {
+	public void miss() {
 		// Set the fill to yellow to indicate the miss.
 		fadeFrom(MISS_FILL, getCurrentFill());
 	}
@@ -118,7 +77,7 @@ public class Square extends Rectangle {
 	/**
 	 * Sets up the fill for hitting the other ship.
 	 */
-	private void hit() {
+	public void hit() {
 		// Fade from red to the regular colour.
 		fadeFrom(HIT_FILL, getCurrentFill());
 	}
@@ -129,60 +88,15 @@ public class Square extends Rectangle {
 	 * @param to the colour to fade to.
 	 */
 	private void fadeFrom(Color from, Color to) {
-		setFill(from);
-		FillTransition fillTransition = new FillTransition(Duration.millis(1000), this, from, to);
-		fillTransition.setAutoReverse(true);
-		fillTransition.play();
-		
-		// Set an on finished event handler because we need to make sure that the fill is the right colour.
-		fillTransition.setOnFinished(new EventHandler<ActionEvent>() {
-			@Override
-			public void handle(ActionEvent event) {
-				refreshFill();				
-			}
-		});
-	}
-	
-	// Set to true to indicate that there's currently a battle over this square.
-	private boolean isBattle = false;
-	/**
-	 * Attempts to add the ship to this position, adding it if possible, or
-	 * entering battle mode if this square is being contested.
-	 * @param ship
-	 * @return
-	 */
-	public boolean addShip(Ship ship) {
-		boolean shipAdded = false;
-		
-		// Only add the ship to this location if it's possible to do so.
-		if (isUsable() && currentShip == null) {
-			currentShip = ship;
-			
-			shipAdded = true;
-		}
-		/* If there's an enemy ship on this position already, this square is being contested
-		 * so we need to enter battle mode
-		 */
-		else if (!currentShip.player.equals(ship.player) && !isBattle) {
-			new Battle(currentShip, ship);
-		}
-		
-		return shipAdded;
+		// The board's animations set the fill back to the right colour once the fade is done.
+		board.getAnimations().fade(this, from, to);
 	}
 	
 	/**
-	 * Removes the given ship object from this square if it is in fact the one on this square
-	 * @param ship The ship to be removed from this square.
+	 * Called when the ship on this square is destroyed, so that the wreck is shown.
 	 */
-	public void removeShip(Ship ship) {
-		if (ship.equals(currentShip)) currentShip = null;
-	}
-	
-	public void shipDestroyed(Ship ship) {
-		// Only do stuff if the ship that was destroyed is the one that's on this square and if there wasn't just a battle.
-		if (ship.equals(currentShip) && !isBattle) {
-			refreshFill();
-		}
+	public void shipDestroyed() {
+		refreshFill();
 	}
 	
 	/**
@@ -190,24 +104,33 @@ public class Square extends Rectangle {
 	 * this square it's not usable.
 	 */
 	public boolean isUsable() {
-		return currentShip == null || !currentShip.isDestroyed();
+		return board.getBoardState().isUsable(xCoordinate, yCoordinate);
 	}
 	
 	/**
 	 * Determines if there are players selecting this square, and returns the fill colour of the player if so.
 	 */
 	public Color getPlayerSelection() {
+		return getPlayerSelection(board, xCoordinate, yCoordinate);
+	}
+	
+	/**
+	 * Determines if there are players selecting the square at the given coordinates, whether or not it has a square
+	 * object of its own, and returns the fill colour of the player if so.
+	 * @param board The board that the square is on.
+	 * @param x The x coordinate of the square.
+	 * @param y The y coordinate of the square.
+	 * @return The selection colour, or null if nobody is selecting the square.
+	 */
+	static Color getPlayerSelection(Board board, int x, int y) {
 		Color fill = null;
-		// Set selection variable to false
-		isSelected = false;
 		
 		// The number of players on this square
 		int numberOfPlayers = 0;
 		// Iterate through all the players in the game
 		for (Player player : board.getGame().getPlayers()) {
-			if (player.x == xCoordinate && player.y == yCoordinate) {
+			if (player.x == x && player.y == y) {
 				fill = player.getSelectionColour();
-				isSelected = true;
 				numberOfPlayers++;
 			}
 		}
@@ -215,9 +138,6 @@ public class Square extends Rectangle {
 		// If there's more than one player on the grid, set to brown selection.
 		if (numberOfPlayers > 1) fill = Color.BROWN;
 		
-		// If the selection variable is still false, reset fill to default
-		if (!isSelected) fill = null;
-		
 		// Return results.
 		return fill;
 	}
@@ -259,7 +179,7 @@ public class Square extends Rectangle {
 	 * @return True if it can move, false otherwise.
 	 */
 	public boolean canMoveToSquare(Ship ship) {
-		return currentShip == null || !currentShip.player.equals(ship.player) && isUsable();
+		return board.getBoardState().canMoveToSquare(ship.getShipState(), xCoordinate, yCoordinate);
 	}
 	
 	/**
@@ -274,11 +194,32 @@ public class Square extends Rectangle {
 	 * @return The appropriate fill colour for this square currently.
 	 */
 	private Color getCurrentFill() {
+		return getCurrentFill(board, xCoordinate, yCoordinate);
+	}
+	
+	/**
+	 * Determines what the appropriate fill colour for the square at the given coordinates should be, whether or not it
+	 * has a square object of its own.
+	 * @param board The board that the square is on.
+	 * @param x The x coordinate of the square.
+	 * @param y The y coordinate of the square.
+	 * @return The appropriate fill colour for the square currently.
+	 */
+	static Color getCurrentFill(Board board, int x, int y) {
 		// Attempt to set the fill to the player colour.
-		Color fill = getPlayerSelection();
-		if (fill == null && isUsable()) fill = DEFAULT_FILL;
+		Color fill = getPlayerSelection(board, x, y);
+		if (fill == null && board.getBoardState().isUsable(x, y)) fill = DEFAULT_FILL;
 		// Otherwise, red colour
 		else if (fill == null) fill = Color.RED;
 		return fill;
 	}
+	
+	/**
+	 * Determines if this square looks just as it would if it didn't have a square object of its own, with nothing
+	 * fading, highlighted or coloured in on it, so that it can be thrown away and made again when it's needed.
+	 * @return True if the square looks the same as its default, false otherwise.
+	 */
+	boolean isShowingDefault() {
+		return getFill().equals(getCurrentFill()) && getStroke().equals(DEFAULT_STROKE) && getStrokeWidth() == DEFAULT_THICKNESS;
+	}
 }
@@ -0,0 +1,117 @@
+package game.board;
+
+/**
+ * The squares that have been made for a board drawn on a canvas, looked up by square index. Only a few of a board's
+ * squares are made at once, so they're kept in an open addressing table keyed by plain ints, without boxing an
+ * index or making an entry for every square that's put in.
+ * <p>
+ * The squares can be gone through slot by slot (see {@link #getCapacity()} and {@link #getAt(int)}) and removed as
+ * they're gone through. Removing a square can move one from a later slot into its slot, so a slot that's just had its
+ * square removed has to be looked at again.
+ */
+final class SquareTable {
+	// Start with enough room for the squares in view of a canvas of the usual size.
+	private static final int INITIAL_CAPACITY = 1024;
+
+	// The index of the square in each slot, and the square, or null if the slot's empty.
+	private int[] keys = new int[INITIAL_CAPACITY];
+	private Square[] squares = new Square[INITIAL_CAPACITY];
+	private int size;
+
+	/**
+	 * Gets the square with the given index.
+	 * @param index The index of the square.
+	 * @return The square, or null if it isn't in the table.
+	 */
+	Square get(int index) {
+		int mask = squares.length - 1;
+		for (int slot = getSlot(index, mask); squares[slot] != null; slot = (slot + 1) & mask) {
+			if (keys[slot] == index) return squares[slot];
+		}
+		return null;
+	}
+
+	/**
+	 * Puts the given square in the table, replacing the square that had the same index if there was one.
+	 * @param index The index of the square.
+	 * @param square The square.
+	 */
+	void put(int index, Square square) {
+		// Keep the table at most half full so that runs of full slots stay short.
+		if ((size + 1) * 2 > squares.length) grow();
+
+		int mask = squares.length - 1;
+		int slot = getSlot(index, mask);
+		while (squares[slot] != null) {
+			if (keys[slot] == index) {
+				squares[slot] = square;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+		keys[slot] = index;
+		squares[slot] = square;
+		size++;
+	}
+
+	/**
+	 * Gets the number of slots, for going through the squares.
+	 * @return The number of slots.
+	 */
+	int getCapacity() {
+		return squares.length;
+	}
+
+	/**
+	 * Gets the square in the given slot.
+	 * @param slot The slot, from 0 up to the capacity.
+	 * @return The square, or null if the slot's empty.
+	 */
+	Square getAt(int slot) {
+		return squares[slot];
+	}
+
+	/**
+	 * Takes the square in the given slot out of the table. The squares after it in its run are moved back to fill
+	 * the gap, so the slot may hold a different square afterwards.
+	 * @param slot The slot, which mustn't be empty.
+	 */
+	void removeAt(int slot) {
+		int mask = squares.length - 1;
+		int hole = slot;
+		for (int next = (hole + 1) & mask; squares[next] != null; next = (next + 1) & mask) {
+			// A square can fill the hole only if its own slot doesn't come between the hole and where it is now.
+			int home = getSlot(keys[next], mask);
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				keys[hole] = keys[next];
+				squares[hole] = squares[next];
+				hole = next;
+			}
+		}
+		squares[hole] = null;
+		size--;
+	}
+
+	/**
+	 * Doubles the number of slots, putting every square back in.
+	 */
+	private void grow() {
+		int[] oldKeys = keys;
+		Square[] oldSquares = squares;
+		keys = new int[oldKeys.length * 2];
+		squares = new Square[oldSquares.length * 2];
+		size = 0;
+		for (int slot = 0; slot < oldSquares.length; slot++) {
+			if (oldSquares[slot] != null) put(oldKeys[slot], oldSquares[slot]);
+		}
+	}
+
+	/**
+	 * Gets the slot that the given index hashes to. Squares are asked for in runs of neighbouring indices, so the
+	 * index is mixed up to spread them over the table.
+	 */
+	private static int getSlot(int index, int mask) {
+		int hash = index * 0x9e3779b9;
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+}
@@ -0,0 +1,311 @@
+package game.engine;
+
+import java.util.Random;
+
+/**
+ * What one player can work out about where the enemy's hidden ships are, kept up to date as the game goes on by
+ * listening to it (see {@link GameEngine#addListener(GameListener)}). Only things that the player would see on
+ * screen are used: their own hits and misses, wrecks, ships revealed in contests, the squares their own ships move
+ * onto, and how many moves the enemy makes, but never which ship made them or where it went.
+ * <p>
+ * The belief is kept as the expected number of hidden enemy ships on each square, treating the ships as independent
+ * of one another. Enemy placements spread a ship evenly over their territory. A miss, a wreck or one of the player's
+ * own ships rules a square out, and a hit takes that ship out of the hidden ones until the enemy next moves; each of
+ * these takes constant time, since the weights are only scaled back up to the number of hidden ships when they're read.
+ * An enemy move spreads a share of every square's weight to the squares that a ship could move to from it, which is
+ * the only update that goes over the whole board. The ships' types can't be told apart, so each square spreads to the
+ * squares that horizontal and diagonal ships could reach in proportion to how many of each the enemy has left.
+ */
+public class BeliefState implements GameListener {
+	private final PlayerState observer, enemy;
+	private final BoardState board;
+
+	// The squares that a horizontal and a diagonal ship can move to from each square, from the board's geometry.
+	private final int[] horizontalMoves, diagonalMoves;
+	private final Geometry geometry;
+
+	// How much each square is believed to hold a hidden enemy ship, and the total of all of them. Scaled up to the
+	// number of hidden ships when read.
+	private final double[] weights, spread;
+	private double total;
+
+	// Which squares a hidden ship could be on, worked out once at the start of each spread.
+	private final boolean[] possible;
+
+	// The number of placed, living enemy ships whose square isn't known.
+	private int numHidden;
+
+	// The square of every enemy ship that the player knows the position of, indexed by ShipState.index, -1 if not known,
+	// and the same squares as a bitboard so that a square can be looked up without going through every ship.
+	private final int[] knownSquares;
+	private final long[] known;
+
+	/**
+	 * Starts keeping track of the enemy's ships for the given player. Should be made before any ships are placed,
+	 * and added to the player's game as a listener.
+	 * @param observer The player who's guessing where the enemy's ships are.
+	 */
+	public BeliefState(PlayerState observer) {
+		this.observer = observer;
+		this.enemy = observer.getOpponent();
+		this.board = observer.getGame().getBoard();
+
+		int numSquares = board.getNumSquares();
+		weights = new double[numSquares];
+		spread = new double[numSquares];
+		possible = new boolean[numSquares];
+		geometry = board.getGeometry();
+		horizontalMoves = geometry.getNeighbours(ShipState.DirectionOfMovement.Horizontal);
+		diagonalMoves = geometry.getNeighbours(ShipState.DirectionOfMovement.Diagonal);
+
+		knownSquares = new int[board.getShips().length];
+		for (int i = 0; i < knownSquares.length; i++) {
+			knownSquares[i] = -1;
+		}
+		known = Bitboard.create(numSquares);
+	}
+
+	/**
+	 * Gets the chance that the given square holds an enemy ship.
+	 * @param square The index of the square (see {@link BoardState#getIndex(int, int)}).
+	 * @return The probability, which is 1 for squares known to hold one.
+	 */
+	public double getProbability(int square) {
+		if (Bitboard.get(known, square)) return 1;
+		return (numHidden > 0 && total > 0) ? Math.min(1, weights[square] * numHidden / total) : 0;
+	}
+
+	/**
+	 * Gets the chance that the square at the given coordinates holds an enemy ship.
+	 * @param x The x coordinate of the square.
+	 * @param y The y coordinate of the square.
+	 * @return The probability, which is 1 for squares known to hold one.
+	 */
+	public double getProbability(int x, int y) {
+		return getProbability(board.getIndex(x, y));
+	}
+
+	/**
+	 * Writes the chance that each square holds an enemy ship into the given array, for drawing or searching with.
+	 * @param heatmap Where to put the probabilities, indexed by square index. Must have room for every square.
+	 */
+	public void getHeatmap(double[] heatmap) {
+		double scale = (numHidden > 0 && total > 0) ? numHidden / total : 0;
+		for (int square = 0; square < weights.length; square++) {
+			heatmap[square] = Math.min(1, weights[square] * scale);
+		}
+		for (int knownSquare : knownSquares) {
+			if (knownSquare >= 0) heatmap[knownSquare] = 1;
+		}
+	}
+
+	/**
+	 * Picks the square that the player should shoot at next: the one that's most likely to hold an enemy ship out of
+	 * those that they're allowed to shoot.
+	 * @param random Breaks ties between equally likely squares.
+	 * @return The index of the square, or -1 if there's nowhere to shoot.
+	 */
+	public int getBestTarget(Random random) {
+		int best = -1, ties = 0;
+		double bestProbability = -1;
+		for (int square = 0; square < weights.length; square++) {
+			int x = board.getXOfIndex(square), y = board.getYOfIndex(square);
+			if (!board.isUsable(x, y) || !board.hasEnemyOrNothing(observer, x, y)) continue;
+
+			double probability = getProbability(square);
+			if (probability > bestProbability) {
+				bestProbability = probability;
+				best = square;
+				ties = 1;
+			}
+			else if (probability == bestProbability && random.nextInt(++ties) == 0) best = square;
+		}
+		return best;
+	}
+
+	/**
+	 * Gets the number of enemy ships that the player doesn't know the position of.
+	 * @return The number of hidden ships.
+	 */
+	public int getNumHidden() {
+		return numHidden;
+	}
+
+	/**
+	 * Determines if the player knows where the given enemy ship is.
+	 * @param ship The ship.
+	 * @return The index of the square that it's known to be on, or -1 if it's hidden.
+	 */
+	public int getKnownSquare(ShipState ship) {
+		return knownSquares[ship.index];
+	}
+
+	@Override
+	public void shipPlaced(ShipState ship) {
+		int square = board.getIndex(ship.getX(), ship.getY());
+		if (ship.player != enemy) {
+			clear(square);
+			return;
+		}
+
+		// Nobody but the enemy knows where it went, so it could be anywhere in their territory that's still free.
+		int free = 0;
+		for (int i = 0; i < weights.length; i++) {
+			if (isPossible(i) && geometry.isWithinTerritory(enemy.getStartPosition(), i)) free++;
+		}
+		for (int i = 0; i < weights.length && free > 0; i++) {
+			if (isPossible(i) && geometry.isWithinTerritory(enemy.getStartPosition(), i)) weights[i] += 1.0 / free;
+		}
+		total += 1;
+		numHidden++;
+	}
+
+	@Override
+	public void shipRemoved(ShipState ship, int x, int y) {
+		if (ship.player != enemy || numHidden == 0) return;
+
+		// Take back one ship's worth evenly, since there's no telling which of them it was.
+		scale((numHidden - 1.0) / numHidden);
+		numHidden--;
+	}
+
+	@Override
+	public void shipMoved(ShipState ship, int oldX, int oldY) {
+		if (ship.player != enemy) {
+			// Whatever square our ship moves onto didn't have an enemy on it, or there would have been a contest.
+			clear(board.getIndex(ship.getX(), ship.getY()));
+			return;
+		}
+
+		// Any of the ships could have been the one that moved, including the ones we knew the position of.
+		for (int i = 0; i < knownSquares.length; i++) {
+			if (knownSquares[i] < 0) continue;
+			weights[knownSquares[i]] += 1;
+			total += 1;
+			numHidden++;
+			knownSquares[i] = -1;
+		}
+		Bitboard.clearAll(known);
+		diffuse();
+	}
+
+	@Override
+	public void shotFired(PlayerState shooter, int x, int y, ShipState hitShip) {
+		if (shooter != observer) return;
+
+		if (hitShip == null) clear(board.getIndex(x, y));
+		else reveal(hitShip, board.getIndex(x, y));
+	}
+
+	@Override
+	public void shipDestroyed(ShipState ship) {
+		int square = board.getIndex(ship.getX(), ship.getY());
+		if (ship.player == enemy) {
+			// A hidden ship that's destroyed is revealed first, then taken out of the known ones like any other.
+			if (knownSquares[ship.index] < 0) reveal(ship, square);
+			knownSquares[ship.index] = -1;
+			Bitboard.clear(known, square);
+		}
+		// Nothing can ever be on a wreck's square again.
+		clear(square);
+	}
+
+	@Override
+	public void contestStarted(ShipState defender, ShipState contester) {
+		// Both ships are shown while they battle.
+		ShipState enemyShip = (defender.player == enemy) ? defender : contester;
+		reveal(enemyShip, board.getIndex(enemyShip.getX(), enemyShip.getY()));
+	}
+
+	/**
+	 * Takes a ship out of the hidden ones, now that the player has seen where it is.
+	 */
+	private void reveal(ShipState ship, int square) {
+		if (knownSquares[ship.index] >= 0) return;
+
+		clear(square);
+		knownSquares[ship.index] = square;
+		Bitboard.set(known, square);
+		numHidden--;
+	}
+
+	/**
+	 * Rules out a square for every hidden ship.
+	 */
+	private void clear(int square) {
+		total -= weights[square];
+		weights[square] = 0;
+		// Don't let rounding leave the total a hair below zero.
+		if (total < 0) total = 0;
+	}
+
+	/**
+	 * Multiplies every weight by the same amount.
+	 */
+	private void scale(double factor) {
+		for (int i = 0; i < weights.length; i++) {
+			weights[i] *= factor;
+		}
+		total *= factor;
+	}
+
+	/**
+	 * Determines if a hidden enemy ship could be on the given square at all.
+	 */
+	private boolean isPossible(int square) {
+		int x = board.getXOfIndex(square), y = board.getYOfIndex(square);
+		ShipState ship = board.getShip(x, y);
+		return board.isUsable(x, y) && (ship == null || ship.player == enemy);
+	}
+
+	/**
+	 * Moves a share of the weight on each square to the squares that a ship on it could move to, for an enemy move
+	 * made by a ship that we don't know. One of the hidden ships moved, so each one had an even chance of being it.
+	 */
+	private void diffuse() {
+		if (numHidden == 0) return;
+
+		int horizontal = 0, diagonal = 0;
+		for (ShipState ship : enemy.getShips()) {
+			if (!ship.hasBeenPlaced() || ship.isDestroyed()) continue;
+			if (ship.getMoveDirection().equals(ShipState.DirectionOfMovement.Horizontal)) horizontal++;
+			else diagonal++;
+		}
+		double horizontalShare = (horizontal + diagonal > 0) ? (double) horizontal / (horizontal + diagonal) : 1;
+		double moved = 1.0 / numHidden;
+
+		for (int i = 0; i < weights.length; i++) {
+			spread[i] = weights[i] * (1 - moved);
+			possible[i] = isPossible(i);
+		}
+		for (int square = 0; square < weights.length; square++) {
+			double weight = weights[square] * moved;
+			if (weight == 0) continue;
+
+			// If no move is possible from here, the ship that moved can't have been on this square.
+			spreadFrom(square, horizontalMoves, weight * horizontalShare);
+			spreadFrom(square, diagonalMoves, weight * (1 - horizontalShare));
+		}
+
+		total = 0;
+		for (int i = 0; i < weights.length; i++) {
+			weights[i] = spread[i];
+			total += spread[i];
+		}
+	}
+
+	/**
+	 * Shares out the given weight evenly between the squares that a ship on the given square could move to.
+	 */
+	private void spreadFrom(int square, int[] moves, double weight) {
+		int start = square * BoardState.MOVE_DIRECTIONS.length, count = 0;
+		for (int i = start; i < start + BoardState.MOVE_DIRECTIONS.length; i++) {
+			if (moves[i] >= 0 && possible[moves[i]]) count++;
+		}
+		if (count == 0) return;
+
+		for (int i = start; i < start + BoardState.MOVE_DIRECTIONS.length; i++) {
+			if (moves[i] >= 0 && possible[moves[i]]) spread[moves[i]] += weight / count;
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package game.engine;
+
+/**
+ * Helpers for bitboards: sets of squares packed into arrays of longs, with one bit per square.
+ * Square (x, y) is bit y * columns + x, so moving one column right is a shift of one bit and moving one
+ * row down is a shift of a whole row's worth of bits. Board-wide questions then become a handful of
+ * shifts and masks over a few words rather than a walk over every square.
+ */
+public final class Bitboard {
+	private Bitboard() {}
+
+	/**
+	 * Makes a new, empty bitboard big enough for the given number of squares.
+	 * @param numSquares The number of squares on the board.
+	 * @return An empty bitboard.
+	 */
+	public static long[] create(int numSquares) {
+		return new long[(numSquares + 63) >>> 6];
+	}
+
+	/**
+	 * Adds the given square to the bitboard.
+	 * @param board The bitboard.
+	 * @param index The index of the square.
+	 */
+	public static void set(long[] board, int index) {
+		board[index >>> 6] |= 1L << index;
+	}
+
+	/**
+	 * Removes the given square from the bitboard.
+	 * @param board The bitboard.
+	 * @param index The index of the square.
+	 */
+	public static void clear(long[] board, int index) {
+		board[index >>> 6] &= ~(1L << index);
+	}
+
+	/**
+	 * Determines if the given square is in the bitboard.
+	 * @param board The bitboard.
+	 * @param index The index of the square.
+	 * @return True if the square is set, false otherwise.
+	 */
+	public static boolean get(long[] board, int index) {
+		return (board[index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * Determines if the bitboard has no squares in it.
+	 * @param board The bitboard.
+	 * @return True if no squares are set, false otherwise.
+	 */
+	public static boolean isEmpty(long[] board) {
+		for (long word : board) {
+			if (word != 0) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Counts the squares in the bitboard.
+	 * @param board The bitboard.
+	 * @return The number of squares that are set.
+	 */
+	public static int count(long[] board) {
+		int count = 0;
+		for (long word : board) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+	/**
+	 * Finds the first square in the bitboard at or after the given index, for iterating over the squares in it.
+	 * @param board The bitboard.
+	 * @param from The index to start looking from.
+	 * @return The index of the next set square, or -1 if there are none.
+	 */
+	public static int nextSetBit(long[] board, int from) {
+		int wordIndex = from >>> 6;
+		if (wordIndex >= board.length) return -1;
+
+		long word = board[wordIndex] & (-1L << from);
+		while (true) {
+			if (word != 0) return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+			if (++wordIndex == board.length) return -1;
+			word = board[wordIndex];
+		}
+	}
+
+	/**
+	 * Empties the bitboard.
+	 * @param board The bitboard.
+	 */
+	public static void clearAll(long[] board) {
+		for (int i = 0; i < board.length; i++) {
+			board[i] = 0;
+		}
+	}
+
+	/**
+	 * Copies one bitboard into another of the same size.
+	 * @param source The bitboard to copy from.
+	 * @param destination The bitboard to copy to.
+	 */
+	public static void copy(long[] source, long[] destination) {
+		System.arraycopy(source, 0, destination, 0, source.length);
+	}
+
+	/**
+	 * Determines if the two bitboards have any squares in common.
+	 * @param a The first bitboard.
+	 * @param b The second bitboard.
+	 * @return True if at least one square is in both, false otherwise.
+	 */
+	public static boolean intersects(long[] a, long[] b) {
+		for (int i = 0; i < a.length; i++) {
+			if ((a[i] & b[i]) != 0) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Shifts every square in the source bitboard by the given number of bits, putting the result in the destination.
+	 * Positive amounts move squares towards higher indices (right and down), negative amounts towards lower indices.
+	 * Bits shifted past either end are dropped. The source and destination may be the same array.
+	 * @param source The bitboard to shift.
+	 * @param amount The number of bits to shift by.
+	 * @param destination Where to put the shifted bitboard.
+	 */
+	public static void shift(long[] source, int amount, long[] destination) {
+		int length = source.length;
+		if (amount > 0) {
+			int wordShift = amount >>> 6, bitShift = amount & 63;
+			// Go from the top down so that we can shift in place.
+			for (int i = length - 1; i >= 0; i--) {
+				int from = i - wordShift;
+				long word = (from >= 0) ? source[from] << bitShift : 0;
+				if (bitShift != 0 && from > 0) word |= source[from - 1] >>> (64 - bitShift);
+				destination[i] = word;
+			}
+		}
+		else if (amount < 0) {
+			int wordShift = -amount >>> 6, bitShift = -amount & 63;
+			// Go from the bottom up so that we can shift in place.
+			for (int i = 0; i < length; i++) {
+				int from = i + wordShift;
+				long word = (from < length) ? source[from] >>> bitShift : 0;
+				if (bitShift != 0 && from < length - 1) word |= source[from + 1] << (64 - bitShift);
+				destination[i] = word;
+			}
+		}
+		else if (source != destination) {
+			copy(source, destination);
+		}
+	}
+}
@@ -0,0 +1,508 @@
+package game.engine;
+
+/**
+ * The board of a game as plain data: which ship is on which square, and the rules about where ships
+ * may go. Has no knowledge of how (or if) the board is displayed.
+ */
+public class BoardState {
+	/**
+	 * The possible directions for things to move.
+	 */
+	public static enum MoveDirection {
+		up, down, left, right
+	}
+
+	/**
+	 * The move directions and types of movement, kept here since every call to values() makes a new array.
+	 * Shared by everything, so they must never be changed.
+	 */
+	public static final MoveDirection[] MOVE_DIRECTIONS = MoveDirection.values();
+	public static final ShipState.DirectionOfMovement[] MOVEMENT_TYPES = ShipState.DirectionOfMovement.values();
+	public static final PlayerState.StartSide[] START_SIDES = PlayerState.StartSide.values();
+
+	/**
+	 * The game to which this board belongs.
+	 */
+	private final GameEngine game;
+
+	/**
+	 * The rules of the game, and the size of the board that they give.
+	 */
+	private final Rules rules;
+	private final int numColumns, numRows, numSquares;
+
+	/**
+	 * The lookup tables for the shape of the board, shared with every other game played by the same rules.
+	 */
+	private final Geometry geometry;
+
+	/**
+	 * What's on each square of the board: the index of the ship on it plus one (0 for none), and whether it's a wreck.
+	 * Only the chunks of the board that have had either of those are stored, so huge boards of empty sea cost next to
+	 * nothing, and this is all that's kept about the squares: where ships can go is worked out from it and the ships
+	 * themselves. The shots fired at each square are in the game's {@link ShotHistory}.
+	 */
+	private final ChunkedGrid squares;
+
+	// The parts of a square's value in the grid.
+	private static final int SHIP_MASK = (1 << 30) - 1, WRECK = 1 << 30;
+
+	/**
+	 * List of all the ships on the board, whether or not they're alive.
+	 */
+	private final ShipState[] ships;
+
+	/**
+	 * The hash of where every ship is and how much health it has, kept up to date as they change (see {@link Zobrist}).
+	 */
+	private long hash;
+
+	/**
+	 * How far every square is from each territory, made the first time it's asked for and kept up to date with the wrecks.
+	 */
+	private DistanceField distances;
+
+	/**
+	 * Instantiates a new board for the given game, generating the ships for each of the game's players.
+	 * @param game The game for this board.
+	 */
+	BoardState(GameEngine game) {
+		this.game = game;
+		rules = game.getRules();
+		numColumns = rules.getNumColumns();
+		numRows = rules.getNumRows();
+		numSquares = rules.getNumSquares();
+		geometry = rules.getGeometry();
+
+		squares = new ChunkedGrid(numColumns, numRows);
+		ships = new ShipState[rules.getShipsPerPlayer() * 2];
+
+		// Now generate ships for each player
+		int shipsPerPlayer = rules.getShipsPerPlayer();
+		for (int playerNum = 0; playerNum < 2; playerNum++) {
+			PlayerState player = game.getPlayers()[playerNum];
+
+			for (int i = 0; i < shipsPerPlayer; i++) {
+				int index = playerNum * shipsPerPlayer + i;
+				// Alternate between diagonal and horizontal ships.
+				ShipState ship = new ShipState(player, index, (i % 2 == 0) ? ShipState.DirectionOfMovement.Diagonal : ShipState.DirectionOfMovement.Horizontal);
+				ships[index] = ship;
+				hash ^= Zobrist.getShipHealthKey(index, ship.getHealth());
+
+				// Add the ship to the player's collection
+				player.addShip(ship);
+			}
+		}
+	}
+
+	/**
+	 * Gets the game that this board belongs to
+	 * @return The game object for this board.
+	 */
+	public GameEngine getGame() {
+		return game;
+	}
+
+	/**
+	 * Gets the rules that this board was made with.
+	 * @return The rules of the game.
+	 */
+	public Rules getRules() {
+		return rules;
+	}
+
+	/**
+	 * Gets the number of columns on this board.
+	 * @return The width of the board.
+	 */
+	public int getNumColumns() {
+		return numColumns;
+	}
+
+	/**
+	 * Gets the number of rows on this board.
+	 * @return The height of the board.
+	 */
+	public int getNumRows() {
+		return numRows;
+	}
+
+	/**
+	 * Gets the number of squares on this board, which is also the number of bits used in its bitboards.
+	 * @return The number of squares.
+	 */
+	public int getNumSquares() {
+		return numSquares;
+	}
+
+	/**
+	 * Gets the ship on the square at the given coordinates.
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return The ship on that square, or null if there's no ship there or the coordinates don't exist.
+	 */
+	public ShipState getShip(int x, int y) {
+		if (!isValidPosition(x, y)) return null;
+		int ship = squares.get(x, y) & SHIP_MASK;
+		return (ship != 0) ? ships[ship - 1] : null;
+	}
+
+	/**
+	 * Gets the number of squares that have anything on them: a ship or a wreck.
+	 * @return The number of occupied squares.
+	 */
+	public int getNumOccupiedSquares() {
+		return squares.getNumOccupied();
+	}
+
+	/**
+	 * Writes the index of every square that has a ship or a wreck on it into the buffer, without
+	 * looking at the parts of the board that have never had anything on them.
+	 * @param buffer Where to put the square indices, which must have room for {@link #getNumOccupiedSquares()}.
+	 * @return The number of squares written.
+	 */
+	public int getOccupiedSquares(int[] buffer) {
+		return squares.getOccupied(buffer);
+	}
+
+	/**
+	 * Gets all the ships on the board.
+	 * @return All the ships on this board, indexed by {@link ShipState#index}.
+	 */
+	public ShipState[] getShips() {
+		return ships;
+	}
+
+	/**
+	 * Determines if the given position is a valid position on the board
+	 * @param x The x-coordinate
+	 * @param y The y-coordinate
+	 * @return True if it's a valid position, false otherwise.
+	 */
+	public boolean isValidPosition(int x, int y) {
+		return (0 <= x && x <= numColumns - 1 && 0 <= y && y <= numRows - 1);
+	}
+
+	/**
+	 * Gets the index of the square at the given coordinates, for looking it up in bitboards.
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return The index of the square.
+	 */
+	public int getIndex(int x, int y) {
+		return y * numColumns + x;
+	}
+
+	/**
+	 * Gets the x coordinate of the square with the given index.
+	 * @param index The index of the square.
+	 * @return The x coordinate.
+	 */
+	public int getXOfIndex(int index) {
+		return geometry.getX(index);
+	}
+
+	/**
+	 * Gets the y coordinate of the square with the given index.
+	 * @param index The index of the square.
+	 * @return The y coordinate.
+	 */
+	public int getYOfIndex(int index) {
+		return geometry.getY(index);
+	}
+
+	/**
+	 * Gets the lookup tables for the shape of this board.
+	 * @return The board's geometry, shared by every game with the same rules.
+	 */
+	public Geometry getGeometry() {
+		return geometry;
+	}
+
+	/**
+	 * Gets how many moves ships need to get into each territory from every square of this board.
+	 * @return The board's distance fields.
+	 */
+	public DistanceField getDistanceField() {
+		if (distances == null) distances = new DistanceField(this);
+		return distances;
+	}
+
+	/**
+	 * Determines if there's a shipwreck on the square with the given index.
+	 * @param index The index of the square, which must be on the board.
+	 * @return True if the square has a wreck on it, false otherwise.
+	 */
+	public boolean isWreck(int index) {
+		return (squares.get(geometry.getX(index), geometry.getY(index)) & WRECK) != 0;
+	}
+
+	/**
+	 * Puts the squares with shipwrecks on them in the given bitboard, only looking in the parts of the board that have
+	 * ever had anything on them.
+	 * @param result The bitboard to fill, which is emptied first.
+	 */
+	public void getWrecks(long[] result) {
+		Bitboard.clearAll(result);
+		squares.getMatching(WRECK, result);
+	}
+
+	/**
+	 * Gets the squares in the territory of the given side. Must not be modified.
+	 * @param side The side whose territory to get.
+	 * @return A bitboard of the territory, shared by every game with the same rules.
+	 */
+	public long[] getTerritory(PlayerState.StartSide side) {
+		return geometry.getTerritory(side);
+	}
+
+	/**
+	 * Determines the distance between the two coordinates in squares, using the distance formula
+	 * @param x1 The first x-coordinate
+	 * @param y1 The first y-coordinate
+	 * @param x2 The second x-coordinate
+	 * @param y2 The second y-coordinate
+	 * @return The distance between the two points in squares.
+	 */
+	public static int getDistanceBetween(int x1, int y1, int x2, int y2) {
+		int xChange = x2 - x1, yChange = y2 - y1;
+		return (int) Math.round(Math.sqrt(xChange * xChange + yChange * yChange));
+	}
+
+	/**
+	 * Determines whether the given point is within the territory of the provided side.
+	 * @param territorySide The side to look at.
+	 * @param x The x-value for object.
+	 * @param y The y-value for the object.
+	 * @return True if the object is within the specified territory, false otherwise.
+	 */
+	public boolean isWithinTerritory(PlayerState.StartSide territorySide, int x, int y) {
+		return isValidPosition(x, y) && geometry.isWithinTerritory(territorySide, getIndex(x, y));
+	}
+
+	/**
+	 * Determines whether or not the square at the given coordinates is usable, as if there's a shipwreck on
+	 * the square it's not usable.
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return True if the square exists and has no wreck on it, false otherwise.
+	 */
+	public boolean isUsable(int x, int y) {
+		return isValidPosition(x, y) && (squares.get(x, y) & WRECK) == 0;
+	}
+
+	/**
+	 * Determines if the square at the given coordinates has an enemy ship or nothing on it.
+	 * @param player The player to whom to determine if there's an enemy.
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return True if there's an enemy or nothing on the square, false if the provided
+	 * player has a ship on this square.
+	 */
+	public boolean hasEnemyOrNothing(PlayerState player, int x, int y) {
+		ShipState ship = getShip(x, y);
+		return ship == null || ship.player != player;
+	}
+
+	/**
+	 * Determines if the given ship can move to the square at the given coordinates. The ship may move onto empty
+	 * squares or onto squares with a living enemy ship (which starts a contest), but never onto its own
+	 * player's ships or onto wrecks.
+	 * @param ship The ship that wishes to move to the square
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 * @return True if it can move, false otherwise.
+	 */
+	public boolean canMoveToSquare(ShipState ship, int x, int y) {
+		return isValidPosition(x, y) && canMoveToSquare(ship, getIndex(x, y));
+	}
+
+	/**
+	 * Determines if the given ship can move to the square with the given index, as with
+	 * {@link #canMoveToSquare(ShipState, int, int)}.
+	 * @param ship The ship that wishes to move to the square
+	 * @param index The index of the square, which must be on the board.
+	 * @return True if it can move, false otherwise.
+	 */
+	public boolean canMoveToSquare(ShipState ship, int index) {
+		int value = squares.get(geometry.getX(index), geometry.getY(index));
+		if ((value & WRECK) != 0) return false;
+		// Any ship still on a square without a wreck is alive.
+		int occupant = value & SHIP_MASK;
+		return occupant == 0 || ships[occupant - 1].player != ship.player;
+	}
+
+	/**
+	 * Determines how far a ship with the given type of movement goes across the board when moving in the given direction.
+	 * @param movement The type of movement of the ship moving.
+	 * @param direction The direction to move in.
+	 * @return The change in x coordinate, -1, 0 or 1.
+	 */
+	public static int getXChange(ShipState.DirectionOfMovement movement, MoveDirection direction) {
+		if (movement.equals(ShipState.DirectionOfMovement.Diagonal)) {
+			// Up and left are the top left and bottom left squares, down and right the bottom right and top right.
+			return (direction.equals(MoveDirection.up) || direction.equals(MoveDirection.left)) ? -1 : 1;
+		}
+		else if (direction.equals(MoveDirection.left)) return -1;
+		else if (direction.equals(MoveDirection.right)) return 1;
+		return 0;
+	}
+
+	/**
+	 * Determines how far a ship with the given type of movement goes down the board when moving in the given direction.
+	 * @param movement The type of movement of the ship moving.
+	 * @param direction The direction to move in.
+	 * @return The change in y coordinate, -1, 0 or 1.
+	 */
+	public static int getYChange(ShipState.DirectionOfMovement movement, MoveDirection direction) {
+		if (movement.equals(ShipState.DirectionOfMovement.Diagonal)) {
+			// Up and right are the top left and top right squares, down and left the bottom right and bottom left.
+			return (direction.equals(MoveDirection.up) || direction.equals(MoveDirection.right)) ? -1 : 1;
+		}
+		else if (direction.equals(MoveDirection.up)) return -1;
+		else if (direction.equals(MoveDirection.down)) return 1;
+		return 0;
+	}
+
+	/**
+	 * Gets the number of bits to shift a square's index by to move it in the given direction.
+	 * @param movement The type of movement of the ship moving.
+	 * @param direction The direction to move in.
+	 * @return The difference between the index of the destination square and the index of the starting square.
+	 */
+	public int getIndexOffset(ShipState.DirectionOfMovement movement, MoveDirection direction) {
+		return getYChange(movement, direction) * numColumns + getXChange(movement, direction);
+	}
+
+	/**
+	 * Determines if any of the given player's ships have somewhere they can legally move.
+	 * @param player The player to look at.
+	 * @return True if at least one of the player's ships can move, false otherwise.
+	 */
+	public boolean hasAnyMove(PlayerState player) {
+		for (ShipState ship : player.getShips()) {
+			if (!ship.hasBeenPlaced() || ship.isDestroyed()) continue;
+			for (MoveDirection direction : MOVE_DIRECTIONS) {
+				if (ship.canMoveInDirection(direction)) return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Puts the given ship on the square at the given coordinates, taking it off of its old square.
+	 * @param ship The ship to put down.
+	 * @param x The x coordinate
+	 * @param y The y coordinate
+	 */
+	void putShip(ShipState ship, int x, int y) {
+		boolean wasPlaced = ship.hasBeenPlaced();
+		if (wasPlaced) liftShip(ship, false);
+		squares.set(x, y, (squares.get(x, y) & ~SHIP_MASK) | (ship.index + 1));
+		ship.setPosition(x, y);
+
+		int index = getIndex(x, y);
+		hash ^= Zobrist.getShipSquareKey(ship.index, index);
+		if (ship.isDestroyed()) addWreck(index);
+		ship.player.shipPlaced(wasPlaced, isInEnemyTerritory(ship));
+	}
+
+	/**
+	 * Takes the given ship off of the board entirely.
+	 * @param ship The ship to remove.
+	 */
+	void removeShip(ShipState ship) {
+		if (ship.hasBeenPlaced()) {
+			liftShip(ship, true);
+			ship.setPosition(-1, -1);
+		}
+	}
+
+	/**
+	 * Takes the given ship off of its square, along with its wreck if it has one, and out of the player's counts.
+	 * @param ship The ship to lift, which must be on the board.
+	 * @param leavingBoard True if the ship is leaving the board entirely, false if it's about to be put somewhere else.
+	 */
+	private void liftShip(ShipState ship, boolean leavingBoard) {
+		ship.player.shipLifted(isInEnemyTerritory(ship), leavingBoard);
+		if (ship.isDestroyed()) removeWreck(getIndex(ship.getX(), ship.getY()));
+		hash ^= Zobrist.getShipSquareKey(ship.index, getIndex(ship.getX(), ship.getY()));
+		squares.set(ship.getX(), ship.getY(), squares.get(ship.getX(), ship.getY()) & ~SHIP_MASK);
+	}
+
+	/**
+	 * Determines if the given ship is alive and on a square in its enemy's territory.
+	 * @param ship The ship to look at.
+	 * @return True if the ship is alive and in enemy territory, false otherwise.
+	 */
+	boolean isInEnemyTerritory(ShipState ship) {
+		return ship.hasBeenPlaced() && !ship.isDestroyed()
+				&& geometry.isWithinTerritory(ship.player.getOpponentSide(), getIndex(ship.getX(), ship.getY()));
+	}
+
+	/**
+	 * Called when a ship's health changes, to keep the hash up to date.
+	 * @param ship The ship, which already has its new health.
+	 * @param oldHealth The health that it had before.
+	 */
+	void healthChanged(ShipState ship, int oldHealth) {
+		hash ^= Zobrist.getShipHealthKey(ship.index, oldHealth) ^ Zobrist.getShipHealthKey(ship.index, ship.getHealth());
+	}
+
+	/**
+	 * Gets the hash of where every ship is and how much health each has. Two boards with the ships in the same places
+	 * with the same health always have the same hash, however they got there.
+	 * @return The 64 bit hash of the board.
+	 */
+	public long getHash() {
+		return hash;
+	}
+
+	/**
+	 * Called when a ship is destroyed, turning its square into a wreck.
+	 * @param ship The ship that was destroyed.
+	 */
+	void shipDestroyed(ShipState ship) {
+		boolean wasInEnemyTerritory = false;
+		if (ship.hasBeenPlaced()) {
+			int index = getIndex(ship.getX(), ship.getY());
+			wasInEnemyTerritory = geometry.isWithinTerritory(ship.player.getOpponentSide(), index);
+			addWreck(index);
+		}
+		ship.player.shipDestroyed(wasInEnemyTerritory);
+	}
+
+	/**
+	 * Called when a destroyed ship is brought back to life, turning its wreck back into a ship.
+	 * @param ship The ship, which has already had its health put back.
+	 */
+	void shipRevived(ShipState ship) {
+		boolean inEnemyTerritory = false;
+		if (ship.hasBeenPlaced()) {
+			int index = getIndex(ship.getX(), ship.getY());
+			removeWreck(index);
+			inEnemyTerritory = isInEnemyTerritory(ship);
+		}
+		ship.player.shipRevived(inEnemyTerritory);
+	}
+
+	/**
+	 * Leaves a wreck on the given square, keeping the distances up to date.
+	 * @param index The index of the square.
+	 */
+	private void addWreck(int index) {
+		int x = geometry.getX(index), y = geometry.getY(index);
+		squares.set(x, y, squares.get(x, y) | WRECK);
+		if (distances != null) distances.wreckAdded(index);
+	}
+
+	/**
+	 * Clears the wreck off of the given square, keeping the distances up to date.
+	 * @param index The index of the square.
+	 */
+	private void removeWreck(int index) {
+		int x = geometry.getX(index), y = geometry.getY(index);
+		squares.set(x, y, squares.get(x, y) & ~WRECK);
+		if (distances != null) distances.wreckRemoved(index);
+	}
+}
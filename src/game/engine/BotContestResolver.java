@@ -0,0 +1,47 @@
+package game.engine;
+
+/**
+ * Settles contests instantly by asking each player's bot how many times it clicks, then settling by the usual
+ * rule (see {@link Contest#settle(int, int)}). Nothing is drawn at random, so the same bots in the same contest
+ * always give the same winner.
+ */
+public class BotContestResolver implements ContestResolver {
+	/**
+	 * Decides how hard a bot clicks in a contest.
+	 */
+	public static interface ClickPolicy {
+		/**
+		 * Decides how many times the given ship clicks in the given contest.
+		 * @param contest The contest being fought.
+		 * @param ship The ship that this bot is clicking for, either the defender or the contester.
+		 * @return The number of clicks.
+		 */
+		int getClicks(Contest contest, ShipState ship);
+	}
+
+	// The policy of each player, indexed by the player's index.
+	private final ClickPolicy[] policies;
+
+	/**
+	 * Makes a new resolver where every player uses the same policy.
+	 * @param policy The policy for every player.
+	 */
+	public BotContestResolver(ClickPolicy policy) {
+		this(new ClickPolicy[] { policy, policy });
+	}
+
+	/**
+	 * Makes a new resolver.
+	 * @param policies The policy for each player, in the same order as {@link GameEngine#getPlayers()}.
+	 */
+	public BotContestResolver(ClickPolicy... policies) {
+		this.policies = policies.clone();
+	}
+
+	@Override
+	public void resolve(Contest contest) {
+		int defenderClicks = policies[contest.defender.player.index].getClicks(contest, contest.defender);
+		int contesterClicks = policies[contest.contester.player.index].getClicks(contest, contest.contester);
+		contest.settle(defenderClicks, contesterClicks);
+	}
+}
@@ -0,0 +1,156 @@
+package game.engine;
+
+import java.util.Arrays;
+
+/**
+ * An int for each square of a board, stored in square chunks of {@link #CHUNK_SIZE} by {@link #CHUNK_SIZE} squares
+ * that are only made the first time something other than 0 is put in one of their squares. On a huge board where
+ * most of the squares never have anything on them, only the chunks around the ships, wrecks and shots take up any
+ * memory, while finding the value of a square is still just a couple of array loads. Chunks are kept once made, even
+ * if they empty out again, so that ships going back and forth between chunks never make anything.
+ * <p>
+ * Each chunk counts how many of its squares aren't 0, so going through every square that has something on it only
+ * looks inside of the chunks that do (see {@link #getOccupied(int[])}).
+ */
+public final class ChunkedGrid {
+	/**
+	 * The number of squares across and down each chunk, and its base 2 logarithm.
+	 */
+	public static final int CHUNK_BITS = 4, CHUNK_SIZE = 1 << CHUNK_BITS;
+
+	// The number of squares in a chunk, and the mask for a coordinate within one.
+	private static final int CHUNK_AREA = CHUNK_SIZE * CHUNK_SIZE, CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private final int numColumns, numChunkColumns;
+
+	// A chunk of nothing but 0s, shared by every chunk that hasn't been made yet so that reading a square never has to
+	// check whether its chunk exists. Never written to.
+	private static final int[] EMPTY_CHUNK = new int[CHUNK_AREA];
+
+	// The values of the squares of each chunk, indexed by chunk then by the square's row within the chunk times the
+	// chunk size plus its column within the chunk, or the empty chunk for chunks where every square is still 0.
+	private final int[][] chunks;
+
+	// How many squares of each chunk aren't 0, and how many aren't over the whole grid.
+	private final int[] counts;
+	private int numOccupied;
+
+	/**
+	 * Makes a grid of 0s for a board.
+	 * @param numColumns The number of columns on the board.
+	 * @param numRows The number of rows on the board.
+	 */
+	public ChunkedGrid(int numColumns, int numRows) {
+		this.numColumns = numColumns;
+		numChunkColumns = (numColumns + CHUNK_MASK) >>> CHUNK_BITS;
+		int numChunks = numChunkColumns * ((numRows + CHUNK_MASK) >>> CHUNK_BITS);
+		chunks = new int[numChunks][];
+		Arrays.fill(chunks, EMPTY_CHUNK);
+		counts = new int[numChunks];
+	}
+
+	/**
+	 * Gets the value of the square at the given coordinates.
+	 * @param x The x coordinate, which must be on the board.
+	 * @param y The y coordinate, which must be on the board.
+	 * @return The value, 0 if nothing has been put there.
+	 */
+	public int get(int x, int y) {
+		return chunks[getChunk(x, y)][getCell(x, y)];
+	}
+
+	/**
+	 * Sets the value of the square at the given coordinates, making its chunk if it has to.
+	 * @param x The x coordinate, which must be on the board.
+	 * @param y The y coordinate, which must be on the board.
+	 * @param value The new value.
+	 */
+	public void set(int x, int y, int value) {
+		int chunkIndex = getChunk(x, y);
+		int[] chunk = chunks[chunkIndex];
+		if (chunk == EMPTY_CHUNK) {
+			// Setting an untouched square to 0 changes nothing, so there's no need for a chunk.
+			if (value == 0) return;
+			chunk = chunks[chunkIndex] = new int[CHUNK_AREA];
+		}
+
+		int cell = getCell(x, y);
+		int change = ((value != 0) ? 1 : 0) - ((chunk[cell] != 0) ? 1 : 0);
+		counts[chunkIndex] += change;
+		numOccupied += change;
+		chunk[cell] = value;
+	}
+
+	/**
+	 * Gets the number of squares whose values aren't 0.
+	 * @return The number of occupied squares.
+	 */
+	public int getNumOccupied() {
+		return numOccupied;
+	}
+
+	/**
+	 * Writes the index of every square whose value isn't 0 into the buffer, chunk by chunk. Only chunks with
+	 * something in them are looked inside of.
+	 * @param buffer Where to put the square indices (see {@link BoardState#getIndex(int, int)}), which must have room
+	 * for {@link #getNumOccupied()} of them.
+	 * @return The number of squares written.
+	 */
+	public int getOccupied(int[] buffer) {
+		int count = 0;
+		for (int chunkIndex = 0; chunkIndex < chunks.length; chunkIndex++) {
+			if (counts[chunkIndex] == 0) continue;
+
+			int[] chunk = chunks[chunkIndex];
+			int left = (chunkIndex % numChunkColumns) << CHUNK_BITS, top = (chunkIndex / numChunkColumns) << CHUNK_BITS;
+			for (int cell = 0; cell < CHUNK_AREA; cell++) {
+				if (chunk[cell] != 0) buffer[count++] = (top + (cell >>> CHUNK_BITS)) * numColumns + left + (cell & CHUNK_MASK);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Adds every square whose value has any of the given bits set to a bitboard. Only chunks with something in them
+	 * are looked inside of.
+	 * @param bits The bits to look for.
+	 * @param result The bitboard to add the squares to (see {@link BoardState#getIndex(int, int)}).
+	 */
+	public void getMatching(int bits, long[] result) {
+		for (int chunkIndex = 0; chunkIndex < chunks.length; chunkIndex++) {
+			if (counts[chunkIndex] == 0) continue;
+
+			int[] chunk = chunks[chunkIndex];
+			int left = (chunkIndex % numChunkColumns) << CHUNK_BITS, top = (chunkIndex / numChunkColumns) << CHUNK_BITS;
+			for (int cell = 0; cell < CHUNK_AREA; cell++) {
+				if ((chunk[cell] & bits) != 0) Bitboard.set(result, (top + (cell >>> CHUNK_BITS)) * numColumns + left + (cell & CHUNK_MASK));
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of chunks that have been made, for seeing how much memory the grid takes up.
+	 * @return The number of chunks made.
+	 */
+	public int getNumChunksMade() {
+		int made = 0;
+		for (int[] chunk : chunks) {
+			if (chunk != EMPTY_CHUNK) made++;
+		}
+		return made;
+	}
+
+	/**
+	 * Gets the index of the chunk that the square at the given coordinates is in.
+	 */
+	private int getChunk(int x, int y) {
+		return (y >>> CHUNK_BITS) * numChunkColumns + (x >>> CHUNK_BITS);
+	}
+
+	/**
+	 * Gets the index of the square at the given coordinates within its chunk.
+	 */
+	private int getCell(int x, int y) {
+		return ((y & CHUNK_MASK) << CHUNK_BITS) | (x & CHUNK_MASK);
+	}
+}
@@ -0,0 +1,95 @@
+package game.engine;
+
+/**
+ * A contest over a square, started when a ship tries to move onto a square held by a living enemy ship. The game
+ * can't go on until the contest is settled by the game's {@link ContestResolver}, which may do so straight away or
+ * some time later (for example once the players have finished battling it out on screen).
+ */
+public class Contest {
+	/**
+	 * The ship that is on the square.
+	 */
+	public final ShipState defender;
+
+	/**
+	 * The ship that is trying to move onto the square.
+	 */
+	public final ShipState contester;
+
+	// The game that the contest is part of.
+	private final GameEngine game;
+
+	// The ship that won, once the contest is settled.
+	private ShipState winner;
+
+	/**
+	 * Starts a new contest over the defender's square.
+	 * @param game The game that the contest is part of.
+	 * @param defender The ship that is on the square.
+	 * @param contester The ship that is trying to move onto the square.
+	 */
+	Contest(GameEngine game, ShipState defender, ShipState contester) {
+		this.game = game;
+		this.defender = defender;
+		this.contester = contester;
+	}
+
+	/**
+	 * Settles the contest as a click race, the way that it's played on screen. The defender wins if they clicked
+	 * at least as many times as the contester; the slight bias towards the defender is intentional, since they
+	 * would technically be more prepared.
+	 * @param defenderClicks The number of times the defender clicked.
+	 * @param contesterClicks The number of times the contester clicked.
+	 */
+	public void settle(int defenderClicks, int contesterClicks) {
+		settle(getClickRaceWinner(defenderClicks, contesterClicks));
+	}
+
+	/**
+	 * Works out who would win this contest as a click race, without settling it.
+	 * @param defenderClicks The number of times the defender clicked.
+	 * @param contesterClicks The number of times the contester clicked.
+	 * @return The defender if they clicked at least as many times as the contester, the contester otherwise.
+	 * @see #settle(int, int)
+	 */
+	public ShipState getClickRaceWinner(int defenderClicks, int contesterClicks) {
+		return (defenderClicks >= contesterClicks) ? defender : contester;
+	}
+
+	/**
+	 * Settles the contest, destroying the ship that lost. Does nothing if the contest has already been settled.
+	 * @param winner The ship that won, either the defender or the contester.
+	 */
+	public void settle(ShipState winner) {
+		if (isSettled()) return;
+		if (winner != defender && winner != contester) throw new IllegalArgumentException("The winner must be one of the ships in the contest.");
+
+		this.winner = winner;
+		game.contestSettled(this);
+	}
+
+	/**
+	 * Determines if this contest has been settled yet.
+	 * @return True if there's a winner, false otherwise.
+	 */
+	public boolean isSettled() {
+		return winner != null;
+	}
+
+	/**
+	 * Gets the ship that won the contest.
+	 * @return The winning ship, or null if the contest hasn't been settled.
+	 */
+	public ShipState getWinner() {
+		return winner;
+	}
+
+	/**
+	 * Gets the ship that lost the contest.
+	 * @return The losing ship, or null if the contest hasn't been settled.
+	 */
+	public ShipState getLoser() {
+		if (winner == null) return null;
+		return (winner == defender) ? contester : defender;
+	}
+}
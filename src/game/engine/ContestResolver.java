@@ -0,0 +1,14 @@
+package game.engine;
+
+/**
+ * Decides who wins when two ships contest a square. Resolvers that don't need anyone to do anything, such as
+ * the ones used for simulation, settle the contest straight away; the game waits for the ones that do.
+ */
+public interface ContestResolver {
+	/**
+	 * Called when a contest starts. The contest must be settled, with {@link Contest#settle(ShipState)} or
+	 * {@link Contest#settle(int, int)}, either before this returns or some time afterwards.
+	 * @param contest The contest to settle.
+	 */
+	void resolve(Contest contest);
+}
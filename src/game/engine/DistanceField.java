@@ -0,0 +1,250 @@
+package game.engine;
+
+import java.util.Arrays;
+
+/**
+ * How many moves a ship needs to get from each square of the board into its enemy's territory, for each side and
+ * each type of movement, going around wrecks. Living ships aren't counted as being in the way, since they can move
+ * or be beaten in a contest, so these are the fewest moves it could possibly take.
+ * <p>
+ * Each field is worked out with a breadth first search out from the territory the first time it's needed, then
+ * kept up to date as wrecks come and go rather than being searched all over again. A new wreck can only make
+ * squares further away, so only the squares whose shortest way in went through it are searched again. A wreck that
+ * goes away (when an action is taken back, see {@link GameEngine#unmake()}) can only bring squares closer, so the
+ * new distances are just spread out from its square.
+ */
+public class DistanceField {
+	/**
+	 * The distance from a square that a ship can't get into enemy territory from at all.
+	 */
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	private static final ShipState.DirectionOfMovement[] MOVEMENTS = ShipState.DirectionOfMovement.values();
+	private static final PlayerState.StartSide[] SIDES = PlayerState.StartSide.values();
+
+	private final BoardState board;
+	private final Geometry geometry;
+
+	// The squares that a ship with each type of movement can move to from each square, from the board's geometry.
+	// Moves can always be made back the other way, so these are also the squares that can be moved from onto each square.
+	private final int[][] neighbours;
+
+	// The distances into each side's territory for each type of movement, indexed by side then movement, or null
+	// until they've been worked out.
+	private int[][][] distances;
+
+	// Where the searches keep their work: a queue of squares to spread from, where it starts, how many squares are in
+	// it and which squares they are, then the squares that lost their shortest way in to a new wreck.
+	private final int[] queue;
+	private int head, size;
+	private final boolean[] queued;
+	private final int[] lost;
+	private final boolean[] invalid;
+
+	/**
+	 * Makes the distance fields for the given board. Nothing is worked out until it's needed.
+	 * @param board The board to measure.
+	 */
+	DistanceField(BoardState board) {
+		this.board = board;
+		geometry = board.getGeometry();
+		int numSquares = board.getNumSquares();
+		neighbours = new int[MOVEMENTS.length][];
+		for (ShipState.DirectionOfMovement movement : MOVEMENTS) {
+			neighbours[movement.ordinal()] = geometry.getNeighbours(movement);
+		}
+		queue = new int[numSquares];
+		queued = new boolean[numSquares];
+		lost = new int[numSquares];
+		invalid = new boolean[numSquares];
+	}
+
+	/**
+	 * Gets the fewest moves that a ship with the given type of movement needs to get from the given square into the
+	 * territory on the given side.
+	 * @param side The side of the board whose territory the ship is heading for.
+	 * @param movement The ship's type of movement.
+	 * @param square The index of the square that the ship is on (see {@link BoardState#getIndex(int, int)}).
+	 * @return The number of moves, 0 if the square is already in the territory, or {@link #UNREACHABLE}.
+	 */
+	public int getDistance(PlayerState.StartSide side, ShipState.DirectionOfMovement movement, int square) {
+		if (distances == null) compute();
+		return distances[side.ordinal()][movement.ordinal()][square];
+	}
+
+	/**
+	 * Gets the fewest moves that the given ship needs to get into its enemy's territory.
+	 * @param ship The ship, which must be on the board.
+	 * @return The number of moves, 0 if the ship is already there, or {@link #UNREACHABLE}.
+	 */
+	public int getDistance(ShipState ship) {
+		return getDistance(ship.player.getOpponentSide(), ship.getMoveDirection(), ship.getSquare());
+	}
+
+	/**
+	 * Works out every field from scratch.
+	 */
+	private void compute() {
+		distances = new int[SIDES.length][MOVEMENTS.length][];
+		for (PlayerState.StartSide side : SIDES) {
+			for (ShipState.DirectionOfMovement movement : MOVEMENTS) {
+				int[] distance = new int[board.getNumSquares()];
+				Arrays.fill(distance, UNREACHABLE);
+				distances[side.ordinal()][movement.ordinal()] = distance;
+
+				// Every usable square of the territory is where the search starts from.
+				for (int square = 0; square < distance.length; square++) {
+					if (isUsable(square) && isInTerritory(side, square)) {
+						distance[square] = 0;
+						enqueue(square);
+					}
+				}
+				spread(distance, neighbours[movement.ordinal()]);
+			}
+		}
+	}
+
+	/**
+	 * Called by the board when a wreck is left on the given square.
+	 * @param wreck The index of the square.
+	 */
+	void wreckAdded(int wreck) {
+		if (distances == null) return;
+
+		for (int[][] sideDistances : distances) {
+			for (int movement = 0; movement < MOVEMENTS.length; movement++) {
+				int[] distance = sideDistances[movement];
+				if (distance[wreck] == UNREACHABLE) continue;
+				repair(distance, neighbours[movement], wreck);
+			}
+		}
+	}
+
+	/**
+	 * Called by the board when the wreck on the given square goes away.
+	 * @param wreck The index of the square.
+	 */
+	void wreckRemoved(int wreck) {
+		if (distances == null) return;
+
+		for (PlayerState.StartSide side : SIDES) {
+			for (int movement = 0; movement < MOVEMENTS.length; movement++) {
+				int[] distance = distances[side.ordinal()][movement];
+				distance[wreck] = isInTerritory(side, wreck) ? 0 : getBestNeighbour(distance, neighbours[movement], wreck);
+				if (distance[wreck] == UNREACHABLE) continue;
+
+				// The square can only have brought others closer, so spread out from it.
+				enqueue(wreck);
+				spread(distance, neighbours[movement]);
+			}
+		}
+	}
+
+	/**
+	 * Searches again the squares whose shortest way in went through a square that's just become a wreck.
+	 */
+	private void repair(int[] distance, int[] moves, int wreck) {
+		// First find every square that's lost its shortest way in: one that no longer has a neighbour one move closer.
+		// Only squares next to one that's lost its way can have lost theirs too, so the search stays around the wreck.
+		int count = 0;
+		distance[wreck] = UNREACHABLE;
+		invalid[wreck] = true;
+		lost[count++] = wreck;
+		for (int next = 0; next < count; next++) {
+			int start = lost[next] * BoardState.MOVE_DIRECTIONS.length;
+			for (int i = start; i < start + BoardState.MOVE_DIRECTIONS.length; i++) {
+				int neighbour = moves[i];
+				if (neighbour < 0 || invalid[neighbour] || distance[neighbour] == 0 || distance[neighbour] == UNREACHABLE) continue;
+				if (hasCloserNeighbour(distance, moves, neighbour)) continue;
+
+				distance[neighbour] = UNREACHABLE;
+				invalid[neighbour] = true;
+				lost[count++] = neighbour;
+			}
+		}
+
+		// Then give each of them the best distance it can get from the squares around it that still have theirs, and
+		// spread from there. The wreck itself stays unreachable.
+		for (int i = 0; i < count; i++) {
+			invalid[lost[i]] = false;
+		}
+		for (int i = 1; i < count; i++) {
+			distance[lost[i]] = getBestNeighbour(distance, moves, lost[i]);
+			if (distance[lost[i]] != UNREACHABLE) enqueue(lost[i]);
+		}
+		spread(distance, moves);
+	}
+
+	/**
+	 * Determines if the given square still has a usable neighbour that's one move closer than it is.
+	 */
+	private boolean hasCloserNeighbour(int[] distance, int[] moves, int square) {
+		int start = square * BoardState.MOVE_DIRECTIONS.length;
+		for (int i = start; i < start + BoardState.MOVE_DIRECTIONS.length; i++) {
+			int neighbour = moves[i];
+			if (neighbour >= 0 && !invalid[neighbour] && distance[neighbour] == distance[square] - 1) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Gets one more than the distance of the closest neighbour of the given square.
+	 */
+	private int getBestNeighbour(int[] distance, int[] moves, int square) {
+		int best = UNREACHABLE;
+		int start = square * BoardState.MOVE_DIRECTIONS.length;
+		for (int i = start; i < start + BoardState.MOVE_DIRECTIONS.length; i++) {
+			int neighbour = moves[i];
+			if (neighbour >= 0 && distance[neighbour] != UNREACHABLE) best = Math.min(best, distance[neighbour] + 1);
+		}
+		return best;
+	}
+
+	/**
+	 * Brings down the distances of every usable square that can be reached from the queued squares, until none of
+	 * them can get any closer. The queued squares can start at different distances, so a square is queued again
+	 * whenever it gets closer.
+	 */
+	private void spread(int[] distance, int[] moves) {
+		while (size > 0) {
+			int square = queue[head];
+			head = (head + 1 == queue.length) ? 0 : head + 1;
+			size--;
+			queued[square] = false;
+
+			int start = square * BoardState.MOVE_DIRECTIONS.length;
+			for (int i = start; i < start + BoardState.MOVE_DIRECTIONS.length; i++) {
+				int neighbour = moves[i];
+				if (neighbour < 0 || distance[square] + 1 >= distance[neighbour] || !isUsable(neighbour)) continue;
+				distance[neighbour] = distance[square] + 1;
+				enqueue(neighbour);
+			}
+		}
+		head = 0;
+	}
+
+	/**
+	 * Adds a square to the end of the queue used by {@link #spread(int[], int[])}, unless it's already there.
+	 */
+	private void enqueue(int square) {
+		if (queued[square]) return;
+		queued[square] = true;
+		int tail = head + size;
+		queue[(tail >= queue.length) ? tail - queue.length : tail] = square;
+		size++;
+	}
+
+	/**
+	 * Determines if a ship could ever be on the given square.
+	 */
+	private boolean isUsable(int square) {
+		return !board.isWreck(square);
+	}
+
+	/**
+	 * Determines if the given square is in the territory on the given side.
+	 */
+	private boolean isInTerritory(PlayerState.StartSide side, int square) {
+		return geometry.isWithinTerritory(side, square);
+	}
+}
@@ -0,0 +1,862 @@
+package game.engine;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The rules of a game of Battleship Galactica, with no dependency on JavaFX. Holds the board, the players
+ * and the state of the game as plain data, so that games can be played with or without a display.
+ * Anything that wants to show the game binds to it through a {@link GameListener}.
+ */
+public class GameEngine {
+	/**
+	 * The state of this current game.
+	 */
+	public static enum GameState {
+		ShipPlacement, Firing, Movement, Ended;
+	}
+
+	/**
+	 * The rules that this game is played by.
+	 */
+	private final Rules rules;
+
+	/**
+	 * The players of this game.
+	 */
+	private final PlayerState[] players;
+
+	/**
+	 * The board that belongs to this game.
+	 */
+	private final BoardState board;
+
+	/**
+	 * The listener that is told about everything that happens in this game, which is a group if more than one
+	 * listener has been added.
+	 */
+	private GameListener listener;
+
+	/**
+	 * Decides who wins when two ships contest a square.
+	 */
+	private final ContestResolver resolver;
+
+	// The contest that the game is waiting on, if there is one.
+	private Contest pendingContest;
+
+	/**
+	 * The current round number.
+	 */
+	private int turn = 0;
+
+	// The current game state. Start it in ship placement by default.
+	private GameState state = GameState.ShipPlacement;
+
+	// The player that won the game, if there was exactly one winner.
+	private PlayerState winningPlayer;
+	private boolean bothWon;
+
+	// Where each field of an action's undo record is. The ship that moved and the square it came from (-1 if it was
+	// just placed), the ship that was hit or destroyed and the health it had, then the stage, turn and winner from
+	// before, then the shots and moves that each player had left.
+	private static final int UNDO_MOVED = 0, UNDO_SQUARE = 1, UNDO_HIT = 2, UNDO_HEALTH = 3, UNDO_STATE = 4, UNDO_TURN = 5, UNDO_WINNER = 6,
+			UNDO_TURN_LEFT = 7, UNDO_SIZE = 11;
+
+	// The winner field of an undo record when both players had won.
+	private static final int BOTH_WON = 2;
+
+	private static final GameState[] STATES = GameState.values();
+
+	// Undo records for the actions made with makeMove, makeShot and makePlacement that haven't been taken back yet,
+	// UNDO_SIZE ints each. Only ever grows, so once it's as deep as a search goes, making and unmaking doesn't allocate
+	// anything.
+	private int[] undoStack = new int[UNDO_SIZE * 64];
+	private int undoDepth;
+
+	// Every shot fired in this game, and in the game that it's a copy of before it was copied.
+	private ShotHistory shotHistory;
+
+	// The number of shots of the salvo being checked that land on each ship, indexed by ShipState.index.
+	private final int[] salvoHits;
+
+	/**
+	 * Instantiates a new game with the default rules that nothing is listening to.
+	 */
+	public GameEngine() {
+		this(Rules.DEFAULT, GameListener.NONE);
+	}
+
+	/**
+	 * Instantiates a new game with the default rules.
+	 * @param listener The listener to tell about everything that happens in the game.
+	 */
+	public GameEngine(GameListener listener) {
+		this(Rules.DEFAULT, listener);
+	}
+
+	/**
+	 * Instantiates a new game whose contests are settled at random, seeded differently for every game.
+	 * @param rules The rules to play the game by.
+	 * @param listener The listener to tell about everything that happens in the game.
+	 */
+	public GameEngine(Rules rules, GameListener listener) {
+		this(rules, listener, new StochasticContestResolver(new Random().nextLong()));
+	}
+
+	/**
+	 * Instantiates a new game and readies for the playing of a new game.
+	 * @param rules The rules to play the game by.
+	 * @param listener The listener to tell about everything that happens in the game.
+	 * @param resolver Decides who wins when two ships contest a square.
+	 */
+	public GameEngine(Rules rules, GameListener listener, ContestResolver resolver) {
+		this.rules = rules;
+		this.listener = listener;
+		this.resolver = resolver;
+
+		// Make the players
+		players = new PlayerState[] { new PlayerState(this, 0, PlayerState.StartSide.BottomRight), new PlayerState(this, 1, PlayerState.StartSide.TopLeft) };
+
+		// Make the board, which also gives the players their ships.
+		board = new BoardState(this);
+		salvoHits = new int[board.getShips().length];
+		shotHistory = new ShotHistory(board.getNumSquares());
+	}
+
+	/**
+	 * Makes an independent copy of this game as it is right now, for trying things out without changing the real
+	 * game. The copy has no contest pending, and starts with a snapshot of this game's shot history. Any number of
+	 * threads can copy the same game at once as long as nothing is changing it.
+	 * @param listener The listener to tell about everything that happens in the copy.
+	 * @param resolver Decides who wins contests in the copy.
+	 * @return The copy.
+	 */
+	public GameEngine copy(GameListener listener, ContestResolver resolver) {
+		return copy(listener, resolver, null);
+	}
+
+	/**
+	 * Makes an independent copy of this game as it is right now, but with some of the living ships on different
+	 * squares. Used to fill in the positions of ships that a player can't see with guesses.
+	 * @param listener The listener to tell about everything that happens in the copy.
+	 * @param resolver Decides who wins contests in the copy.
+	 * @param shipSquares The index of the square that each ship should be on in the copy, indexed by
+	 * {@link ShipState#index}, or -1 to leave it where it is. Only living, placed ships can be moved, and no two
+	 * ships can end up on the same square. May be null to leave every ship where it is.
+	 * @return The copy.
+	 */
+	public GameEngine copy(GameListener listener, ContestResolver resolver, int[] shipSquares) {
+		GameEngine copy = new GameEngine(rules, listener, resolver);
+		copy.turn = turn;
+		copy.state = state;
+		copy.bothWon = bothWon;
+		copy.shotHistory = shotHistory.snapshot();
+		if (winningPlayer != null) copy.winningPlayer = copy.players[winningPlayer.index];
+
+		for (int i = 0; i < players.length; i++) {
+			copy.players[i].copyTurn(players[i]);
+		}
+
+		ShipState[] ships = board.getShips(), copyShips = copy.board.getShips();
+		for (int i = 0; i < ships.length; i++) {
+			ShipState ship = ships[i], copyShip = copyShips[i];
+			if (!ship.hasBeenPlaced()) continue;
+
+			int x = ship.getX(), y = ship.getY();
+			if (shipSquares != null && shipSquares[i] >= 0 && !ship.isDestroyed()) {
+				x = board.getXOfIndex(shipSquares[i]);
+				y = board.getYOfIndex(shipSquares[i]);
+			}
+			if (copy.board.getShip(x, y) != null) throw new IllegalArgumentException("Two ships can't be on the same square.");
+
+			// Put the ship down alive first so that the board's counts stay right, then wreck it if it's been destroyed.
+			copy.board.putShip(copyShip, x, y);
+			copyShip.setHealth(ship.getHealth());
+			if (ship.isDestroyed()) copy.board.shipDestroyed(copyShip);
+		}
+		return copy;
+	}
+
+	/**
+	 * Puts some of the living ships on different squares, in place, without counting it as a move or telling anything
+	 * about it. Used to fill in a new guess of where the ships that a player can't see are on a copy made for
+	 * searching, instead of making a new copy for every guess. Can't be taken back, so only allowed when there's
+	 * nothing to take back.
+	 * @param shipSquares The index of the square that each ship should be on, indexed by {@link ShipState#index}, or -1
+	 * to leave it where it is. Only living, placed ships can be moved, and no two ships can end up on the same square.
+	 */
+	public void reseatShips(int[] shipSquares) {
+		if (undoDepth > 0) throw new IllegalStateException("Ships can't be moved under actions that can be taken back.");
+
+		// Take every ship that's moving off first, so that they can swap squares between them.
+		ShipState[] ships = board.getShips();
+		for (int i = 0; i < ships.length; i++) {
+			if (shipSquares[i] < 0) continue;
+			if (!ships[i].hasBeenPlaced() || ships[i].isDestroyed()) throw new IllegalArgumentException("Only living ships on the board can be moved.");
+			board.removeShip(ships[i]);
+		}
+		for (int i = 0; i < ships.length; i++) {
+			if (shipSquares[i] < 0) continue;
+
+			int x = board.getXOfIndex(shipSquares[i]), y = board.getYOfIndex(shipSquares[i]);
+			if (board.getShip(x, y) != null) throw new IllegalArgumentException("Two ships can't be on the same square.");
+			board.putShip(ships[i], x, y);
+		}
+	}
+
+	/**
+	 * Starts telling another listener about everything that happens in this game, after the listeners it already
+	 * has. Should be done between events, not while the game is telling its listeners about something.
+	 * @param added The listener to add.
+	 */
+	public void addListener(GameListener added) {
+		listener = GameListenerGroup.add(listener, added);
+	}
+
+	/**
+	 * Stops telling the given listener about what happens in this game.
+	 * @param removed The listener to remove.
+	 */
+	public void removeListener(GameListener removed) {
+		listener = GameListenerGroup.remove(listener, removed);
+	}
+
+	/**
+	 * Begins the game, starting with the placement stage.
+	 */
+	public void start() {
+		state = GameState.ShipPlacement;
+		listener.stateChanged(state);
+	}
+
+	/**
+	 * Begin the firing stage of the game
+	 */
+	private void startFiring() {
+		state = GameState.Firing;
+		updateTurn();
+	}
+
+	/**
+	 * Begin the movement stage of the game.
+	 */
+	private void startMovement() {
+		state = GameState.Movement;
+		updateTurn();
+	}
+
+	/**
+	 * Begins the next round of the game.
+	 */
+	private void updateTurn() {
+		// Only actually advance the round if it's a firing stage.
+		if (state.equals(GameState.Firing)) {
+			turn++;
+
+			// Everyone gets the shots and moves that the rules give for this turn.
+			for (PlayerState player : players) {
+				player.resetForNextRound(turn);
+				listener.playerUpdated(player);
+			}
+		}
+
+		// if there's a winner in this game, end the game.
+		if (isWinner()) end();
+		else {
+			listener.stateChanged(state);
+			// Skip straight past a stage that nobody can do anything in, such as a movement stage with every ship boxed in.
+			refreshState();
+		}
+	}
+
+	/**
+	 * Determines if there is a winner in this game and records who won if there is.
+	 * @return True if there's a winner in the game, false otherwise.
+	 */
+	public boolean isWinner() {
+		PlayerState player1 = players[0];
+		PlayerState player2 = players[1];
+
+		boolean player1Won = player1.hasWon() || player2.getNumShipsLeft() <= 0;
+		boolean player2Won = player2.hasWon() || player1.getNumShipsLeft() <= 0;
+
+		bothWon = player1Won && player2Won;
+		if (bothWon) winningPlayer = null;
+		else if (player1Won) winningPlayer = player1;
+		else if (player2Won) winningPlayer = player2;
+
+		return player1Won || player2Won;
+	}
+
+	/**
+	 * Works out the fewest turns that the given player could get all of their ships into the enemy's territory in,
+	 * if every one of their moves went towards it and nothing got in the way (see {@link DistanceField}). The current
+	 * turn counts if its movement stage isn't over yet. Ships that haven't been placed are left out, and so is
+	 * winning by sinking every enemy ship.
+	 * @param player The player.
+	 * @return The number of turns, 0 if the player's ships are all there already, or {@link DistanceField#UNREACHABLE}
+	 * if one of them can't ever get there or the player has no ships left.
+	 */
+	public int getMinTurnsToWin(PlayerState player) {
+		if (player.getNumShipsLeft() == 0) return DistanceField.UNREACHABLE;
+
+		DistanceField distances = board.getDistanceField();
+		long needed = 0;
+		for (ShipState ship : player.getShips()) {
+			if (!ship.hasBeenPlaced() || ship.isDestroyed()) continue;
+			int distance = distances.getDistance(ship);
+			if (distance == DistanceField.UNREACHABLE) return DistanceField.UNREACHABLE;
+			needed += distance;
+		}
+		if (needed == 0) return 0;
+
+		// The moves left this turn count if its movement stage is still to come or going on now.
+		long turns = 0;
+		int nextTurn = turn + 1;
+		if (state.equals(GameState.Firing) || state.equals(GameState.Movement)) {
+			turns++;
+			needed -= player.getMovesLeft();
+		}
+
+		// Count turn by turn until the number of moves stops changing, then work out the rest all at once.
+		Rules.Schedule moves = rules.getMovesSchedule();
+		while (needed > 0 && nextTurn < moves.getLastChange()) {
+			needed -= moves.get(nextTurn++);
+			turns++;
+		}
+		if (needed > 0) {
+			int movesPerTurn = moves.get(nextTurn);
+			if (movesPerTurn <= 0) return DistanceField.UNREACHABLE;
+			turns += (needed + movesPerTurn - 1) / movesPerTurn;
+		}
+		return (int) Math.min(turns, DistanceField.UNREACHABLE - 1);
+	}
+
+	/**
+	 * Decides who's going to win a game that's as good as over, so that it doesn't have to be played out. That's
+	 * when one player could get all of their ships into enemy territory (see {@link #getMinTurnsToWin(PlayerState)})
+	 * more than the given number of turns before the other, or at all when the other never can, and the other
+	 * couldn't sink every one of their ships before then even if every shot hit (see
+	 * {@link #canSinkEveryShip(PlayerState, int)}). Ships can still be lost in contests, so this is a judgement
+	 * rather than a certainty.
+	 * @param margin How many turns ahead a player has to be.
+	 * @return The player who's as good as won, or null if the game is still open.
+	 */
+	public PlayerState getDecidedWinner(int margin) {
+		if (state.equals(GameState.ShipPlacement) || state.equals(GameState.Ended)) return null;
+
+		int first = getMinTurnsToWin(players[0]), second = getMinTurnsToWin(players[1]);
+		if (first == second) return null;
+		PlayerState leader = (first < second) ? players[0] : players[1];
+		int ahead = Math.min(first, second), behind = Math.max(first, second);
+		if (behind != DistanceField.UNREACHABLE && behind - ahead <= margin) return null;
+		return canSinkEveryShip(players[1 - leader.index], ahead) ? null : leader;
+	}
+
+	/**
+	 * Determines if the given player has enough shots to sink every enemy ship within the given number of turns, if
+	 * every one of them hit. The current turn is the first of them, and its shots count if they haven't been fired.
+	 * @param player The player shooting.
+	 * @param turns The number of turns, at least 1.
+	 * @return True if the player has the shots, false otherwise.
+	 */
+	private boolean canSinkEveryShip(PlayerState player, int turns) {
+		if (player.getNumShipsLeft() == 0) return false;
+
+		long needed = 0;
+		int damage = rules.getDamage();
+		for (ShipState ship : players[1 - player.index].getShips()) {
+			if (!ship.isDestroyed()) needed += (ship.getHealth() + damage - 1) / damage;
+		}
+
+		long shots = player.getShotsLeft();
+		for (int nextTurn = turn + 1; nextTurn < turn + turns && shots < needed; nextTurn++) {
+			shots += rules.getShots(nextTurn);
+		}
+		return shots >= needed;
+	}
+
+	/**
+	 * Ends this game.
+	 */
+	public void end() {
+		if (!state.equals(GameState.Ended)) {
+			state = GameState.Ended;
+			listener.stateChanged(state);
+		}
+	}
+
+	/**
+	 * Refreshes the game's current state, moving on to the next stage if the current one is over.
+	 */
+	public void refreshState() {
+		// winner beats all other states, and nothing moves on while a contest is being fought.
+		if (state.equals(GameState.Ended) || pendingContest != null) return;
+		else if (isWinner()) {
+			end();
+		}
+		// If we're in ship placement, check if all ships for each player have been placed.
+		else if (state.equals(GameState.ShipPlacement)) {
+			// If there are no unplaced ships, let's move on to first round of firing.
+			if (players[0].getNumShipsUnplaced() == 0 && players[1].getNumShipsUnplaced() == 0) {
+				startFiring();
+			}
+		}
+		else if (state.equals(GameState.Firing)) {
+			boolean canFire = false;
+			// Iterate through each player and see if any of them can still fire
+			for (PlayerState player : players) {
+				canFire = player.canShoot();
+				if (canFire) break;
+			}
+
+			if (!canFire) startMovement();
+		}
+		else if (state.equals(GameState.Movement)) {
+			boolean canMove = false;
+			// Iterate through each player and see if any of them can still move
+			for (PlayerState player : players) {
+				canMove = player.canMove();
+				if (canMove) break;
+			}
+
+			if (!canMove) startFiring();
+		}
+	}
+
+	/**
+	 * Places the given player's next unplaced ship on the square at the given coordinates. Only possible during
+	 * ship placement, and only within the player's own territory.
+	 * @param player The player placing a ship.
+	 * @param x The x coordinate to place at.
+	 * @param y The y coordinate to place at.
+	 * @return True if a ship was placed, false otherwise.
+	 */
+	public boolean placeShip(PlayerState player, int x, int y) {
+		ShipState ship = player.getNextUnplacedShip();
+		boolean placed = state.equals(GameState.ShipPlacement) && ship != null && board.isWithinTerritory(player.getStartPosition(), x, y)
+				&& board.getShip(x, y) == null;
+
+		if (placed) {
+			board.putShip(ship, x, y);
+			listener.shipPlaced(ship);
+			refreshState();
+		}
+		return placed;
+	}
+
+	/**
+	 * Takes the given ship back off of the board. Only possible during ship placement.
+	 * @param ship The ship to remove from the board.
+	 * @return True if the ship was removed, false otherwise.
+	 */
+	public boolean removeShip(ShipState ship) {
+		boolean removed = state.equals(GameState.ShipPlacement) && ship.hasBeenPlaced();
+
+		if (removed) {
+			int x = ship.getX(), y = ship.getY();
+			board.removeShip(ship);
+			listener.shipRemoved(ship, x, y);
+			refreshState();
+		}
+		return removed;
+	}
+
+	/**
+	 * Has the given player fire at the square at the given coordinates, damaging the enemy ship on it if there is one.
+	 * @param shooter The player firing.
+	 * @param x The x coordinate to fire at.
+	 * @param y The y coordinate to fire at.
+	 * @return True if the shot was fired, false if it wasn't allowed.
+	 */
+	public boolean shoot(PlayerState shooter, int x, int y) {
+		// Only shoot at a square if we have shots left and if that square is usable.
+		boolean fired = state.equals(GameState.Firing) && pendingContest == null && shooter.canShoot() && board.isUsable(x, y) && board.hasEnemyOrNothing(shooter, x, y);
+
+		if (fired) {
+			shooter.shotFired();
+			ShipState target = board.getShip(x, y);
+			boolean destroyed = target != null && target.hit(shooter.getDamage());
+			shotHistory.record(shooter.index, turn, board.getIndex(x, y), target != null);
+			listener.shotFired(shooter, x, y, target);
+
+			if (destroyed) {
+				listener.shipDestroyed(target);
+				listener.playerUpdated(target.player);
+			}
+			listener.playerUpdated(shooter);
+			refreshState();
+		}
+		return fired;
+	}
+
+	/**
+	 * Has the given player fire several shots at once, such as a whole turn's worth. The shots are checked together
+	 * before any of them are fired, so either all of them are fired or none are: there has to be a shot left for each,
+	 * every square has to be one that could be shot on its own, and no ship can be shot again after the shots before
+	 * it in the salvo would already have sunk it. Then the damage is all done in one go, with the listener told about
+	 * each shot and each ship destroyed as usual, but about each player's new numbers only once, and the state of the
+	 * game is only refreshed once at the end. If a shot ends the game by sinking a ship, the shots after it aren't
+	 * fired.
+	 * @param shooter The player firing.
+	 * @param squares The indices of the squares to fire at (see {@link BoardState#getIndex(int, int)}), in order. The
+	 * same square may be given more than once.
+	 * @param count The number of squares to use from the start of the array.
+	 * @return True if the salvo was fired, false if it wasn't allowed.
+	 */
+	public boolean shootSalvo(PlayerState shooter, int[] squares, int count) {
+		if (!state.equals(GameState.Firing) || pendingContest != null || count <= 0 || count > shooter.getShotsLeft()) return false;
+
+		// Check every shot before firing any of them.
+		boolean valid = isSalvoValid(shooter, squares, count);
+		Arrays.fill(salvoHits, 0);
+		if (!valid) return false;
+
+		boolean destroyedAny = false;
+		for (int i = 0; i < count; i++) {
+			int x = board.getXOfIndex(squares[i]), y = board.getYOfIndex(squares[i]);
+			shooter.shotFired();
+			ShipState target = board.getShip(x, y);
+			boolean destroyed = target != null && target.hit(shooter.getDamage());
+			shotHistory.record(shooter.index, turn, squares[i], target != null);
+			listener.shotFired(shooter, x, y, target);
+
+			if (destroyed) {
+				listener.shipDestroyed(target);
+				destroyedAny = true;
+				// Sinking a ship can end the game, either by leaving its player with none or with all of the rest in
+				// enemy territory, and then the rest of the salvo is never fired.
+				if (isWinner()) break;
+			}
+		}
+		if (destroyedAny) listener.playerUpdated(shooter.getOpponent());
+		listener.playerUpdated(shooter);
+		refreshState();
+		return true;
+	}
+
+	/**
+	 * Determines if every shot of a salvo could be fired, counting up the shots that land on each ship as it goes.
+	 */
+	private boolean isSalvoValid(PlayerState shooter, int[] squares, int count) {
+		for (int i = 0; i < count; i++) {
+			int square = squares[i];
+			if (square < 0 || square >= board.getNumSquares()) return false;
+
+			int x = board.getXOfIndex(square), y = board.getYOfIndex(square);
+			if (!board.isUsable(x, y) || !board.hasEnemyOrNothing(shooter, x, y)) return false;
+
+			// A ship that the shots before this one would sink is a wreck by the time this one lands.
+			ShipState target = board.getShip(x, y);
+			if (target != null && salvoHits[target.index]++ * shooter.getDamage() >= target.getHealth()) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Moves the given ship one square in the given direction, counting it as one of its player's moves.
+	 * If the square is held by a living enemy ship the ship doesn't move; instead a contest over the
+	 * square is started and handed to the game's {@link ContestResolver}. No other moves can be made
+	 * until it's settled.
+	 * @param ship The ship to move.
+	 * @param direction The direction to move in.
+	 * @return True if the ship moved, false otherwise.
+	 */
+	public boolean moveShip(ShipState ship, BoardState.MoveDirection direction) {
+		if (!state.equals(GameState.Movement) || pendingContest != null || ship.player.getMovesLeft() <= 0 || !ship.canMoveInDirection(direction)) return false;
+
+		int oldX = ship.getX(), oldY = ship.getY();
+		int newX = ship.getXInDirection(direction), newY = ship.getYInDirection(direction);
+
+		// If there's an enemy ship on this position already, this square is being contested.
+		ShipState defender = board.getShip(newX, newY);
+		if (defender != null) {
+			Contest contest = new Contest(this, defender, ship);
+			pendingContest = contest;
+			listener.contestStarted(defender, ship);
+			resolver.resolve(contest);
+			return false;
+		}
+
+		board.putShip(ship, newX, newY);
+		ship.player.shipMoved();
+		listener.shipMoved(ship, oldX, oldY);
+		listener.playerUpdated(ship.player);
+		refreshState();
+		return true;
+	}
+
+	/**
+	 * Makes the given move, as packed by {@link MoveGenerator#encodeMove(ShipState, BoardState.MoveDirection)}.
+	 * @param move The packed move to make.
+	 * @return True if the ship moved, false otherwise.
+	 * @see #moveShip(ShipState, BoardState.MoveDirection)
+	 */
+	public boolean moveShip(int move) {
+		return moveShip(board.getShips()[MoveGenerator.getShipIndex(move)], MoveGenerator.getDirection(move));
+	}
+
+	/**
+	 * Makes the given move so that it can be taken back exactly with {@link #unmake()}, for searching without copying
+	 * the game at every position. Nothing is told about it, not even the game's listener, and a contest is settled
+	 * straight away instead of going to the game's {@link ContestResolver}: the loser is destroyed where it is, and
+	 * neither ship moves, as after {@link #moveShip(ShipState, BoardState.MoveDirection)}.
+	 * @param move The packed move to make, as given by {@link MoveGenerator}.
+	 * @param contesterWins Who wins if the move starts a contest: true for the ship that moved, false for the defender.
+	 * @return True if the move was made, including if it started a contest, false if it wasn't allowed.
+	 */
+	public boolean makeMove(int move, boolean contesterWins) {
+		ShipState ship = board.getShips()[MoveGenerator.getShipIndex(move)];
+		BoardState.MoveDirection direction = MoveGenerator.getDirection(move);
+		if (!state.equals(GameState.Movement) || pendingContest != null || ship.player.getMovesLeft() <= 0 || !ship.canMoveInDirection(direction)) return false;
+
+		int record = pushUndo();
+		int newX = ship.getXInDirection(direction), newY = ship.getYInDirection(direction);
+		ShipState defender = board.getShip(newX, newY);
+		if (defender != null) {
+			ShipState loser = contesterWins ? defender : ship;
+			undoStack[record + UNDO_HIT] = loser.index;
+			undoStack[record + UNDO_HEALTH] = loser.getHealth();
+			loser.destroy();
+		}
+		else {
+			undoStack[record + UNDO_MOVED] = ship.index;
+			undoStack[record + UNDO_SQUARE] = board.getIndex(ship.getX(), ship.getY());
+			board.putShip(ship, newX, newY);
+			ship.player.shipMoved();
+		}
+		refreshSilently();
+		return true;
+	}
+
+	/**
+	 * Places the given player's next unplaced ship on the square at the given coordinates so that it can be taken back
+	 * exactly with {@link #unmake()}. Nothing is told about it, not even the game's listener.
+	 * @param player The player placing a ship.
+	 * @param x The x coordinate to place at.
+	 * @param y The y coordinate to place at.
+	 * @return True if a ship was placed, false otherwise.
+	 * @see #placeShip(PlayerState, int, int)
+	 */
+	public boolean makePlacement(PlayerState player, int x, int y) {
+		ShipState ship = player.getNextUnplacedShip();
+		if (!state.equals(GameState.ShipPlacement) || ship == null || !board.isWithinTerritory(player.getStartPosition(), x, y) || board.getShip(x, y) != null) return false;
+
+		int record = pushUndo();
+		// A ship that wasn't on the board before goes back off of it.
+		undoStack[record + UNDO_MOVED] = ship.index;
+		undoStack[record + UNDO_SQUARE] = -1;
+		board.putShip(ship, x, y);
+		refreshSilently();
+		return true;
+	}
+
+	/**
+	 * Has the given player fire at the square at the given coordinates so that it can be taken back exactly with
+	 * {@link #unmake()}. Nothing is told about it, not even the game's listener.
+	 * @param shooter The player firing.
+	 * @param x The x coordinate to fire at.
+	 * @param y The y coordinate to fire at.
+	 * @return True if the shot was fired, false if it wasn't allowed.
+	 * @see #shoot(PlayerState, int, int)
+	 */
+	public boolean makeShot(PlayerState shooter, int x, int y) {
+		if (!state.equals(GameState.Firing) || pendingContest != null || !shooter.canShoot() || !board.isUsable(x, y) || !board.hasEnemyOrNothing(shooter, x, y)) return false;
+
+		int record = pushUndo();
+		shooter.shotFired();
+		ShipState target = board.getShip(x, y);
+		if (target != null) {
+			undoStack[record + UNDO_HIT] = target.index;
+			undoStack[record + UNDO_HEALTH] = target.getHealth();
+			target.hit(shooter.getDamage());
+		}
+		refreshSilently();
+		return true;
+	}
+
+	/**
+	 * Takes back the last action made with {@link #makeMove(int, boolean)}, {@link #makeShot(PlayerState, int, int)} or
+	 * {@link #makePlacement(PlayerState, int, int)} that hasn't been taken back already, putting back the ships' positions and health, the shots and moves left,
+	 * the stage, the turn and the winner just as they were, hash included.
+	 */
+	public void unmake() {
+		if (undoDepth == 0) throw new IllegalStateException("There's nothing to take back.");
+		int record = --undoDepth * UNDO_SIZE;
+
+		int moved = undoStack[record + UNDO_MOVED];
+		if (moved >= 0) {
+			int square = undoStack[record + UNDO_SQUARE];
+			if (square < 0) board.removeShip(board.getShips()[moved]);
+			else board.putShip(board.getShips()[moved], board.getXOfIndex(square), board.getYOfIndex(square));
+		}
+		int hit = undoStack[record + UNDO_HIT];
+		if (hit >= 0) board.getShips()[hit].restoreHealth(undoStack[record + UNDO_HEALTH]);
+
+		state = STATES[undoStack[record + UNDO_STATE]];
+		turn = undoStack[record + UNDO_TURN];
+		int winner = undoStack[record + UNDO_WINNER];
+		bothWon = winner == BOTH_WON;
+		winningPlayer = (winner >= 0 && !bothWon) ? players[winner] : null;
+		for (PlayerState player : players) {
+			player.restoreTurn(undoStack[record + UNDO_TURN_LEFT + player.index * 2], undoStack[record + UNDO_TURN_LEFT + player.index * 2 + 1]);
+		}
+	}
+
+	/**
+	 * Gets how many actions have been made with {@link #makeMove(int, boolean)}, {@link #makeShot(PlayerState, int, int)}
+	 * and {@link #makePlacement(PlayerState, int, int)} and not taken back yet.
+	 * @return The number of times that {@link #unmake()} can be called.
+	 */
+	public int getUndoDepth() {
+		return undoDepth;
+	}
+
+	/**
+	 * Starts a new undo record with everything about the game that an action can change apart from the ships, growing
+	 * the stack if it's full.
+	 * @return Where the record starts in the stack.
+	 */
+	private int pushUndo() {
+		int record = undoDepth++ * UNDO_SIZE;
+		if (record + UNDO_SIZE > undoStack.length) undoStack = Arrays.copyOf(undoStack, undoStack.length * 2);
+
+		undoStack[record + UNDO_MOVED] = -1;
+		undoStack[record + UNDO_HIT] = -1;
+		undoStack[record + UNDO_STATE] = state.ordinal();
+		undoStack[record + UNDO_TURN] = turn;
+		undoStack[record + UNDO_WINNER] = bothWon ? BOTH_WON : (winningPlayer != null) ? winningPlayer.index : -1;
+		for (PlayerState player : players) {
+			undoStack[record + UNDO_TURN_LEFT + player.index * 2] = player.getUnusedShots();
+			undoStack[record + UNDO_TURN_LEFT + player.index * 2 + 1] = player.getMovesLeft();
+		}
+		return record;
+	}
+
+	/**
+	 * Refreshes the state of the game after an action that can be taken back, without telling the listener about any
+	 * stage that it moves on to.
+	 */
+	private void refreshSilently() {
+		GameListener current = listener;
+		listener = GameListener.NONE;
+		try {
+			refreshState();
+		}
+		finally {
+			listener = current;
+		}
+	}
+
+	/**
+	 * Finishes off a contest that's just been settled, destroying the ship that lost.
+	 * @param contest The contest that was settled.
+	 */
+	void contestSettled(Contest contest) {
+		if (pendingContest == contest) pendingContest = null;
+		
+		ShipState loser = contest.getLoser();
+		if (!loser.isDestroyed()) {
+			loser.destroy();
+			listener.shipDestroyed(loser);
+			listener.playerUpdated(loser.player);
+		}
+		refreshState();
+	}
+
+	/**
+	 * Gets the contest that the game is waiting to be settled.
+	 * @return The unsettled contest, or null if there isn't one.
+	 */
+	public Contest getPendingContest() {
+		return pendingContest;
+	}
+
+	/**
+	 * Gets what decides who wins when two ships contest a square.
+	 * @return The game's contest resolver.
+	 */
+	public ContestResolver getContestResolver() {
+		return resolver;
+	}
+
+	/**
+	 * Gets a 64 bit hash of everything about this game that makes a difference to how it can go on: where the ships
+	 * are and their health (see {@link BoardState#getHash()}), the stage, the turn, and each player's shots and moves
+	 * left. Games with the same hash are, barring a collision, the same position.
+	 * @return The hash of the game as it is now.
+	 */
+	public long getHash() {
+		long hash = board.getHash() ^ Zobrist.getStateKey(state) ^ Zobrist.getTurnKey(turn);
+		for (PlayerState player : players) {
+			hash ^= Zobrist.getMovesLeftKey(player.index, player.getMovesLeft()) ^ Zobrist.getShotsLeftKey(player.index, player.getShotsLeft());
+		}
+		return hash;
+	}
+
+	/**
+	 * Gets every shot that's been fired in this game, which is kept up to date as more are fired. Shots made with
+	 * {@link #makeShot(PlayerState, int, int)} aren't in it, since they're only tried out.
+	 * @return The game's shot history.
+	 */
+	public ShotHistory getShotHistory() {
+		return shotHistory;
+	}
+
+	/**
+	 * Gets the rules that this game is played by.
+	 * @return The rules of this game.
+	 */
+	public Rules getRules() {
+		return rules;
+	}
+
+	/**
+	 * Gets the players participating in this game
+	 * @return An array of the players in this game.
+	 */
+	public PlayerState[] getPlayers() {
+		return players;
+	}
+
+	/**
+	 * Gets the board on which this game is being played
+	 * @return The board on which this game is being played.
+	 */
+	public BoardState getBoard() {
+		return board;
+	}
+
+	/**
+	 * Returns the state of the current game, what's going on.
+	 * @return The game's state.
+	 */
+	public GameState getState() {
+		return state;
+	}
+
+	/**
+	 * Gets the current round number.
+	 * @return The current turn, starting at 1 with the first firing stage.
+	 */
+	public int getTurn() {
+		return turn;
+	}
+
+	/**
+	 * Gets the player who won the game.
+	 * @return The winning player, or null if no one has won yet or if both players won.
+	 */
+	public PlayerState getWinningPlayer() {
+		return winningPlayer;
+	}
+
+	/**
+	 * Determines if both players won the game at the same time.
+	 * @return True if the game ended with both players winning, false otherwise.
+	 */
+	public boolean didBothWin() {
+		return bothWon;
+	}
+}
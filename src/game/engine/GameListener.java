@@ -0,0 +1,71 @@
+package game.engine;
+
+/**
+ * Receives notifications of everything that happens inside of a {@link GameEngine}, so that a view
+ * (or anything else that's interested) can keep itself in sync with the game. All methods do nothing
+ * by default, so a headless game can simply use {@link #NONE}.
+ */
+public interface GameListener {
+	/**
+	 * A listener that ignores every event, for games that are played without a display.
+	 */
+	public static final GameListener NONE = new GameListener() {};
+
+	/**
+	 * Called when the game moves into a new stage. For the firing and movement stages this is called
+	 * after the turn number has been updated.
+	 * @param state The new state of the game.
+	 */
+	default void stateChanged(GameEngine.GameState state) {}
+
+	/**
+	 * Called when a ship is placed on the board during the ship placement stage.
+	 * @param ship The ship that was placed.
+	 */
+	default void shipPlaced(ShipState ship) {}
+
+	/**
+	 * Called when a ship is taken back off of the board during the ship placement stage.
+	 * @param ship The ship that was removed.
+	 * @param x The x coordinate that the ship was removed from.
+	 * @param y The y coordinate that the ship was removed from.
+	 */
+	default void shipRemoved(ShipState ship, int x, int y) {}
+
+	/**
+	 * Called when a ship moves from one square to another.
+	 * @param ship The ship that moved.
+	 * @param oldX The x coordinate that the ship moved from.
+	 * @param oldY The y coordinate that the ship moved from.
+	 */
+	default void shipMoved(ShipState ship, int oldX, int oldY) {}
+
+	/**
+	 * Called when a player fires at a square.
+	 * @param shooter The player who fired.
+	 * @param x The x coordinate of the square that was shot.
+	 * @param y The y coordinate of the square that was shot.
+	 * @param hitShip The ship that was hit, or null if the shot missed.
+	 */
+	default void shotFired(PlayerState shooter, int x, int y, ShipState hitShip) {}
+
+	/**
+	 * Called when a ship is destroyed, either by being shot or by losing a contest.
+	 * @param ship The ship that was destroyed.
+	 */
+	default void shipDestroyed(ShipState ship) {}
+
+	/**
+	 * Called when a ship tries to move onto a square held by a living enemy ship, meaning that the square
+	 * is being contested and that the two ships need to battle it out.
+	 * @param defender The ship that is on the square.
+	 * @param contester The ship that is trying to move onto the square.
+	 */
+	default void contestStarted(ShipState defender, ShipState contester) {}
+
+	/**
+	 * Called when the shots, moves or ships left of a player change.
+	 * @param player The player whose numbers changed.
+	 */
+	default void playerUpdated(PlayerState player) {}
+}
@@ -0,0 +1,109 @@
+package game.engine;
+
+import java.util.Arrays;
+
+/**
+ * Passes every event on to several listeners, in the order that they were added. Groups never change once made;
+ * adding or removing a listener makes a new group, so that a game with just the one listener doesn't pay for any of
+ * this, and a listener added while an event is being handed out doesn't see the rest of that event.
+ */
+final class GameListenerGroup implements GameListener {
+	private final GameListener[] listeners;
+
+	private GameListenerGroup(GameListener[] listeners) {
+		this.listeners = listeners;
+	}
+
+	/**
+	 * Combines a listener with another one.
+	 * @param current The listener that's there already, which may be a group or {@link GameListener#NONE}.
+	 * @param added The listener to add after it.
+	 * @return A listener that tells both.
+	 */
+	static GameListener add(GameListener current, GameListener added) {
+		if (current == GameListener.NONE) return added;
+		if (current instanceof GameListenerGroup) {
+			GameListener[] old = ((GameListenerGroup) current).listeners;
+			GameListener[] listeners = Arrays.copyOf(old, old.length + 1);
+			listeners[old.length] = added;
+			return new GameListenerGroup(listeners);
+		}
+		return new GameListenerGroup(new GameListener[] { current, added });
+	}
+
+	/**
+	 * Takes a listener back out of a combination.
+	 * @param current The listener that's there already, which may be a group.
+	 * @param removed The listener to take out.
+	 * @return A listener that tells everything but the removed one, which is {@link GameListener#NONE} if that's nothing.
+	 */
+	static GameListener remove(GameListener current, GameListener removed) {
+		if (current == removed) return GameListener.NONE;
+		if (!(current instanceof GameListenerGroup)) return current;
+
+		GameListener[] listeners = new GameListener[((GameListenerGroup) current).listeners.length];
+		int count = 0;
+		for (GameListener listener : ((GameListenerGroup) current).listeners) {
+			if (listener != removed) listeners[count++] = listener;
+		}
+		if (count == 0) return GameListener.NONE;
+		if (count == 1) return listeners[0];
+		return new GameListenerGroup(Arrays.copyOf(listeners, count));
+	}
+
+	@Override
+	public void stateChanged(GameEngine.GameState state) {
+		for (GameListener listener : listeners) {
+			listener.stateChanged(state);
+		}
+	}
+
+	@Override
+	public void shipPlaced(ShipState ship) {
+		for (GameListener listener : listeners) {
+			listener.shipPlaced(ship);
+		}
+	}
+
+	@Override
+	public void shipRemoved(ShipState ship, int x, int y) {
+		for (GameListener listener : listeners) {
+			listener.shipRemoved(ship, x, y);
+		}
+	}
+
+	@Override
+	public void shipMoved(ShipState ship, int oldX, int oldY) {
+		for (GameListener listener : listeners) {
+			listener.shipMoved(ship, oldX, oldY);
+		}
+	}
+
+	@Override
+	public void shotFired(PlayerState shooter, int x, int y, ShipState hitShip) {
+		for (GameListener listener : listeners) {
+			listener.shotFired(shooter, x, y, hitShip);
+		}
+	}
+
+	@Override
+	public void shipDestroyed(ShipState ship) {
+		for (GameListener listener : listeners) {
+			listener.shipDestroyed(ship);
+		}
+	}
+
+	@Override
+	public void contestStarted(ShipState defender, ShipState contester) {
+		for (GameListener listener : listeners) {
+			listener.contestStarted(defender, contester);
+		}
+	}
+
+	@Override
+	public void playerUpdated(PlayerState player) {
+		for (GameListener listener : listeners) {
+			listener.playerUpdated(player);
+		}
+	}
+}
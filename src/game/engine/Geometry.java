@@ -0,0 +1,159 @@
+package game.engine;
+
+/**
+ * Lookup tables for the shape of a board: the coordinates of each square, the square that a ship moves to in each
+ * direction, which squares are in each territory and how far apart any two squares are. They only depend on the size
+ * of the board and its territories, so they're worked out once for a set of rules and shared by every game played by
+ * them (see {@link Rules#getGeometry()}), which makes the innermost questions of searches and simulations plain array
+ * loads instead of arithmetic and branching. Nothing here ever changes once made.
+ */
+public final class Geometry {
+	/**
+	 * The square given for a move that would go off of the board.
+	 */
+	public static final int NO_SQUARE = -1;
+
+	private final int numRows, numSquares;
+
+	// The coordinates of each square, indexed by square index.
+	private final int[] xOfIndex, yOfIndex;
+
+	// The square that a ship with each type of movement goes to from each square, indexed by movement then by
+	// square times the number of directions plus the direction, NO_SQUARE where it would go off of the board.
+	private final int[][] neighbours;
+
+	// Whether or not each square is in each side's territory, indexed by side then square, and the same as bitboards.
+	private final boolean[][] territories;
+	private final long[][] territoryBoards;
+
+	// The distance between two squares, rounded to the nearest square, indexed by the difference in their columns
+	// times the number of rows plus the difference in their rows.
+	private final int[] distances;
+
+	/**
+	 * Works out the tables for a board.
+	 * @param numColumns The number of columns on the board.
+	 * @param numRows The number of rows on the board.
+	 * @param territorySize The number of columns at each end of the board that make up each territory.
+	 */
+	Geometry(int numColumns, int numRows, int territorySize) {
+		this.numRows = numRows;
+		numSquares = numColumns * numRows;
+
+		xOfIndex = new int[numSquares];
+		yOfIndex = new int[numSquares];
+		for (int square = 0; square < numSquares; square++) {
+			xOfIndex[square] = square % numColumns;
+			yOfIndex[square] = square / numColumns;
+		}
+
+		neighbours = new int[BoardState.MOVEMENT_TYPES.length][numSquares * BoardState.MOVE_DIRECTIONS.length];
+		for (ShipState.DirectionOfMovement movement : BoardState.MOVEMENT_TYPES) {
+			int[] squares = neighbours[movement.ordinal()];
+			for (int square = 0; square < numSquares; square++) {
+				for (BoardState.MoveDirection direction : BoardState.MOVE_DIRECTIONS) {
+					int x = xOfIndex[square] + BoardState.getXChange(movement, direction);
+					int y = yOfIndex[square] + BoardState.getYChange(movement, direction);
+					boolean onBoard = 0 <= x && x < numColumns && 0 <= y && y < numRows;
+					squares[square * BoardState.MOVE_DIRECTIONS.length + direction.ordinal()] = onBoard ? y * numColumns + x : NO_SQUARE;
+				}
+			}
+		}
+
+		territories = new boolean[BoardState.START_SIDES.length][numSquares];
+		territoryBoards = new long[BoardState.START_SIDES.length][];
+		for (PlayerState.StartSide side : BoardState.START_SIDES) {
+			int territoryX = side.equals(PlayerState.StartSide.BottomRight) ? numColumns - 1 : 0;
+			territoryBoards[side.ordinal()] = Bitboard.create(numSquares);
+			for (int square = 0; square < numSquares; square++) {
+				territories[side.ordinal()][square] = Math.abs(xOfIndex[square] - territoryX) < territorySize;
+				if (territories[side.ordinal()][square]) Bitboard.set(territoryBoards[side.ordinal()], square);
+			}
+		}
+
+		distances = new int[numSquares];
+		for (int columns = 0; columns < numColumns; columns++) {
+			for (int rows = 0; rows < numRows; rows++) {
+				distances[columns * numRows + rows] = BoardState.getDistanceBetween(0, 0, columns, rows);
+			}
+		}
+	}
+
+	/**
+	 * Gets the x coordinate of a square.
+	 * @param square The index of the square.
+	 * @return The x coordinate.
+	 */
+	public int getX(int square) {
+		return xOfIndex[square];
+	}
+
+	/**
+	 * Gets the y coordinate of a square.
+	 * @param square The index of the square.
+	 * @return The y coordinate.
+	 */
+	public int getY(int square) {
+		return yOfIndex[square];
+	}
+
+	/**
+	 * Gets the square that a ship with the given type of movement goes to when it moves from the given square in the
+	 * given direction.
+	 * @param movement The ship's type of movement.
+	 * @param square The index of the square that the ship is on.
+	 * @param direction The direction to move in.
+	 * @return The index of the square moved to, or {@link #NO_SQUARE} if it would be off of the board.
+	 */
+	public int getNeighbour(ShipState.DirectionOfMovement movement, int square, BoardState.MoveDirection direction) {
+		return neighbours[movement.ordinal()][square * BoardState.MOVE_DIRECTIONS.length + direction.ordinal()];
+	}
+
+	/**
+	 * Gets the whole table of squares that ships with the given type of movement move to, for going through every
+	 * move from a square at once. Must not be modified.
+	 * @param movement The type of movement.
+	 * @return The square moved to from each square in each direction, at the square's index times the number of
+	 * directions plus {@link BoardState.MoveDirection#ordinal()}, or {@link #NO_SQUARE}.
+	 */
+	public int[] getNeighbours(ShipState.DirectionOfMovement movement) {
+		return neighbours[movement.ordinal()];
+	}
+
+	/**
+	 * Determines if a square is in the territory of the given side.
+	 * @param side The side whose territory to look at.
+	 * @param square The index of the square.
+	 * @return True if the square is in the territory, false otherwise.
+	 */
+	public boolean isWithinTerritory(PlayerState.StartSide side, int square) {
+		return territories[side.ordinal()][square];
+	}
+
+	/**
+	 * Gets the squares in the territory of the given side. Must not be modified.
+	 * @param side The side whose territory to get.
+	 * @return A bitboard of the territory.
+	 */
+	public long[] getTerritory(PlayerState.StartSide side) {
+		return territoryBoards[side.ordinal()];
+	}
+
+	/**
+	 * Gets the distance between two squares, as given by {@link BoardState#getDistanceBetween(int, int, int, int)}.
+	 * @param from The index of the first square.
+	 * @param to The index of the second square.
+	 * @return The distance in squares.
+	 */
+	public int getDistance(int from, int to) {
+		return distances[Math.abs(xOfIndex[to] - xOfIndex[from]) * numRows + Math.abs(yOfIndex[to] - yOfIndex[from])];
+	}
+
+	/**
+	 * Gets the number of squares on the board.
+	 * @return The number of squares.
+	 */
+	public int getNumSquares() {
+		return numSquares;
+	}
+}
@@ -0,0 +1,95 @@
+package game.engine;
+
+/**
+ * Works out the legal moves of ships without making any objects, by writing them into arrays that the
+ * caller supplies (and can reuse for as long as they like).
+ * <p>
+ * Moves of a whole player are packed into single ints holding both the ship and the direction it moves in,
+ * see {@link #encodeMove(ShipState, BoardState.MoveDirection)}. Neither method looks at how many moves the
+ * player has left this turn; that's up to the caller.
+ */
+public final class MoveGenerator {
+	/**
+	 * The most squares that one ship can possibly move to, and so the smallest buffer that
+	 * {@link #generateDestinations(ShipState, int[])} can safely be given.
+	 */
+	public static final int MAX_MOVES_PER_SHIP = 4;
+
+	/**
+	 * Gets the most moves that one player can possibly have under the given rules, and so the smallest buffer
+	 * that {@link #generateMoves(PlayerState, int[])} can safely be given.
+	 * @param rules The rules of the game.
+	 * @return The maximum number of moves for a player.
+	 */
+	public static int getMaxMovesPerPlayer(Rules rules) {
+		return rules.getShipsPerPlayer() * MAX_MOVES_PER_SHIP;
+	}
+
+	private MoveGenerator() {}
+
+	/**
+	 * Writes the index of every square that the given ship can legally move to into the buffer.
+	 * @param ship The ship to generate the moves of.
+	 * @param buffer Where to put the square indices (see {@link BoardState#getIndex(int, int)}).
+	 * @return The number of squares written, which is 0 if the ship is unplaced or destroyed.
+	 */
+	public static int generateDestinations(ShipState ship, int[] buffer) {
+		int count = 0;
+		if (ship.hasBeenPlaced() && !ship.isDestroyed()) {
+			BoardState board = ship.player.getGame().getBoard();
+			for (BoardState.MoveDirection direction : BoardState.MOVE_DIRECTIONS) {
+				int square = ship.getSquareInDirection(direction);
+				if (square != Geometry.NO_SQUARE && board.canMoveToSquare(ship, square)) buffer[count++] = square;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Writes every legal move of every one of the given player's ships into the buffer.
+	 * @param player The player to generate the moves of.
+	 * @param buffer Where to put the moves, packed as by {@link #encodeMove(ShipState, BoardState.MoveDirection)}.
+	 * @return The number of moves written.
+	 */
+	public static int generateMoves(PlayerState player, int[] buffer) {
+		int count = 0;
+		BoardState board = player.getGame().getBoard();
+		for (ShipState ship : player.getShips()) {
+			if (!ship.hasBeenPlaced() || ship.isDestroyed()) continue;
+
+			for (BoardState.MoveDirection direction : BoardState.MOVE_DIRECTIONS) {
+				int square = ship.getSquareInDirection(direction);
+				if (square != Geometry.NO_SQUARE && board.canMoveToSquare(ship, square)) buffer[count++] = encodeMove(ship, direction);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Packs a ship and the direction that it's moving in into a single int.
+	 * @param ship The ship moving.
+	 * @param direction The direction it's moving in.
+	 * @return The packed move.
+	 */
+	public static int encodeMove(ShipState ship, BoardState.MoveDirection direction) {
+		return (ship.index << 2) | direction.ordinal();
+	}
+
+	/**
+	 * Gets the index of the ship (see {@link ShipState#index}) that moves in the given packed move.
+	 * @param move The packed move.
+	 * @return The index of the ship on the board.
+	 */
+	public static int getShipIndex(int move) {
+		return move >>> 2;
+	}
+
+	/**
+	 * Gets the direction that the ship moves in for the given packed move.
+	 * @param move The packed move.
+	 * @return The direction of the move.
+	 */
+	public static BoardState.MoveDirection getDirection(int move) {
+		return BoardState.MOVE_DIRECTIONS[move & 3];
+	}
+}
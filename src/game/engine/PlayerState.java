@@ -0,0 +1,309 @@
+package game.engine;
+
+/**
+ * A player of a game as plain data: their side of the board, their ships and how many shots and
+ * moves they have left in the current turn.
+ */
+public class PlayerState {
+	public static enum StartSide {
+		TopLeft, BottomRight
+	}
+
+	/**
+	 * The game to which this player belongs.
+	 */
+	private final GameEngine game;
+
+	/**
+	 * The position of this player in the game's list of players.
+	 */
+	public final int index;
+
+	private final StartSide startSide;
+
+	// The starting position of the player
+	private final int startX, startY;
+
+	/**
+	 * The player's ships
+	 */
+	private final ShipState[] ships;
+	private int numShips = 0;
+
+	private int numShotsLeft, numMovesLeft;
+
+	/**
+	 * Live counts of this player's ships that are alive, that are alive and in the enemy's territory, and that
+	 * haven't been placed yet. Kept up to date by the board as ships are placed, moved and destroyed so that
+	 * checking for a winner never has to look at every ship.
+	 */
+	private int numShipsAlive = 0, numShipsInEnemyTerritory = 0, numShipsUnplaced = 0;
+
+	/**
+	 * Instantiates a player object.
+	 * @param game The game to which this player belongs
+	 * @param index The position of this player in the game's list of players.
+	 * @param side The side of the board that this player starts on.
+	 */
+	PlayerState(GameEngine game, int index, StartSide side) {
+		this.game = game;
+		this.index = index;
+		startSide = side;
+
+		Rules rules = game.getRules();
+		ships = new ShipState[rules.getShipsPerPlayer()];
+		numShotsLeft = rules.getShots(1);
+		numMovesLeft = rules.getMoves(1);
+
+		// Set the start position of this player based on the start side.
+		if (side.equals(StartSide.BottomRight)) {
+			startX = rules.getNumColumns() - 1;
+			startY = rules.getNumRows() - 1;
+		}
+		else {
+			startX = 0;
+			startY = 0;
+		}
+	}
+
+	/**
+	 * Gets the game that this player belongs to.
+	 * @return The game object to which this player belongs.
+	 */
+	public GameEngine getGame() {
+		return game;
+	}
+
+	/**
+	 * Gets the starting side of this Player, bottom right or top left
+	 * @return The start side of this player.
+	 */
+	public StartSide getStartPosition() {
+		return startSide;
+	}
+
+	/**
+	 * Gets the side of the board that this player's opponent started on, which is where this player's ships are trying to get to.
+	 * @return The start side of the opponent.
+	 */
+	public StartSide getOpponentSide() {
+		return startSide.equals(StartSide.BottomRight) ? StartSide.TopLeft : StartSide.BottomRight;
+	}
+
+	/**
+	 * Gets the other player in this player's game.
+	 * @return This player's opponent.
+	 */
+	public PlayerState getOpponent() {
+		return game.getPlayers()[1 - index];
+	}
+
+	/**
+	 * Gets the x coordinate of this player's start position.
+	 * @return The starting x coordinate.
+	 */
+	public int getStartX() {
+		return startX;
+	}
+
+	/**
+	 * Gets the y coordinate of this player's start position.
+	 * @return The starting y coordinate.
+	 */
+	public int getStartY() {
+		return startY;
+	}
+
+	/**
+	 * Adds the given ship to this player's list of ships
+	 * @param ship The ship to add to the player's record.
+	 */
+	void addShip(ShipState ship) {
+		ships[numShips++] = ship;
+		numShipsAlive++;
+		numShipsUnplaced++;
+	}
+
+	/**
+	 * Gets all the ships that belong to this player
+	 * @return This player's ships.
+	 */
+	public ShipState[] getShips() {
+		return ships;
+	}
+
+	/**
+	 * Gets the first of this player's ships that hasn't been placed on the board yet.
+	 * @return The next ship to place, or null if all of them have been placed.
+	 */
+	public ShipState getNextUnplacedShip() {
+		for (ShipState ship : ships) {
+			if (!ship.hasBeenPlaced()) return ship;
+		}
+		return null;
+	}
+
+	/**
+	 * Determines the number of ships that this player has left.
+	 * @return The number of ships that the player has left.
+	 */
+	public int getNumShipsLeft() {
+		return numShipsAlive;
+	}
+
+	/**
+	 * Determines the number of this player's ships that are still alive and in the enemy's territory.
+	 * @return The number of ships in enemy territory.
+	 */
+	public int getNumShipsInEnemyTerritory() {
+		return numShipsInEnemyTerritory;
+	}
+
+	/**
+	 * Determines the number of this player's ships that have yet to be placed on the board.
+	 * @return The number of unplaced ships.
+	 */
+	public int getNumShipsUnplaced() {
+		return numShipsUnplaced;
+	}
+
+	/**
+	 * Called by the board when one of this player's ships is put onto a square.
+	 * @param wasPlaced Whether or not the ship was already on the board before.
+	 * @param inEnemyTerritory Whether or not the ship is now alive and in the enemy's territory.
+	 */
+	void shipPlaced(boolean wasPlaced, boolean inEnemyTerritory) {
+		if (!wasPlaced) numShipsUnplaced--;
+		if (inEnemyTerritory) numShipsInEnemyTerritory++;
+	}
+
+	/**
+	 * Called by the board when one of this player's ships is taken off of its square.
+	 * @param wasInEnemyTerritory Whether or not the ship was alive and in the enemy's territory.
+	 * @param leftBoard True if the ship left the board entirely, false if it's just being moved.
+	 */
+	void shipLifted(boolean wasInEnemyTerritory, boolean leftBoard) {
+		if (wasInEnemyTerritory) numShipsInEnemyTerritory--;
+		if (leftBoard) numShipsUnplaced++;
+	}
+
+	/**
+	 * Called by the board when one of this player's ships is destroyed.
+	 * @param wasInEnemyTerritory Whether or not the ship was in the enemy's territory when it was destroyed.
+	 */
+	void shipDestroyed(boolean wasInEnemyTerritory) {
+		numShipsAlive--;
+		if (wasInEnemyTerritory) numShipsInEnemyTerritory--;
+	}
+
+	/**
+	 * Called by the board when one of this player's destroyed ships is brought back to life, for taking back actions.
+	 * @param inEnemyTerritory Whether or not the ship is in the enemy's territory.
+	 */
+	void shipRevived(boolean inEnemyTerritory) {
+		numShipsAlive++;
+		if (inEnemyTerritory) numShipsInEnemyTerritory++;
+	}
+
+	/**
+	 * Determines the number of shots that this player has left for this turn, keeping into account the number of ships
+	 * the player has.
+	 * @return The number of shots that the player has left.
+	 */
+	public int getShotsLeft() {
+		return (numShipsAlive > 0) ? numShotsLeft : 0;
+	}
+
+	/**
+	 * Determines if the given player can still shoot
+	 * @return True if the player can still shoot, false otherwise
+	 */
+	public boolean canShoot() { return getShotsLeft() > 0; }
+
+	/**
+	 * Called when this player fires a shot to decrease the shot counter.
+	 */
+	void shotFired() {
+		numShotsLeft--;
+	}
+
+	/**
+	 * Determines the amount of ship moves this player has left
+	 * @return The number of moves that this player has left in the turn.
+	 */
+	public int getMovesLeft() {
+		return numMovesLeft;
+	}
+
+	/**
+	 * Determines if the player can still move their ships, meaning that they have moves left and at least
+	 * one ship with somewhere to go.
+	 * @return True if the player can still move their ships, false otherwise.
+	 */
+	public boolean canMove() {
+		return numMovesLeft > 0 && game.getBoard().hasAnyMove(this);
+	}
+
+	/**
+	 * Called when one of this player's ships is moved in order to decrease the
+	 * move counter.
+	 */
+	void shipMoved() {
+		numMovesLeft--;
+	}
+
+	/**
+	 * Resets the number of shots that the player has for this turn as well as the number of moves
+	 * in preparation for the next round.
+	 * @param turn The number of the turn that's starting.
+	 */
+	void resetForNextRound(int turn) {
+		numShotsLeft = game.getRules().getShots(turn);
+		numMovesLeft = game.getRules().getMoves(turn);
+	}
+
+	/**
+	 * Sets the shots and moves left this turn to those of another player, for copying games.
+	 * @param other The player to copy.
+	 */
+	void copyTurn(PlayerState other) {
+		numShotsLeft = other.numShotsLeft;
+		numMovesLeft = other.numMovesLeft;
+	}
+
+	/**
+	 * Gets the number of shots that this player hasn't fired yet this turn, even if they have no ships left to fire them.
+	 * @return The shots left, whether or not they can be fired.
+	 */
+	int getUnusedShots() {
+		return numShotsLeft;
+	}
+
+	/**
+	 * Puts back the shots and moves that this player had left this turn, for taking back actions.
+	 * @param shotsLeft The shots left, as given by {@link #getUnusedShots()}.
+	 * @param movesLeft The moves left.
+	 */
+	void restoreTurn(int shotsLeft, int movesLeft) {
+		numShotsLeft = shotsLeft;
+		numMovesLeft = movesLeft;
+	}
+
+	/**
+	 * Returns the amount of damage this player's cannon balls do.
+	 * @return The amount of damage this player's cannon balls do.
+	 */
+	public int getDamage() {
+		return game.getRules().getDamage();
+	}
+
+	/**
+	 * Determines if this player has won the game by getting all of their surviving ships in the
+	 * enemy's territory.
+	 * @return True if the player has won the game, false otherwise.
+	 */
+	public boolean hasWon() {
+		// A player with no ships left hasn't won anything, and ships still waiting to be placed aren't in enemy territory.
+		return numShipsAlive > 0 && numShipsUnplaced == 0 && numShipsInEnemyTerritory == numShipsAlive;
+	}
+}
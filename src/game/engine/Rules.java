@@ -0,0 +1,269 @@
+package game.engine;
+
+import java.util.Arrays;
+
+/**
+ * The rules that a single game is played by: the size of the board, the number of ships, how many shots and moves
+ * players get each turn, how much damage shots do and how big each player's territory is. Rules can't be changed
+ * once made, so any number of games can share the same rules object, and games with different rules never
+ * affect one another.
+ */
+public final class Rules {
+	/**
+	 * A number that changes over the course of a game, such as the number of shots per turn. Starts with a value for
+	 * turn 1 and changes to new values on the given turns.
+	 */
+	public static final class Schedule {
+		// The turns on which the value changes, in increasing order starting with turn 1, and the values from then on.
+		private final int[] turns, values;
+
+		/**
+		 * Makes a schedule that never changes.
+		 * @param value The value for every turn.
+		 */
+		public Schedule(int value) {
+			this(new int[] { 1 }, new int[] { value });
+		}
+
+		/**
+		 * Makes a schedule that changes on the given turns.
+		 * @param turns The turns on which the value changes, in increasing order, starting with 1.
+		 * @param values The value from each of those turns onwards.
+		 */
+		public Schedule(int[] turns, int[] values) {
+			if (turns.length == 0 || turns.length != values.length || turns[0] != 1) {
+				throw new IllegalArgumentException("A schedule needs a value for each turn it changes on, starting with turn 1.");
+			}
+			for (int i = 1; i < turns.length; i++) {
+				if (turns[i] <= turns[i - 1]) throw new IllegalArgumentException("Schedule turns must be in increasing order.");
+			}
+			this.turns = turns.clone();
+			this.values = values.clone();
+		}
+
+		/**
+		 * Gets the value for the given turn.
+		 * @param turn The turn number, starting with 1.
+		 * @return The value on that turn.
+		 */
+		public int get(int turn) {
+			int value = values[0];
+			for (int i = 1; i < turns.length && turns[i] <= turn; i++) {
+				value = values[i];
+			}
+			return value;
+		}
+
+		/**
+		 * Gets the turn on which the value changes for the last time, after which it stays the same forever.
+		 * @return The turn of the last change, 1 if it never changes.
+		 */
+		public int getLastChange() {
+			return turns[turns.length - 1];
+		}
+
+		/**
+		 * Gets the largest value that this schedule ever has.
+		 * @return The maximum value.
+		 */
+		public int getMaximum() {
+			int maximum = values[0];
+			for (int value : values) {
+				maximum = Math.max(maximum, value);
+			}
+			return maximum;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof Schedule && Arrays.equals(turns, ((Schedule) other).turns) && Arrays.equals(values, ((Schedule) other).values);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * Arrays.hashCode(turns) + Arrays.hashCode(values);
+		}
+	}
+
+	/**
+	 * The rules that the game has always been played by: a 20 by 10 board, ten ships each, two columns of
+	 * territory, and four shots a turn going up to six on turn 6 and ten on turn 10.
+	 */
+	public static final Rules DEFAULT = new Rules(20, 10, 10, 2, 50,
+			new Schedule(new int[] { 1, 6, 10 }, new int[] { 4, 6, 10 }), new Schedule(4));
+
+	private final int numColumns, numRows, shipsPerPlayer, territorySize, damage;
+	private final Schedule shots, moves;
+
+	// The lookup tables for the board that these rules give, made the first time they're needed.
+	private volatile Geometry geometry;
+
+	/**
+	 * Makes a new set of rules.
+	 * @param numColumns The number of columns on the board.
+	 * @param numRows The number of rows on the board.
+	 * @param shipsPerPlayer The number of ships that each player has.
+	 * @param territorySize The number of columns at each end of the board that make up each player's territory.
+	 * @param damage The damage that each shot does to a ship, out of {@link ShipState#MAX_HEALTH}.
+	 * @param shots The number of shots each player gets per turn.
+	 * @param moves The number of moves each player gets per turn.
+	 */
+	public Rules(int numColumns, int numRows, int shipsPerPlayer, int territorySize, int damage, Schedule shots, Schedule moves) {
+		if (numColumns < 2 || numRows < 1) throw new IllegalArgumentException("The board must be at least 2 by 1.");
+		if (territorySize < 1 || territorySize * 2 > numColumns) throw new IllegalArgumentException("The territories must fit on the board without overlapping.");
+		if (shipsPerPlayer < 1 || shipsPerPlayer > territorySize * numRows) throw new IllegalArgumentException("Each player's ships must fit in their territory.");
+		if (damage < 1) throw new IllegalArgumentException("Shots must do some damage.");
+
+		this.numColumns = numColumns;
+		this.numRows = numRows;
+		this.shipsPerPlayer = shipsPerPlayer;
+		this.territorySize = territorySize;
+		this.damage = damage;
+		this.shots = shots;
+		this.moves = moves;
+	}
+
+	/**
+	 * Makes a copy of these rules played on a board of a different size.
+	 * @param numColumns The number of columns on the new board.
+	 * @param numRows The number of rows on the new board.
+	 * @return The new rules.
+	 */
+	public Rules withBoardSize(int numColumns, int numRows) {
+		return new Rules(numColumns, numRows, shipsPerPlayer, territorySize, damage, shots, moves);
+	}
+
+	/**
+	 * Makes a copy of these rules with a different number of ships for each player.
+	 * @param shipsPerPlayer The number of ships that each player has.
+	 * @return The new rules.
+	 */
+	public Rules withShipsPerPlayer(int shipsPerPlayer) {
+		return new Rules(numColumns, numRows, shipsPerPlayer, territorySize, damage, shots, moves);
+	}
+
+	/**
+	 * Makes a copy of these rules with a different number of shots per turn.
+	 * @param shots The number of shots each player gets per turn.
+	 * @return The new rules.
+	 */
+	public Rules withShots(Schedule shots) {
+		return new Rules(numColumns, numRows, shipsPerPlayer, territorySize, damage, shots, moves);
+	}
+
+	/**
+	 * Makes a copy of these rules with a different number of moves per turn.
+	 * @param moves The number of moves each player gets per turn.
+	 * @return The new rules.
+	 */
+	public Rules withMoves(Schedule moves) {
+		return new Rules(numColumns, numRows, shipsPerPlayer, territorySize, damage, shots, moves);
+	}
+
+	/**
+	 * Gets the number of columns on the board.
+	 * @return The width of the board in squares.
+	 */
+	public int getNumColumns() {
+		return numColumns;
+	}
+
+	/**
+	 * Gets the number of rows on the board.
+	 * @return The height of the board in squares.
+	 */
+	public int getNumRows() {
+		return numRows;
+	}
+
+	/**
+	 * Gets the number of squares on the board.
+	 * @return The number of squares.
+	 */
+	public int getNumSquares() {
+		return numColumns * numRows;
+	}
+
+	/**
+	 * Gets the lookup tables for the shape of the board, which are shared by every game played by these rules.
+	 * @return The board's geometry.
+	 */
+	public Geometry getGeometry() {
+		Geometry current = geometry;
+		// Two threads might both make the tables at first, but they'd be identical, so it doesn't matter which is kept.
+		if (current == null) geometry = current = new Geometry(numColumns, numRows, territorySize);
+		return current;
+	}
+
+	/**
+	 * Gets the number of ships that each player has.
+	 * @return The number of ships per player.
+	 */
+	public int getShipsPerPlayer() {
+		return shipsPerPlayer;
+	}
+
+	/**
+	 * Gets the size of each player's territory, used both to restrict where players may place their ships at the
+	 * start of the game and to determine if the other player's ship is in the enemy's territory.
+	 * @return The number of columns at each end of the board that make up each territory.
+	 */
+	public int getTerritorySize() {
+		return territorySize;
+	}
+
+	/**
+	 * Gets the damage that each shot does.
+	 * @return The damage per shot.
+	 */
+	public int getDamage() {
+		return damage;
+	}
+
+	/**
+	 * Gets the number of shots that each player gets on the given turn.
+	 * @param turn The turn number, starting with 1.
+	 * @return The number of shots.
+	 */
+	public int getShots(int turn) {
+		return shots.get(turn);
+	}
+
+	/**
+	 * Gets the number of moves that each player gets on the given turn.
+	 * @param turn The turn number, starting with 1.
+	 * @return The number of moves.
+	 */
+	public int getMoves(int turn) {
+		return moves.get(turn);
+	}
+
+	/**
+	 * Gets the schedule of shots per turn.
+	 * @return The shots schedule.
+	 */
+	public Schedule getShotsSchedule() {
+		return shots;
+	}
+
+	/**
+	 * Gets the schedule of moves per turn.
+	 * @return The moves schedule.
+	 */
+	public Schedule getMovesSchedule() {
+		return moves;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof Rules)) return false;
+		Rules rules = (Rules) other;
+		return numColumns == rules.numColumns && numRows == rules.numRows && shipsPerPlayer == rules.shipsPerPlayer
+				&& territorySize == rules.territorySize && damage == rules.damage && shots.equals(rules.shots) && moves.equals(rules.moves);
+	}
+
+	@Override
+	public int hashCode() {
+		return Arrays.hashCode(new int[] { numColumns, numRows, shipsPerPlayer, territorySize, damage, shots.hashCode(), moves.hashCode() });
+	}
+}
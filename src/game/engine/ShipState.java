@@ -0,0 +1,226 @@
+package game.engine;
+
+/**
+ * A player's ship as plain data: where it is, how it moves and how much health it has left.
+ */
+public class ShipState {
+	/**
+	 * The types of movement possible for a ship
+	 */
+	public static enum DirectionOfMovement {
+		Horizontal, Diagonal
+	}
+
+	/**
+	 * Max health for ships.
+	 */
+	public static final int MAX_HEALTH = 100;
+
+	/**
+	 * The player that this ship belongs to.
+	 */
+	public final PlayerState player;
+
+	/**
+	 * The position of this ship in the board's list of ships.
+	 */
+	public final int index;
+
+	// The direction that this type of ship can move in.
+	private final DirectionOfMovement moveDirection;
+
+	// The current position of the ship and the index of its square, or -1 if it hasn't been placed.
+	private int x = -1, y = -1, square = -1;
+
+	// The health of the ship.
+	private int health = MAX_HEALTH;
+
+	/**
+	 * Instantiates a new ship object
+	 * @param player The player to whom this ship belongs
+	 * @param index The position of this ship in the board's list of ships.
+	 * @param moveDirection The direction that this ship is allowed to move.
+	 */
+	ShipState(PlayerState player, int index, DirectionOfMovement moveDirection) {
+		this.player = player;
+		this.index = index;
+		this.moveDirection = moveDirection;
+	}
+
+	/**
+	 * Gets the direction that this ship is allowed to move in.
+	 * @return The type of movement of this ship.
+	 */
+	public DirectionOfMovement getMoveDirection() {
+		return moveDirection;
+	}
+
+	/**
+	 * Gets the x coordinate of this ship.
+	 * @return The x coordinate, or -1 if the ship hasn't been placed.
+	 */
+	public int getX() {
+		return x;
+	}
+
+	/**
+	 * Gets the y coordinate of this ship.
+	 * @return The y coordinate, or -1 if the ship hasn't been placed.
+	 */
+	public int getY() {
+		return y;
+	}
+
+	/**
+	 * Sets the position of this ship. Only the board should do this, so that it stays in sync.
+	 * @param x The new x coordinate
+	 * @param y The new y coordinate
+	 */
+	void setPosition(int x, int y) {
+		this.x = x;
+		this.y = y;
+		square = (x < 0) ? -1 : player.getGame().getBoard().getIndex(x, y);
+	}
+
+	/**
+	 * Gets the index of the square that this ship is on (see {@link BoardState#getIndex(int, int)}).
+	 * @return The index of the square, or -1 if the ship hasn't been placed.
+	 */
+	public int getSquare() {
+		return square;
+	}
+
+	/**
+	 * Determines the square that this ship would go to if it moved in the given direction.
+	 * @param direction The direction to move in.
+	 * @return The index of the square in that direction, or {@link Geometry#NO_SQUARE} if it's off of the board or
+	 * the ship hasn't been placed.
+	 */
+	public int getSquareInDirection(BoardState.MoveDirection direction) {
+		if (square < 0) return Geometry.NO_SQUARE;
+		return player.getGame().getRules().getGeometry().getNeighbour(moveDirection, square, direction);
+	}
+
+	/**
+	 * Determines the x coordinate of the square that this ship would go to if it moved in the given direction.
+	 * @param direction The direction to move in.
+	 * @return The x coordinate of the square in that direction, which may be off of the board.
+	 */
+	public int getXInDirection(BoardState.MoveDirection direction) {
+		return x + BoardState.getXChange(moveDirection, direction);
+	}
+
+	/**
+	 * Determines the y coordinate of the square that this ship would go to if it moved in the given direction.
+	 * @param direction The direction to move in.
+	 * @return The y coordinate of the square in that direction, which may be off of the board.
+	 */
+	public int getYInDirection(BoardState.MoveDirection direction) {
+		return y + BoardState.getYChange(moveDirection, direction);
+	}
+
+	/**
+	 * Determines if this ship could legally move in the given direction, ignoring the number of moves its player has left.
+	 * @param direction The direction to move in.
+	 * @return True if the square in that direction can be moved to, false otherwise.
+	 */
+	public boolean canMoveInDirection(BoardState.MoveDirection direction) {
+		int target = getSquareInDirection(direction);
+		return target != Geometry.NO_SQUARE && !isDestroyed() && player.getGame().getBoard().canMoveToSquare(this, target);
+	}
+
+	/**
+	 * Determine if this ship can move, legally
+	 * @return True if the ship is allowed to move, false otherwise.
+	 */
+	public boolean canMove() {
+		if (player.getMovesLeft() <= 0) return false;
+		for (BoardState.MoveDirection direction : BoardState.MOVE_DIRECTIONS) {
+			if (canMoveInDirection(direction)) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Hits the ship, subtracting the given amount of damage from the ship's health.
+	 * @param damage The damage to be done to the ship
+	 * @return True if the hit destroyed the ship, false otherwise.
+	 */
+	boolean hit(int damage) {
+		if (isDestroyed()) return false;
+
+		// Subtract what's possible to be subtracted from the health.
+		int oldHealth = health;
+		health -= (damage > health) ? health : damage;
+		player.getGame().getBoard().healthChanged(this, oldHealth);
+
+		// If the ship has no more health left, you sunk my battleship!
+		if (isDestroyed()) player.getGame().getBoard().shipDestroyed(this);
+		return isDestroyed();
+	}
+
+	/**
+	 * Destroys the ship, leaving a wreck on its square.
+	 */
+	void destroy() {
+		if (!isDestroyed()) {
+			int oldHealth = health;
+			health = 0;
+			player.getGame().getBoard().healthChanged(this, oldHealth);
+			player.getGame().getBoard().shipDestroyed(this);
+		}
+	}
+
+	/**
+	 * Sets the health of this ship without destroying it on the board, for copying games. Only the game should do this.
+	 * @param health The new health.
+	 */
+	void setHealth(int health) {
+		int oldHealth = this.health;
+		this.health = health;
+		player.getGame().getBoard().healthChanged(this, oldHealth);
+	}
+
+	/**
+	 * Puts back the health that this ship had before an action, bringing it back to life if the action destroyed it.
+	 * Only the game should do this, when taking back an action.
+	 * @param health The health to put back.
+	 */
+	void restoreHealth(int health) {
+		boolean wasDestroyed = isDestroyed();
+		setHealth(health);
+		if (wasDestroyed && !isDestroyed()) player.getGame().getBoard().shipRevived(this);
+	}
+
+	/**
+	 * Determines if this ship has been sunk
+	 * @return True if the ship's been sunk, false otherwise.
+	 */
+	public boolean isDestroyed() {
+		return health <= 0;
+	}
+
+	/**
+	 * Gets this ship's current health
+	 * @return The health of the ship, between 0 and 100.
+	 */
+	public int getHealth() {
+		return health;
+	}
+
+	/**
+	 * Determines if this ship has been placed or not.
+	 * @return True if the ship has been placed, false otherwise.
+	 */
+	public boolean hasBeenPlaced() {
+		return x >= 0;
+	}
+
+	/**
+	 * Determines if this ship is in the enemy's territory which is used to determine if a player has won the game.
+	 * @return True if it's in enemy territory, false otherwise.
+	 */
+	public boolean isInEnemyTerritory() {
+		return player.getGame().getBoard().isInEnemyTerritory(this);
+	}
+}
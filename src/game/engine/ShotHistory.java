@@ -0,0 +1,316 @@
+package game.engine;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Every shot fired in a game, kept for each player as a list of the squares they fired at, whether each one hit, and
+ * where each turn's shots start in the list, along with a bitboard of every square that they've ever fired at. The
+ * bitboards are split into blocks that are only made once a shot lands in them, so only the shots actually fired take
+ * up room, and a long game on a huge board costs no more than its shots, rather than a board's worth of bits for
+ * every turn or even just one. Questions about one turn or the last few only go
+ * through the shots of those turns. A square fired at more than once in the same turn is only remembered once.
+ * <p>
+ * The game keeps one up to date as it's played (see {@link GameEngine#getShotHistory()}). Taking a
+ * {@link #snapshot()} is cheap, since the snapshot shares everything with the history until one of them is fired
+ * into again, and only then is it copied. Histories can be serialized, and a deserialized one has nothing to do with
+ * any game, so it's only for looking at.
+ */
+public class ShotHistory implements Serializable {
+	private static final long serialVersionUID = 3L;
+
+	// How many shots and turns there's room for to start with.
+	private static final int INITIAL_SHOTS = 64, INITIAL_TURNS = 16;
+
+	// How many squares each block of the fired at bitboards covers, as a power of 2, the number of words in a block
+	// and the mask for a square within its block.
+	private static final int BLOCK_BITS = 12, BLOCK_WORDS = 1 << (BLOCK_BITS - 6), BLOCK_MASK = (1 << BLOCK_BITS) - 1;
+
+	private final int numSquares;
+
+	// Each player's shots in the order they were fired, as the square index shifted up one with the lowest bit set for
+	// a hit, indexed by player then by shot, with room for more at the end, and how many each player has fired.
+	private int[][] shots;
+	private final int[] numShots = new int[2];
+
+	// Where each turn's shots start in each player's list, indexed by player then by turn less one, up to the last turn
+	// that they fired on. A turn that they didn't fire on starts where the next one does.
+	private int[][] turnStarts;
+	private final int[] lastTurns = new int[2];
+
+	// Every square that each player has ever fired at, so that asking for the squares never fired at is just one
+	// bitboard, indexed by player then by block, with null for the blocks that haven't been fired into.
+	private long[][][] everFired;
+
+	// The latest turn that anyone has fired on.
+	private int numTurns;
+
+	// Whether or not the arrays are shared with a snapshot, in which case they have to be copied before being changed.
+	private transient boolean shared;
+
+	/**
+	 * Makes an empty history for a board.
+	 * @param numSquares The number of squares on the board.
+	 */
+	public ShotHistory(int numSquares) {
+		this.numSquares = numSquares;
+		shots = new int[2][INITIAL_SHOTS];
+		turnStarts = new int[2][INITIAL_TURNS];
+		int numBlocks = (numSquares + BLOCK_MASK) >>> BLOCK_BITS;
+		everFired = new long[2][numBlocks][];
+	}
+
+	/**
+	 * Makes a history that shares everything with another one.
+	 */
+	private ShotHistory(ShotHistory other) {
+		numSquares = other.numSquares;
+		shots = other.shots;
+		System.arraycopy(other.numShots, 0, numShots, 0, 2);
+		turnStarts = other.turnStarts;
+		System.arraycopy(other.lastTurns, 0, lastTurns, 0, 2);
+		everFired = other.everFired;
+		numTurns = other.numTurns;
+		shared = true;
+	}
+
+	/**
+	 * Remembers a shot. Only the game should do this.
+	 * @param shooter The index of the player who fired.
+	 * @param turn The turn it was fired on, starting with 1, which can't be before the last turn that they fired on.
+	 * @param square The index of the square fired at.
+	 * @param hit Whether or not it hit a ship.
+	 */
+	void record(int shooter, int turn, int square, boolean hit) {
+		if (shared) unshare();
+		numTurns = Math.max(numTurns, turn);
+
+		// Start any turns since the last one that this player fired on where their list ends now.
+		if (turn > lastTurns[shooter]) {
+			if (turn > turnStarts[shooter].length) turnStarts[shooter] = Arrays.copyOf(turnStarts[shooter], Math.max(turn, turnStarts[shooter].length * 2));
+			Arrays.fill(turnStarts[shooter], lastTurns[shooter], turn, numShots[shooter]);
+			lastTurns[shooter] = turn;
+		}
+
+		int[] playerShots = shots[shooter];
+		// A square that's never been fired at can't have been fired at already this turn, so only look otherwise.
+		if (wasEverFiredAt(shooter, square)) {
+			for (int i = turnStarts[shooter][turn - 1]; i < numShots[shooter]; i++) {
+				if (playerShots[i] >>> 1 != square) continue;
+				if (hit) playerShots[i] |= 1;
+				return;
+			}
+		}
+
+		if (numShots[shooter] == playerShots.length) playerShots = shots[shooter] = Arrays.copyOf(playerShots, playerShots.length * 2);
+		playerShots[numShots[shooter]++] = square << 1 | (hit ? 1 : 0);
+
+		long[][] blocks = everFired[shooter];
+		int block = square >>> BLOCK_BITS;
+		if (blocks[block] == null) blocks[block] = new long[BLOCK_WORDS];
+		Bitboard.set(blocks[block], square & BLOCK_MASK);
+	}
+
+	/**
+	 * Copies the arrays that are shared with a snapshot, so that changing them doesn't change it.
+	 */
+	private void unshare() {
+		shots = new int[][] { shots[0].clone(), shots[1].clone() };
+		turnStarts = new int[][] { turnStarts[0].clone(), turnStarts[1].clone() };
+		everFired = new long[][][] { copyBlocks(everFired[0]), copyBlocks(everFired[1]) };
+		shared = false;
+	}
+
+	/**
+	 * Copies the blocks of a fired at bitboard, leaving out the ones that haven't been made.
+	 */
+	private static long[][] copyBlocks(long[][] blocks) {
+		long[][] copy = new long[blocks.length][];
+		for (int i = 0; i < blocks.length; i++) {
+			if (blocks[i] != null) copy[i] = blocks[i].clone();
+		}
+		return copy;
+	}
+
+	/**
+	 * Makes a copy of the history as it is now, which won't change as more shots are fired. Cheap, since nothing is
+	 * copied until a shot is recorded in this history.
+	 * @return The snapshot.
+	 */
+	public ShotHistory snapshot() {
+		shared = true;
+		return new ShotHistory(this);
+	}
+
+	/**
+	 * Gets the latest turn that anyone has fired on.
+	 * @return The number of turns in the history, 0 if nothing has been fired yet.
+	 */
+	public int getNumTurns() {
+		return numTurns;
+	}
+
+	/**
+	 * Determines if the given player fired at a square on a turn.
+	 * @param shooter The player.
+	 * @param turn The turn, starting with 1.
+	 * @param square The index of the square.
+	 * @return True if they fired at it, false otherwise or if the turn isn't in the history.
+	 */
+	public boolean wasFiredAt(PlayerState shooter, int turn, int square) {
+		return findShot(shooter.index, turn, square) >= 0;
+	}
+
+	/**
+	 * Determines if the given player hit a ship on a square on a turn.
+	 * @param shooter The player.
+	 * @param turn The turn, starting with 1.
+	 * @param square The index of the square.
+	 * @return True if they hit a ship there, false otherwise or if the turn isn't in the history.
+	 */
+	public boolean wasHit(PlayerState shooter, int turn, int square) {
+		int shot = findShot(shooter.index, turn, square);
+		return shot >= 0 && (shots[shooter.index][shot] & 1) != 0;
+	}
+
+	/**
+	 * Determines if the given player has ever fired at a square in this game.
+	 * @param shooter The player.
+	 * @param square The index of the square.
+	 * @return True if they've fired at it on any turn, false otherwise.
+	 */
+	public boolean wasEverFiredAt(PlayerState shooter, int square) {
+		return wasEverFiredAt(shooter.index, square);
+	}
+
+	/**
+	 * Determines if the player with the given index has ever fired at a square.
+	 */
+	private boolean wasEverFiredAt(int shooter, int square) {
+		long[] block = everFired[shooter][square >>> BLOCK_BITS];
+		return block != null && Bitboard.get(block, square & BLOCK_MASK);
+	}
+
+	/**
+	 * Finds where a player's shot at a square on a turn is in their list.
+	 * @return The index of the shot, or -1 if they didn't fire at the square on that turn.
+	 */
+	private int findShot(int shooter, int turn, int square) {
+		int[] playerShots = shots[shooter];
+		for (int i = getTurnStart(shooter, turn), end = getTurnEnd(shooter, turn); i < end; i++) {
+			if (playerShots[i] >>> 1 == square) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Gets where a turn's shots start in a player's list, which is the end of the list for turns after their last.
+	 */
+	private int getTurnStart(int shooter, int turn) {
+		if (turn < 1) return 0;
+		return (turn <= lastTurns[shooter]) ? turnStarts[shooter][turn - 1] : numShots[shooter];
+	}
+
+	/**
+	 * Gets where a turn's shots end in a player's list, which is where the next one starts.
+	 */
+	private int getTurnEnd(int shooter, int turn) {
+		if (turn < 1) return 0;
+		return (turn < lastTurns[shooter]) ? turnStarts[shooter][turn] : numShots[shooter];
+	}
+
+	/**
+	 * Gets the squares that the given player fired at on a turn.
+	 * @param shooter The player.
+	 * @param turn The turn, starting with 1.
+	 * @param result The bitboard to put the squares in (see {@link Bitboard#create(int)}).
+	 */
+	public void getFired(PlayerState shooter, int turn, long[] result) {
+		Bitboard.clearAll(result);
+		addShots(shooter.index, turn, turn, false, result);
+	}
+
+	/**
+	 * Gets the squares where the given player hit a ship on a turn.
+	 * @param shooter The player.
+	 * @param turn The turn, starting with 1.
+	 * @param result The bitboard to put the squares in (see {@link Bitboard#create(int)}).
+	 */
+	public void getHits(PlayerState shooter, int turn, long[] result) {
+		Bitboard.clearAll(result);
+		addShots(shooter.index, turn, turn, true, result);
+	}
+
+	/**
+	 * Gets the squares that the given player fired at on a turn without hitting anything.
+	 * @param shooter The player.
+	 * @param turn The turn, starting with 1.
+	 * @param result The bitboard to put the squares in (see {@link Bitboard#create(int)}).
+	 */
+	public void getMisses(PlayerState shooter, int turn, long[] result) {
+		Bitboard.clearAll(result);
+		int[] playerShots = shots[shooter.index];
+		for (int i = getTurnStart(shooter.index, turn), end = getTurnEnd(shooter.index, turn); i < end; i++) {
+			if ((playerShots[i] & 1) == 0) Bitboard.set(result, playerShots[i] >>> 1);
+		}
+	}
+
+	/**
+	 * Adds the squares of a player's shots over a range of turns to a bitboard.
+	 * @param onlyHits Whether to leave out the shots that missed.
+	 */
+	private void addShots(int shooter, int firstTurn, int lastTurn, boolean onlyHits, long[] result) {
+		if (firstTurn > lastTurn) return;
+		int[] playerShots = shots[shooter];
+		for (int i = getTurnStart(shooter, firstTurn), end = getTurnEnd(shooter, lastTurn); i < end; i++) {
+			if (!onlyHits || (playerShots[i] & 1) != 0) Bitboard.set(result, playerShots[i] >>> 1);
+		}
+	}
+
+	/**
+	 * Gets the squares that the given player has never fired at.
+	 * @param shooter The player.
+	 * @param result The bitboard to put the squares in (see {@link Bitboard#create(int)}).
+	 */
+	public void getNeverFiredAt(PlayerState shooter, long[] result) {
+		long[][] blocks = everFired[shooter.index];
+		int length = (numSquares + 63) >>> 6;
+		for (int i = 0; i < length; i++) {
+			long[] block = blocks[i / BLOCK_WORDS];
+			result[i] = (block != null) ? ~block[i % BLOCK_WORDS] : -1L;
+		}
+		// Leave out the bits past the last square.
+		if ((numSquares & 63) != 0) result[length - 1] &= (1L << numSquares) - 1;
+	}
+
+	/**
+	 * Gets every square where the given player hit a ship in the last few turns.
+	 * @param shooter The player.
+	 * @param turns How many of the latest turns to look at, counting the current one.
+	 * @param result The bitboard to put the squares in (see {@link Bitboard#create(int)}).
+	 */
+	public void getRecentHits(PlayerState shooter, int turns, long[] result) {
+		Bitboard.clearAll(result);
+		addShots(shooter.index, Math.max(1, numTurns - turns + 1), numTurns, true, result);
+	}
+
+	/**
+	 * Works out how often each square has been a miss for the given player over the last few turns: the share of
+	 * those turns that they fired at it without hitting anything.
+	 * @param shooter The player.
+	 * @param turns How many of the latest turns to look at, counting the current one.
+	 * @param density Where to put the share for each square, indexed by square index, between 0 and 1.
+	 */
+	public void getMissDensity(PlayerState shooter, int turns, double[] density) {
+		Arrays.fill(density, 0, numSquares, 0);
+		int first = Math.max(1, numTurns - turns + 1);
+		if (first > numTurns) return;
+
+		// Each square is only in a turn's shots once, so every miss in the range counts for one turn.
+		int[] playerShots = shots[shooter.index];
+		double share = 1.0 / (numTurns - first + 1);
+		for (int i = getTurnStart(shooter.index, first), end = getTurnEnd(shooter.index, numTurns); i < end; i++) {
+			if ((playerShots[i] & 1) == 0) density[playerShots[i] >>> 1] += share;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package game.engine;
+
+import java.util.Random;
+
+/**
+ * Settles contests instantly by making up a click race: each ship's number of clicks is drawn from a normal
+ * distribution, and the contest is then settled by the usual rule (see {@link Contest#settle(int, int)}).
+ * Seeded, so that the same seed gives the same results every time.
+ */
+public class StochasticContestResolver implements ContestResolver {
+	/**
+	 * The average number of clicks in a ten second click race, and how much that varies between races.
+	 */
+	public static final double DEFAULT_MEAN_CLICKS = 60, DEFAULT_CLICKS_DEVIATION = 10;
+
+	private final Random random;
+	private final double meanClicks, clicksDeviation;
+
+	/**
+	 * Makes a new resolver that draws clicks with the default mean and deviation.
+	 * @param seed The seed for the random numbers.
+	 */
+	public StochasticContestResolver(long seed) {
+		this(seed, DEFAULT_MEAN_CLICKS, DEFAULT_CLICKS_DEVIATION);
+	}
+
+	/**
+	 * Makes a new resolver.
+	 * @param seed The seed for the random numbers.
+	 * @param meanClicks The average number of clicks each ship makes.
+	 * @param clicksDeviation The standard deviation of the number of clicks each ship makes.
+	 */
+	public StochasticContestResolver(long seed, double meanClicks, double clicksDeviation) {
+		this.random = new Random(seed);
+		this.meanClicks = meanClicks;
+		this.clicksDeviation = clicksDeviation;
+	}
+
+	@Override
+	public void resolve(Contest contest) {
+		contest.settle(drawClicks(), drawClicks());
+	}
+
+	/**
+	 * Makes up a click race for a contest that isn't handed to a resolver, such as one started by
+	 * {@link GameEngine#makeMove(int, boolean)}. The clicks are drawn just as {@link #resolve(Contest)} draws them.
+	 * @return True if the contester wins the race, false if the defender does.
+	 */
+	public boolean drawContesterWins() {
+		int defenderClicks = drawClicks();
+		return drawClicks() > defenderClicks;
+	}
+
+	// Draws the number of clicks for one ship, which can't be negative.
+	private int drawClicks() {
+		return (int) Math.max(0, Math.round(meanClicks + random.nextGaussian() * clicksDeviation));
+	}
+}
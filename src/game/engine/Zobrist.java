@@ -0,0 +1,95 @@
+package game.engine;
+
+/**
+ * The random numbers that positions are hashed with (Zobrist hashing). Every part of a position, such as a ship being
+ * on a square or having a certain amount of health, has its own 64 bit key, and the hash of a position is all of its
+ * keys XORed together. Changing one part of a position only takes XORing its old key out and its new one in, so the
+ * board keeps its hash up to date as ships move and take damage (see {@link BoardState#getHash()}), and
+ * {@link GameEngine#getHash()} only adds in the few numbers that aren't on the board.
+ * <p>
+ * Keys are worked out from what they're for with a mixing function rather than looked up, so there are no tables to
+ * size for the rules, and the keys are the same in every game and every run.
+ */
+public final class Zobrist {
+	// A different starting point for each kind of key, so that no two kinds line up.
+	private static final long SHIP_SQUARE = 0x5851f42d4c957f2dL, SHIP_HEALTH = 0x14057b7ef767814fL, STATE = 0x2545f4914f6cdd1dL,
+			TURN = 0x9e3779b97f4a7c15L, MOVES_LEFT = 0x27bb2ee687b0b0fdL, SHOTS_LEFT = 0xd6e8feb86659fd93L;
+
+	/**
+	 * XORed into a hash to tell apart the same position with the other player to move, for searches that alternate
+	 * between the players.
+	 */
+	public static final long SECOND_PLAYER_TO_MOVE = mix(0x7c3f1d8a2b6e4f59L);
+
+	private Zobrist() {}
+
+	/**
+	 * Gets the key for a ship being on a square.
+	 * @param ship The index of the ship (see {@link ShipState#index}).
+	 * @param square The index of the square (see {@link BoardState#getIndex(int, int)}).
+	 * @return The key.
+	 */
+	public static long getShipSquareKey(int ship, int square) {
+		return mix(SHIP_SQUARE + ((long) ship << 32) + square);
+	}
+
+	/**
+	 * Gets the key for a ship having a certain amount of health, which is 0 once it's destroyed.
+	 * @param ship The index of the ship (see {@link ShipState#index}).
+	 * @param health The health of the ship.
+	 * @return The key.
+	 */
+	public static long getShipHealthKey(int ship, int health) {
+		return mix(SHIP_HEALTH + ((long) ship << 32) + health);
+	}
+
+	/**
+	 * Gets the key for the game being in a certain stage.
+	 * @param state The stage of the game.
+	 * @return The key.
+	 */
+	public static long getStateKey(GameEngine.GameState state) {
+		return mix(STATE + state.ordinal());
+	}
+
+	/**
+	 * Gets the key for the game being on a certain turn.
+	 * @param turn The turn number.
+	 * @return The key.
+	 */
+	public static long getTurnKey(int turn) {
+		return mix(TURN + turn);
+	}
+
+	/**
+	 * Gets the key for a player having a certain number of moves left this turn.
+	 * @param player The index of the player.
+	 * @param movesLeft The number of moves left.
+	 * @return The key.
+	 */
+	public static long getMovesLeftKey(int player, int movesLeft) {
+		return mix(MOVES_LEFT + ((long) player << 32) + movesLeft);
+	}
+
+	/**
+	 * Gets the key for a player having a certain number of shots left this turn.
+	 * @param player The index of the player.
+	 * @param shotsLeft The number of shots left.
+	 * @return The key.
+	 */
+	public static long getShotsLeftKey(int player, int shotsLeft) {
+		return mix(SHOTS_LEFT + ((long) player << 32) + shotsLeft);
+	}
+
+	/**
+	 * Scrambles a number so that numbers that are close together give keys that have nothing in common (the
+	 * finalizer of splitmix64).
+	 * @param value The number to scramble.
+	 * @return The scrambled number.
+	 */
+	static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+		value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+		return value ^ (value >>> 31);
+	}
+}
@@ -3,34 +3,32 @@ package game.player;
 import javafx.scene.paint.Color;
 import main.BattleshipGalactica;
 
-import java.util.HashMap;
-
 import game.Game;
+import game.engine.PlayerState;
 import javafx.scene.input.KeyCode;
 
 public class IMC extends Player {
 	
-	public HashMap<String, KeyCode> getKeyBindings() {
-		return new HashMap<String, KeyCode>() {
-			private static final long serialVersionUID = 1L;
-
-			{
-					put(UP, KeyCode.UP);
-					put(DOWN, KeyCode.DOWN);
-					put(LEFT ,KeyCode.LEFT);
-					put(RIGHT, KeyCode.RIGHT);
-					put(ENTER, KeyCode.ENTER);
-					put(TOGGLE_HIDE, KeyCode.H);
-					put (CANCEL, KeyCode.BACK_SPACE);
-			}};
+	@Override
+	protected KeyBindings getDefaultKeyBindings() {
+		KeyBindings bindings = new KeyBindings();
+		bindings.bind(KeyBindings.Action.UP, KeyCode.UP);
+		bindings.bind(KeyBindings.Action.DOWN, KeyCode.DOWN);
+		bindings.bind(KeyBindings.Action.LEFT, KeyCode.LEFT);
+		bindings.bind(KeyBindings.Action.RIGHT, KeyCode.RIGHT);
+		bindings.bind(KeyBindings.Action.ENTER, KeyCode.ENTER);
+		bindings.bind(KeyBindings.Action.TOGGLE_HIDE, KeyCode.H);
+		bindings.bind(KeyBindings.Action.CANCEL, KeyCode.BACK_SPACE);
+		return bindings;
 	}
 	
 	/**
 	 * An IMC player
 	 * @param game the game that this player is playing.
+	 * @param state the state of this player in the game's engine.
 	 */
-	public IMC(Game game, Player.StartSide side) {
-		super(game, side);
+	public IMC(Game game, PlayerState state) {
+		super(game, state);
 	}
 	
 	public Color getSelectionColour() { return Color.BLUE; }
@@ -0,0 +1,124 @@
+package game.player;
+
+import java.util.prefs.Preferences;
+
+import javafx.scene.input.KeyCode;
+
+/**
+ * The keys that one player uses for each of their actions. Bindings are kept in a table indexed by
+ * {@link KeyCode#ordinal()}, so finding out what a key does is a single array lookup with nothing allocated,
+ * and can be changed at any time. They can also be saved to and loaded from the user's preferences so that
+ * they're remembered the next time the game is played.
+ */
+public class KeyBindings {
+	/**
+	 * The things that a player can do with the keyboard.
+	 */
+	public static enum Action {
+		UP, DOWN, LEFT, RIGHT, ENTER, TOGGLE_HIDE, CANCEL;
+	}
+
+	/**
+	 * Cached so that we don't copy the values array every time we go through the actions.
+	 */
+	static final Action[] ACTIONS = Action.values();
+
+	// The preferences node that everyone's bindings are saved under.
+	private static final Preferences PREFERENCES = Preferences.userNodeForPackage(KeyBindings.class).node("keyBindings");
+
+	// The action of each key, indexed by the key's ordinal, or null if the key doesn't do anything.
+	private final Action[] actionsByKey = new Action[KeyCode.values().length];
+
+	// The key for each action, indexed by the action's ordinal.
+	private final KeyCode[] keysByAction = new KeyCode[ACTIONS.length];
+
+	/**
+	 * Gets the action that the given key does.
+	 * @param key The key that was pressed.
+	 * @return The action bound to that key, or null if it isn't bound to anything.
+	 */
+	public Action getAction(KeyCode key) {
+		return actionsByKey[key.ordinal()];
+	}
+
+	/**
+	 * Gets the key that the given action is bound to.
+	 * @param action The action.
+	 * @return The key for that action, or null if it isn't bound.
+	 */
+	public KeyCode getKey(Action action) {
+		return keysByAction[action.ordinal()];
+	}
+
+	/**
+	 * Binds the given action to the given key. If the key was already used by another action, the two swap keys
+	 * so that no action is ever left without one.
+	 * @param action The action to bind.
+	 * @param key The key to bind it to.
+	 */
+	public void bind(Action action, KeyCode key) {
+		KeyCode oldKey = keysByAction[action.ordinal()];
+		Action oldAction = actionsByKey[key.ordinal()];
+
+		if (oldKey != null) actionsByKey[oldKey.ordinal()] = null;
+		// Give the action that used to have this key the key that we're taking away, if there was one.
+		if (oldAction != null && oldAction != action) {
+			keysByAction[oldAction.ordinal()] = oldKey;
+			if (oldKey != null) actionsByKey[oldKey.ordinal()] = oldAction;
+		}
+
+		keysByAction[action.ordinal()] = key;
+		actionsByKey[key.ordinal()] = action;
+	}
+
+	/**
+	 * Gets all of the keys used, in the order of their actions.
+	 * @return A new array of the bound keys, without any actions that aren't bound.
+	 */
+	public KeyCode[] getKeys() {
+		int count = 0;
+		for (KeyCode key : keysByAction) {
+			if (key != null) count++;
+		}
+
+		KeyCode[] keys = new KeyCode[count];
+		count = 0;
+		for (KeyCode key : keysByAction) {
+			if (key != null) keys[count++] = key;
+		}
+		return keys;
+	}
+
+	/**
+	 * Replaces any of these bindings that were saved before under the given name with the saved ones.
+	 * Bindings that were never saved, or that can't be read, are left as they are.
+	 * @param name The name the bindings were saved under, such as the player's name.
+	 */
+	public void load(String name) {
+		Preferences node = PREFERENCES.node(name);
+		for (Action action : ACTIONS) {
+			String keyName = node.get(action.name(), null);
+			if (keyName == null) continue;
+
+			try {
+				bind(action, KeyCode.valueOf(keyName));
+			}
+			catch (IllegalArgumentException e) {
+				// Saved by some other version of JavaFX that has keys we don't. Just keep the current key.
+			}
+		}
+	}
+
+	/**
+	 * Saves these bindings under the given name so that they can be loaded in a later game.
+	 * @param name The name to save the bindings under, such as the player's name.
+	 */
+	public void save(String name) {
+		Preferences node = PREFERENCES.node(name);
+		for (Action action : ACTIONS) {
+			KeyCode key = getKey(action);
+			if (key != null) node.put(action.name(), key.name());
+			else node.remove(action.name());
+		}
+	}
+}
@@ -0,0 +1,243 @@
+package game.player;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import game.Game;
+import game.ai.AdvancePolicy;
+import game.ai.MonteCarloTreeSearch;
+import game.ai.MovementSearch;
+import game.engine.BeliefState;
+import game.engine.BoardState;
+import game.engine.GameEngine;
+import game.engine.GameListener;
+import game.engine.MoveGenerator;
+import game.engine.PlayerState;
+import game.engine.ShipState;
+import game.engine.StochasticContestResolver;
+import game.ships.Ship;
+import javafx.application.Platform;
+import manipulation.PlayerManipulation;
+
+/**
+ * A computer controlled player, which plays the Militia's side of the board and picks every placement, shot and move
+ * with {@link MonteCarloTreeSearch}, or moves with {@link MovementSearch} when it can see every enemy ship. It only
+ * uses what a person sitting in its seat could see: enemy ships that are hidden on screen are guessed at from a
+ * {@link BeliefState}, unless it has just hit them and they haven't had the chance to move since.
+ * <p>
+ * The searching happens on a background thread so that the game keeps animating while the computer thinks, and the
+ * action it picks is only carried out if the game is still where it was when it started thinking.
+ */
+public class MCTSPlayer extends Militia {
+	/**
+	 * How long the computer thinks about each action by default, in nanoseconds.
+	 */
+	public static final long DEFAULT_BUDGET = 200000000;
+	
+	/**
+	 * How many times a second the computer presses its select key in a battle.
+	 */
+	public static final double CLICK_RATE = 7;
+	
+	private final MonteCarloTreeSearch search = new MonteCarloTreeSearch(new AdvancePolicy());
+	
+	// Used instead of the tree search for moves once none of the enemy's ships are hidden, since then there's nothing to guess.
+	private final MovementSearch movementSearch = new MovementSearch();
+	private final long budget;
+	
+	// Whether or not the computer is working out its next action, so that it only ever works on one at a time.
+	private boolean thinking;
+	
+	// The one background thread that the computer thinks on, which waits on the searches' pools. It goes away when the
+	// computer hasn't had anything to think about for a while, so an old game's player doesn't keep a thread around.
+	private final ThreadPoolExecutor thinker = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, getName() + " thinking");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+	
+	// The number of searches so far, which seeds the next one.
+	private long searches;
+	
+	// Where the computer thinks the enemy's ships are, from what it's seen of the game.
+	private final BeliefState belief;
+	
+	/**
+	 * A computer player that thinks for the default amount of time.
+	 * @param game the game that this player is playing
+	 * @param state the state of this player in the game's engine
+	 */
+	public MCTSPlayer(Game game, PlayerState state) {
+		this(game, state, DEFAULT_BUDGET);
+	}
+	
+	/**
+	 * A computer player.
+	 * @param game the game that this player is playing
+	 * @param state the state of this player in the game's engine
+	 * @param budget How long to think about each action, in nanoseconds.
+	 */
+	public MCTSPlayer(Game game, PlayerState state, long budget) {
+		super(game, state);
+		this.budget = budget;
+		thinker.allowCoreThreadTimeOut(true);
+	
+		belief = new BeliefState(state);
+		game.getEngine().addListener(belief);
+	}
+	
+	@Override
+	protected KeyBindings getDefaultKeyBindings() {
+		// Nothing to press, the computer acts on its own.
+		return new KeyBindings();
+	}
+	
+	@Override
+	protected String getKeyBindingsHelp() {
+		return "Computer controlled.\n";
+	}
+	
+	@Override
+	public double getAutomaticClickRate() {
+		return CLICK_RATE;
+	}
+	
+	@Override
+	public void addShip(Ship ship) {
+		super.addShip(ship);
+		// Keep the computer's ships hidden from its opponent, as a person would.
+		toggleHide(true);
+	}
+	
+	@Override
+	public void gameUpdated() {
+		if (thinking || !canAct()) return;
+		thinking = true;
+	
+		// Wait until whatever changed the game has completely finished before looking at it.
+		Platform.runLater(new Runnable() {
+			@Override
+			public void run() {
+				think();
+			}
+		});
+	}
+	
+	/**
+	 * Determines if the computer has something to do right now.
+	 * @return True if the game is waiting on one of its placements, shots or moves.
+	 */
+	private boolean canAct() {
+		GameEngine engine = game.getEngine();
+		if (engine.getPendingContest() != null) return false;
+	
+		switch (engine.getState()) {
+		case ShipPlacement: return state.getNumShipsUnplaced() > 0;
+		case Firing: return state.canShoot();
+		case Movement: return state.canMove();
+		default: return false;
+		}
+	}
+	
+	/**
+	 * Starts working out the next action on a background thread. Called on the JavaFX thread.
+	 */
+	private void think() {
+		if (!canAct()) {
+			thinking = false;
+			return;
+		}
+	
+		// The search gets its own copy, since the real game keeps changing while it thinks. Its workers are seeded with
+		// the seed and the numbers after it, so the copy's contests are seeded with its complement instead.
+		final long seed = searches++;
+		final GameEngine engine = game.getEngine();
+		final GameEngine position = engine.copy(GameListener.NONE, new StochasticContestResolver(~seed));
+		final boolean[] hidden = getHiddenShips();
+		final double[] heatmap = new double[engine.getBoard().getNumSquares()];
+		belief.getHeatmap(heatmap);
+		final GameEngine.GameState gameState = engine.getState();
+		final int turn = engine.getTurn();
+	
+		thinker.execute(new Runnable() {
+			@Override
+			public void run() {
+				final int action = (gameState.equals(GameEngine.GameState.Movement) && !isAnyHidden(hidden))
+						? movementSearch.search(position, state.index, budget, ForkJoinPool.commonPool()).move
+						: search.search(position, state.index, hidden, heatmap, budget, seed);
+				Platform.runLater(new Runnable() {
+					@Override
+					public void run() {
+						thinking = false;
+						// Only act if nothing happened that the search didn't know about, like the game ending.
+						if (action >= 0 && engine.getState().equals(gameState) && engine.getTurn() == turn && canAct()) act(action);
+						// Either way, see if there's anything else to do.
+						gameUpdated();
+					}
+				});
+			}
+		});
+	}
+	
+	/**
+	 * Carries out an action that the search picked, moving this player's selection to where it happens.
+	 * @param action A square index for placements and shots, a packed move for moves.
+	 */
+	private void act(int action) {
+		GameEngine engine = game.getEngine();
+		BoardState board = engine.getBoard();
+		switch (engine.getState()) {
+		case ShipPlacement:
+			PlayerManipulation.moveTo(this, board.getXOfIndex(action), board.getYOfIndex(action));
+			engine.placeShip(state, x, y);
+			break;
+		case Firing:
+			PlayerManipulation.moveTo(this, board.getXOfIndex(action), board.getYOfIndex(action));
+			engine.shoot(state, x, y);
+			break;
+		case Movement:
+			ShipState ship = board.getShips()[MoveGenerator.getShipIndex(action)];
+			BoardState.MoveDirection direction = MoveGenerator.getDirection(action);
+			PlayerManipulation.moveTo(this, ship.getXInDirection(direction), ship.getYInDirection(direction));
+			engine.moveShip(action);
+			break;
+		default:
+		}
+	}
+	
+	/**
+	 * Works out which enemy ships the computer can't see right now.
+	 * @return Whether or not each ship is hidden, indexed by {@link ShipState#index}.
+	 */
+	private boolean[] getHiddenShips() {
+		boolean[] hidden = new boolean[game.getEngine().getBoard().getShips().length];
+		for (ShipState ship : state.getOpponent().getShips()) {
+			hidden[ship.index] = ship.hasBeenPlaced() && !ship.isDestroyed() && belief.getKnownSquare(ship) < 0
+					&& !game.getBoard().getShip(ship).isVisible();
+		}
+		return hidden;
+	}
+	
+	/**
+	 * Determines if the computer has to guess where any of the enemy's ships are.
+	 * @param hidden Whether or not each ship is hidden, as given by {@link #getHiddenShips()}.
+	 * @return True if at least one ship is hidden.
+	 */
+	private static boolean isAnyHidden(boolean[] hidden) {
+		for (boolean shipHidden : hidden) {
+			if (shipHidden) return true;
+		}
+		return false;
+	}
+	
+	@Override
+	public String getName() {
+		return "Computer";
+	}
+}
@@ -3,33 +3,32 @@ package game.player;
 import javafx.scene.paint.Color;
 import main.BattleshipGalactica;
 
-import java.util.HashMap;
-
 import game.Game;
+import game.engine.PlayerState;
 import javafx.scene.input.KeyCode;
 
 public class Militia extends Player{
 	
-	public HashMap<String, KeyCode> getKeyBindings() { 
-		return new HashMap<String, KeyCode>() {
-			private static final long serialVersionUID = 1L;
-			{
-				put(UP, KeyCode.W);
-				put(DOWN, KeyCode.S);
-				put(LEFT ,KeyCode.A);
-				put(RIGHT, KeyCode.D);
-				put(ENTER, KeyCode.TAB);
-				put(TOGGLE_HIDE, KeyCode.Q);
-				put(CANCEL, KeyCode.ESCAPE);
-			}};
+	@Override
+	protected KeyBindings getDefaultKeyBindings() {
+		KeyBindings bindings = new KeyBindings();
+		bindings.bind(KeyBindings.Action.UP, KeyCode.W);
+		bindings.bind(KeyBindings.Action.DOWN, KeyCode.S);
+		bindings.bind(KeyBindings.Action.LEFT, KeyCode.A);
+		bindings.bind(KeyBindings.Action.RIGHT, KeyCode.D);
+		bindings.bind(KeyBindings.Action.ENTER, KeyCode.TAB);
+		bindings.bind(KeyBindings.Action.TOGGLE_HIDE, KeyCode.Q);
+		bindings.bind(KeyBindings.Action.CANCEL, KeyCode.ESCAPE);
+		return bindings;
 	}
 	
 	/**
 	 * A militia player
 	 * @param game the game that this player is playing
+	 * @param state the state of this player in the game's engine
 	 */
-	public Militia(Game game, StartSide side) {
-		super(game, side);
+	public Militia(Game game, PlayerState state) {
+		super(game, state);
 	}
 	
 	public Color getSelectionColour() { return Color.ORANGE; }
@@ -1,12 +1,13 @@
 package game.player;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.function.Consumer;
 
 import game.Game;
-import game.board.Board;
 import game.board.Square;
+import game.engine.BoardState;
+import game.engine.PlayerState;
 import game.ships.Ship;
 import javafx.scene.Node;
 import javafx.scene.image.ImageView;
@@ -15,27 +16,17 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextAlignment;
 import main.BattleshipGalactica;
-import main.InputHandler;
 import manipulation.PlayerManipulation;
 import manipulation.ShipManipulation;
 
 public abstract class Player {
-	public static enum StartSide {
-		TopLeft, BottomRight
-	}
-	
 	// The current position (selection) of the player.
 	public int x, y;
 	
-	// The starting position of the player
-	private final int start_x, start_y;
-	
 	/**
-	 * The amount of damage that this player does when hitting a ship with a cannon ball.
+	 * The state of this player in the game's engine.
 	 */
-	private static int damage = 50;
-	
-	private StartSide startSide;
+	protected final PlayerState state;
 	
 	/**
 	 * The player's ships
@@ -45,56 +36,81 @@ public abstract class Player {
 	// The ship currently selected by this player
 	protected Ship selectedShip;
 	
-	protected static int NUM_SHOTS = 4, NUM_MOVES = 4;
-	
-	/**
-	 * Sets a new number of shots for all players 
-	 * @param newShots The new number of shots to set.
-	 */
-	public static void setNewTotalShots(int newShots) {
-		NUM_SHOTS = newShots;
-	}
-	protected int numShotsLeft = NUM_SHOTS, numMovesLeft = NUM_MOVES;
-	
 	// Some things displayed on the board to help the user know what's going on.
 	protected Text keyBindingsHelp, shotsLeftDisplay, movesLeftDisplay, shipsLeftDisplay;
 	
 	// The board object on which this player is playing.
 	protected Game game;
 	
-	public static final String UP = "UP", DOWN = "DOWN", LEFT = "LEFT", RIGHT = "RIGHT", ENTER = "ENTER", TOGGLE_HIDE = "TOGGLE_HIDE", CANCEL = "CANCEL";
+	/**
+	 * The keys that this player uses for each of their actions.
+	 */
+	protected final KeyBindings keyBindings = new KeyBindings();
+	
+	// Passed to the game's input for every one of this player's keys, so it's made only once.
+	private final Consumer<KeyCode> keyHandler = new Consumer<KeyCode>() {
+		@Override
+		public void accept(KeyCode t) {
+			onKeyPressed(t);
+		}
+	};
 	
 	/**
 	 * Instantiates a player object.
 	 * @param game The game to which this player belongs
+	 * @param state The state of this player in the game's engine.
 	 */
-	public Player(Game game, StartSide side) {
+	public Player(Game game, PlayerState state) {
 		this.game = game;
-		startSide = side;
-		
-		// Set the start position of this player based on the start side.
-		if (side.equals(StartSide.BottomRight)) {
-			start_x = Board.NUM_COLUMNS - 1;
-			start_y = Board.NUM_ROWS - 1;
+		this.state = state;
+	}
+	
+	/**
+	 * Binds this player's actions to the keys that this type of player starts with. Done for every player before any
+	 * of them load their saved keys (see {@link #loadKeyBindings()}).
+	 */
+	public void bindDefaultKeys() {
+		KeyBindings defaults = getDefaultKeyBindings();
+		for (KeyBindings.Action action : KeyBindings.ACTIONS) {
+			KeyCode key = defaults.getKey(action);
+			if (key != null) keyBindings.bind(action, key);
 		}
-		else {
-			start_x = 0;
-			start_y = 0;
+	}
+	
+	/**
+	 * Uses the keys that the user picked for this player in an earlier game instead of the default ones, then begins
+	 * to listen for them. A saved key that another player in this game already uses is left out, and the action keeps
+	 * its default key, since one press would otherwise go to both players. That happens when a key was picked in a game
+	 * against the computer, which has no keys of its own to check against.
+	 */
+	public void loadKeyBindings() {
+		KeyBindings saved = new KeyBindings();
+		saved.load(getName());
+		for (KeyBindings.Action action : KeyBindings.ACTIONS) {
+			KeyCode key = saved.getKey(action);
+			if (key != null && !isUsedByOtherPlayer(key)) keyBindings.bind(action, key);
 		}
 		
 		setKeyBindings();
 	}
 	
+	/**
+	 * Determines if another player in the game uses the given key for any of their actions.
+	 * @param key The key.
+	 * @return True if another player uses it, false otherwise.
+	 */
+	private boolean isUsedByOtherPlayer(KeyCode key) {
+		for (Player player : game.getPlayers()) {
+			if (player != this && player.getKeyBindings().getAction(key) != null) return true;
+		}
+		return false;
+	}
+	
 	/**
 	 * Begins to listen for this player's key bindings to be pressed.
 	 */
 	public void setKeyBindings() {
-		InputHandler.addKeyBindings(getKeysUsed().values(), new Consumer<KeyCode>() {
-			@Override
-			public void accept(KeyCode t) {
-				onKeyPressed(t);
-			}
-		});
+		game.getInput().addKeyBindings(Arrays.asList(keyBindings.getKeys()), keyHandler);
 	}
 	
 	/**
@@ -102,36 +118,61 @@ public abstract class Player {
 	 * @param key The key that was pressed.
 	 */
 	private void onKeyPressed(KeyCode key) {
-		HashMap<String, KeyCode> keyBindings = getKeyBindings();
-		if (key.equals(keyBindings.get(UP))) game.boardManipulation.move(this, Board.MoveDirection.up);
-		else if (key.equals(keyBindings.get(DOWN))) game.boardManipulation.move(this, Board.MoveDirection.down);
-		else if (key.equals(keyBindings.get(LEFT))) game.boardManipulation.move(this, Board.MoveDirection.left);
-		else if (key.equals(keyBindings.get(RIGHT))) game.boardManipulation.move(this, Board.MoveDirection.right);
-		else if (key.equals(keyBindings.get(ENTER))) ShipManipulation.enterPressed(this);
-		else if (key.equals(keyBindings.get(TOGGLE_HIDE))) toggleHide();
-		else if (key.equals(keyBindings.get(CANCEL))) setSelectedShip(null);
+		KeyBindings.Action action = keyBindings.getAction(key);
+		if (action == null) return;
+		
+		switch (action) {
+		case UP: game.boardManipulation.move(this, BoardState.MoveDirection.up); break;
+		case DOWN: game.boardManipulation.move(this, BoardState.MoveDirection.down); break;
+		case LEFT: game.boardManipulation.move(this, BoardState.MoveDirection.left); break;
+		case RIGHT: game.boardManipulation.move(this, BoardState.MoveDirection.right); break;
+		case ENTER: ShipManipulation.enterPressed(this); break;
+		case TOGGLE_HIDE: toggleHide(); break;
+		case CANCEL: setSelectedShip(null); break;
+		}
+	}
+	
+	/**
+	 * Gets the keys that this player uses for each of their actions.
+	 * @return This player's key bindings.
+	 */
+	public KeyBindings getKeyBindings() {
+		return keyBindings;
 	}
 	
 	/**
-	 * Gets the key bindings for the specific 
-	 * @return
+	 * Makes the key bindings that this type of player starts with before the user changes any of them.
+	 * @return New default key bindings.
 	 */
-	public abstract HashMap<String, KeyCode> getKeyBindings();
+	protected abstract KeyBindings getDefaultKeyBindings();
 	
 	/**
-	 * Returns a list of the keys that this player uses
-	 * @return The keys used by this player.
+	 * Binds one of this player's actions to a different key, starting right away and in every game after this one.
+	 * If this player already uses the key for something else, the two actions swap keys.
+	 * @param action The action to rebind.
+	 * @param key The new key for the action.
+	 * @return True if the key was rebound, false if another player in the game already uses that key.
 	 */
-	public HashMap<String, KeyCode> getKeysUsed() {
-		return getKeyBindings();
+	public boolean rebind(KeyBindings.Action action, KeyCode key) {
+		// Don't steal another player's key, or they'd stop being able to use it.
+		if (isUsedByOtherPlayer(key)) return false;
+		
+		game.getInput().removeKeyBindings(Arrays.asList(keyBindings.getKeys()));
+		keyBindings.bind(action, key);
+		keyBindings.save(getName());
+		setKeyBindings();
+		
+		// Keep the help in the sidebar up to date.
+		if (keyBindingsHelp != null) keyBindingsHelp.setText(getKeyBindingsHelp());
+		return true;
 	}
 	
 	/**
 	 * Resets the player's position to the starting position.
 	 */
 	public void resetPosition() {
-		x = start_x;
-		y = start_y;
+		x = state.getStartX();
+		y = state.getStartY();
 		PlayerManipulation.moveTo(this, x, y);
 	}
 	
@@ -149,6 +190,14 @@ public abstract class Player {
 		return game;
 	}
 	
+	/**
+	 * Gets the state of this player in the game's engine.
+	 * @return This player's state.
+	 */
+	public PlayerState getPlayerState() {
+		return state;
+	}
+	
 	/**
 	 * Gets the ImageView for this player's icon.
 	 * @return This player's icon.
@@ -175,8 +224,8 @@ public abstract class Player {
 	 * Gets the starting side of this Player, bottom right or top left
 	 * @return The start side of this player.
 	 */
-	public StartSide getStartPosition() {
-		return startSide;
+	public PlayerState.StartSide getStartPosition() {
+		return state.getStartPosition();
 	}
 	
 	/**
@@ -185,7 +234,7 @@ public abstract class Player {
 	 */
 	public Square getStartSquare() {
 		// Get the square at start position.
-		return game.getBoard().getSquare(start_x, start_y);
+		return game.getBoard().getSquare(state.getStartX(), state.getStartY());
 	}
 	
 	/**
@@ -193,30 +242,30 @@ public abstract class Player {
 	 * @return The number of ships that the player has left.
 	 */
 	public int getNumShipsLeft() {
-		int left = 0;
-		
-		// Iterate through each ship and then add to the counter each time we find a ship that's alive.
-		for (Ship ship : ships) {
-			if (!ship.isDestroyed()) left++;
-		}
-		
-		
-		// Return the results.
-		return left;
+		return state.getNumShipsLeft();
 	}
 	
 	/**
 	 * Shoots the given square 
-	 * @param squareToShoot
+	 * @param squareToShoot The square to fire at.
 	 */
 	public void shoot(Square squareToShoot) {
-		// Only shoot at a square if we have shots left and if that square is usable.
-		if (canShoot() && squareToShoot.isUsable() && squareToShoot.hasEnemyOrNothing(this)) { 
-			numShotsLeft--;
-			squareToShoot.shoot(this);
-			game.refreshState();
-			setShotsLeftDisplay();
+		game.getEngine().shoot(state, squareToShoot.xCoordinate, squareToShoot.yCoordinate);
+	}
+	
+	/**
+	 * Shoots all of the given squares at once, as one salvo, so that the game and this player's sidebar are only
+	 * updated once for all of them. Nothing is fired unless every shot can be.
+	 * @param squaresToShoot The squares to fire at, no more than the number of shots left.
+	 * @return True if the salvo was fired, false if it wasn't allowed.
+	 */
+	public boolean shootSalvo(Square... squaresToShoot) {
+		BoardState board = game.getEngine().getBoard();
+		int[] squares = new int[squaresToShoot.length];
+		for (int i = 0; i < squaresToShoot.length; i++) {
+			squares[i] = board.getIndex(squaresToShoot[i].xCoordinate, squaresToShoot[i].yCoordinate);
 		}
+		return game.getEngine().shootSalvo(state, squares, squares.length);
 	}
 	
 	/**
@@ -225,24 +274,22 @@ public abstract class Player {
 	 * @return The number of shots that the player has left.
 	 */
 	public int getShotsLeft() {
-		return (getNumShipsLeft() > 0) ? numShotsLeft : 0;
+		return state.getShotsLeft();
 	}
 	
 	/**
 	 * Determines if the given player can still shoot
 	 * @return True if the player can still shoot, false otherwise
 	 */
-	public boolean canShoot() { return getShotsLeft() > 0 && getNumShipsLeft() > 0; }
+	public boolean canShoot() { return state.canShoot(); }
 	
 	/**
-	 * Resets the number of shots that the player has for this turn as well as the number of moves
-	 * in preparation for the next round.
+	 * Refreshes the shots, moves and ships left shown in this player's sidebar.
 	 */
-	public void resetForNextRound() {
-		numShotsLeft = NUM_SHOTS;
-		numMovesLeft = NUM_MOVES;
+	public void refreshSidebar() {
 		setMovesLeftDisplay();
 		setShotsLeftDisplay();
+		setShipsLeftDisplay();
 	}
 	
 	/**
@@ -250,7 +297,7 @@ public abstract class Player {
 	 * @return The amount of damage this player's cannon balls do.
 	 */
 	public int getDamage() {
-		return damage;
+		return state.getDamage();
 	}
 	
 	/**
@@ -286,6 +333,29 @@ public abstract class Player {
 		return selectedShip != null;
 	}
 	
+	/**
+	 * Called whenever something about the game changes, so that players who act on their own can decide
+	 * whether it's their turn to do something. Players controlled from the keyboard don't need it.
+	 */
+	public void gameUpdated() {
+	}
+	
+	/**
+	 * Gets how often this player presses their select key on their own during a battle.
+	 * @return The number of clicks a second, or 0 if the player clicks for themselves.
+	 */
+	public double getAutomaticClickRate() {
+		return 0;
+	}
+	
+	/**
+	 * Determines if this player's ships are currently hidden from the other players.
+	 * @return True if the ships are hidden, false if they're shown.
+	 */
+	public boolean isHidden() {
+		return hidden;
+	}
+	
 	/**
 	 * Toggles the visibility of this player's ships, hiding them from the other players or showing them again.
 	 */
@@ -322,57 +392,28 @@ public abstract class Player {
 		this.y = y;
 	}
 	
-	/**
-	 * Called when one of this player's ships is moved in order to decrease the 
-	 * move counter.
-	 */
-	public void shipMoved() {
-		numMovesLeft--;
-		setMovesLeftDisplay();
-	}
-	
 	/**
 	 * Determines the amount of ship moves this player has left
 	 * @return The number of moves that this player has left in the turn.
 	 */
 	public int getMovesLeft() {
-		return numMovesLeft;
+		return state.getMovesLeft();
 	}
 	
 	/**
 	 * Determines if the player can still move his/her ships
 	 * @return True if the player can still move his/her ships, false otherwise.
 	 */
-	public boolean canMove() { return getMovesLeft() > 0; }
+	public boolean canMove() { return state.canMove(); }
 	
 	/**
 	 * Sets up the sidebar items for this player
 	 */
 	public void setupSideBar() {
-		// Get the player's key bindings
-		HashMap<String, KeyCode> keyBindings = getKeysUsed();
-		
-		// Format the help.
-		String text = String.format(
-						"%s: Show or hide your game pieces.\n" +
-						"%s: Cancel the operation\n" +
-						"%s: Select.\n" +
-						"%s: Move the cursor up.\n" +
-						"%s: Move the cursor down.\n" +
-						"%s: Move the cursor left.\n" +
-						"%s: Move the cursor right.\n",
-						keyBindings.get(Player.TOGGLE_HIDE).toString(), 
-						keyBindings.get(Player.CANCEL).toString(), 
-						keyBindings.get(Player.ENTER).toString(),
-						keyBindings.get(Player.UP).toString(),
-						keyBindings.get(Player.DOWN).toString(),
-						keyBindings.get(Player.LEFT).toString(),
-						keyBindings.get(Player.RIGHT).toString()
-				);
 		// Make new text object to display this helpful stuff.
 		keyBindingsHelp = new Text();
 		keyBindingsHelp.setFont(BattleshipGalactica.CONTENT_FONT);
-		keyBindingsHelp.setText(text);
+		keyBindingsHelp.setText(getKeyBindingsHelp());
 		keyBindingsHelp.setFill(Color.WHITE);
 		
 		shotsLeftDisplay = new Text();
@@ -391,7 +432,7 @@ public abstract class Player {
 		setShipsLeftDisplay();
 		
 		// Set up the alignments of the text boxes properly. 
-		if (getStartPosition().equals(StartSide.BottomRight)) {
+		if (getStartPosition().equals(PlayerState.StartSide.BottomRight)) {
 			shipsLeftDisplay.setTextAlignment(TextAlignment.RIGHT);
 			movesLeftDisplay.setTextAlignment(TextAlignment.RIGHT);
 			shotsLeftDisplay.setTextAlignment(TextAlignment.RIGHT);
@@ -407,6 +448,29 @@ public abstract class Player {
 		getGame().getBoard().setPlayerSidebar(this);
 	}
 	
+	/**
+	 * Makes the help text that tells the player which keys do what.
+	 * @return The key bindings help text.
+	 */
+	protected String getKeyBindingsHelp() {
+		return String.format(
+						"%s: Show or hide your game pieces.\n" +
+						"%s: Cancel the operation\n" +
+						"%s: Select.\n" +
+						"%s: Move the cursor up.\n" +
+						"%s: Move the cursor down.\n" +
+						"%s: Move the cursor left.\n" +
+						"%s: Move the cursor right.\n",
+						keyBindings.getKey(KeyBindings.Action.TOGGLE_HIDE).toString(), 
+						keyBindings.getKey(KeyBindings.Action.CANCEL).toString(), 
+						keyBindings.getKey(KeyBindings.Action.ENTER).toString(),
+						keyBindings.getKey(KeyBindings.Action.UP).toString(),
+						keyBindings.getKey(KeyBindings.Action.DOWN).toString(),
+						keyBindings.getKey(KeyBindings.Action.LEFT).toString(),
+						keyBindings.getKey(KeyBindings.Action.RIGHT).toString()
+				);
+	}
+	
 	/**
 	 * Returns an array of this player's sidebar nodes.
 	 * @return An array of the nodes for this player's sidebar.
@@ -445,7 +509,7 @@ public abstract class Player {
 	 * which depends on this player's side.
 	 */
 	private String formatTextForSidebar(String label, String text) {
-		return getStartPosition().equals(StartSide.BottomRight) ? text + " : " + label : label + " : " + text;
+		return getStartPosition().equals(PlayerState.StartSide.BottomRight) ? text + " : " + label : label + " : " + text;
 	}
 	
 	/**
@@ -454,25 +518,7 @@ public abstract class Player {
 	 * @return True if the player has won the game, false otherwise.
 	 */
 	public boolean hasWon() {
-		// We assume that this player has won until a ship turns out not to be in enemy territory.
-		boolean hasWon = true;
-		
-		// Iterate through each ship and determine if it's in enemy territory.
-		for (Ship ship : ships) {
-			hasWon = ship.isInEnemyTerritory() || ship.isDestroyed();
-			if (!hasWon) break;
-		}
-		
-		// Return results
-		return hasWon;
-	}
-	
-	/**
-	 * Called when one of this player's ships are destroyed to update GUI elements..
-	 * @param ship The ship that was destroyed
-	 */
-	public void shipDestroyed(Ship ship) {
-		setShipsLeftDisplay();
+		return state.hasWon();
 	}
 	
 	public abstract String getName();
@@ -0,0 +1,314 @@
+package game.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import game.ai.Policy;
+import game.ai.RandomPolicy;
+import game.engine.BoardState;
+import game.engine.Contest;
+import game.engine.ContestResolver;
+import game.engine.GameEngine;
+import game.engine.GameListener;
+import game.engine.MoveGenerator;
+import game.engine.PlayerState;
+import game.engine.Rules;
+import game.engine.ShipState;
+
+/**
+ * Counts every sequence of moves that can be made in the movement stage from a position, to a given depth, as
+ * chess programs do with perft. The counts only depend on the rules for which squares a ship can move to and how
+ * many moves each player gets a turn, so they make an oracle for checking that the move generator still gives
+ * exactly the same moves after it's been sped up, and the time they take is a measure of how fast it is. The counts
+ * for a few positions are kept in its test, along with a much slower counter that they're checked against.
+ * <p>
+ * The players take turns moving in the same way as in {@link game.ai.MovementSearch}: one move each for as long as
+ * they both have moves left, after which whoever still has moves makes the rest of theirs. A move onto an enemy ship
+ * starts a contest, which either ship could win, so it counts as two sequences, one for each winner. A sequence is
+ * counted once it's the given number of moves long, or when it can't go any further because the stage is over.
+ * <p>
+ * The counting is split up over the threads of a fork-join pool by the first few moves, each part counting on its
+ * own copy of the game with {@link GameEngine#makeMove(int, boolean)} and {@link GameEngine#unmake()}, so the
+ * counts are the same however many threads there are.
+ */
+public class Perft {
+	/**
+	 * How many moves deep a part of the count has to be before it's counted on one thread rather than split up further.
+	 */
+	public static final int SERIAL_DEPTH = 4;
+
+	/**
+	 * Only there because copies need one; every contest is settled by {@link GameEngine#makeMove(int, boolean)}.
+	 */
+	private static final ContestResolver DEFENDER_WINS = new ContestResolver() {
+		@Override
+		public void resolve(Contest contest) {
+			contest.settle(contest.defender);
+		}
+	};
+
+	/**
+	 * What a count found.
+	 */
+	public static final class Result {
+		/**
+		 * The depth counted to, in moves.
+		 */
+		public final int depth;
+
+		/**
+		 * The number of distinct sequences of moves.
+		 */
+		public final long sequences;
+
+		/**
+		 * The number of positions gone through to count them, including the first one and the last one of each sequence.
+		 */
+		public final long nodes;
+
+		/**
+		 * The number of threads that counted.
+		 */
+		public final int threads;
+
+		/**
+		 * How long the count took, in nanoseconds.
+		 */
+		public final long elapsed;
+
+		Result(int depth, long sequences, long nodes, int threads, long elapsed) {
+			this.depth = depth;
+			this.sequences = sequences;
+			this.nodes = nodes;
+			this.threads = threads;
+			this.elapsed = elapsed;
+		}
+
+		/**
+		 * Gets how quickly the count went.
+		 * @return The number of positions gone through per second.
+		 */
+		public double getNodesPerSecond() {
+			return (elapsed > 0) ? nodes * 1e9 / elapsed : 0;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("depth %d, %d threads: %d sequences, %d nodes, %.3f s, %.0f nodes/s", depth, threads, sequences, nodes, elapsed / 1e9, getNodesPerSecond());
+		}
+	}
+
+	private Perft() {}
+
+	/**
+	 * Counts the sequences of moves from the given position on the common fork-join pool. The position is only read.
+	 * @param position The game, which should be in the movement stage with no contest pending.
+	 * @param playerIndex The index of the player who moves first.
+	 * @param depth How many moves long the sequences can be.
+	 * @return What the count found.
+	 */
+	public static Result count(GameEngine position, int playerIndex, int depth) {
+		return count(position, playerIndex, depth, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Counts the sequences of moves from the given position. The position is only read.
+	 * @param position The game, which should be in the movement stage with no contest pending.
+	 * @param playerIndex The index of the player who moves first.
+	 * @param depth How many moves long the sequences can be.
+	 * @param pool The threads to count with.
+	 * @return What the count found.
+	 */
+	public static Result count(GameEngine position, int playerIndex, int depth, ForkJoinPool pool) {
+		long start = System.nanoTime();
+		Counter counter = pool.invoke(new Part(position.copy(GameListener.NONE, DEFENDER_WINS), playerIndex, depth));
+		return new Result(depth, counter.sequences, counter.nodes, pool.getParallelism(), System.nanoTime() - start);
+	}
+
+	/**
+	 * Works out who moves after the given player, once they've made a move.
+	 * @param game The game after the move.
+	 * @param mover The index of the player who just moved.
+	 * @return The index of the player who moves next.
+	 */
+	static int getNextMover(GameEngine game, int mover) {
+		// The players take turns, unless the other one has no moves left, in which case the same player goes again.
+		int next = 1 - mover;
+		if (!game.getPlayers()[next].canMove() && game.getPlayers()[mover].canMove()) next = mover;
+		return next;
+	}
+
+	/**
+	 * Determines if the given move would start a contest.
+	 */
+	private static boolean isContest(GameEngine game, int move) {
+		ShipState ship = game.getBoard().getShips()[MoveGenerator.getShipIndex(move)];
+		BoardState.MoveDirection direction = MoveGenerator.getDirection(move);
+		return game.getBoard().getShip(ship.getXInDirection(direction), ship.getYInDirection(direction)) != null;
+	}
+
+	/**
+	 * Determines if the sequence that reached the given position can't go any further.
+	 */
+	private static boolean isEnd(GameEngine game, int mover) {
+		return !game.getState().equals(GameEngine.GameState.Movement) || !game.getPlayers()[mover].canMove();
+	}
+
+	/**
+	 * Counts sequences on one thread, making and taking back moves on one game.
+	 */
+	private static class Counter {
+		long sequences, nodes;
+
+		// Move buffers for each ply, made to size for the rules of the game being counted.
+		private final int[][] moves;
+
+		Counter(Rules rules, int depth) {
+			moves = new int[depth][MoveGenerator.getMaxMovesPerPlayer(rules)];
+		}
+
+		/**
+		 * Counts the sequences from the given position.
+		 */
+		void count(GameEngine game, int mover, int depth) {
+			nodes++;
+			if (depth == 0 || isEnd(game, mover)) {
+				sequences++;
+				return;
+			}
+
+			int[] plyMoves = moves[depth - 1];
+			int count = MoveGenerator.generateMoves(game.getPlayers()[mover], plyMoves);
+			if (count == 0) {
+				sequences++;
+				return;
+			}
+			for (int i = 0; i < count; i++) {
+				int move = plyMoves[i];
+				// A contest is tried once with each ship winning, the one that moved last.
+				for (int outcome = isContest(game, move) ? 0 : 1; outcome < 2; outcome++) {
+					game.makeMove(move, outcome == 1);
+					count(game, getNextMover(game, mover), depth - 1);
+					game.unmake();
+				}
+			}
+		}
+
+		/**
+		 * Adds another counter's totals to these.
+		 * @return This counter.
+		 */
+		Counter merge(Counter other) {
+			sequences += other.sequences;
+			nodes += other.nodes;
+			return this;
+		}
+	}
+
+	/**
+	 * The sequences from one position, split up by their next move until there are few enough to count on one thread.
+	 */
+	private static class Part extends RecursiveTask<Counter> {
+		private static final long serialVersionUID = 1L;
+
+		// A copy of the game of this part's own, which nothing else touches.
+		private final GameEngine game;
+		private final int mover, depth;
+
+		Part(GameEngine game, int mover, int depth) {
+			this.game = game;
+			this.mover = mover;
+			this.depth = depth;
+		}
+
+		@Override
+		protected Counter compute() {
+			Counter counter = new Counter(game.getRules(), depth);
+			if (depth <= SERIAL_DEPTH) {
+				counter.count(game, mover, depth);
+				return counter;
+			}
+
+			counter.nodes++;
+			int[] moves = new int[MoveGenerator.getMaxMovesPerPlayer(game.getRules())];
+			int count = isEnd(game, mover) ? 0 : MoveGenerator.generateMoves(game.getPlayers()[mover], moves);
+			if (count == 0) {
+				counter.sequences++;
+				return counter;
+			}
+
+			// Each move gets a part and a copy of the game of its own, made with the move already made.
+			List<Part> parts = new ArrayList<Part>();
+			for (int i = 0; i < count; i++) {
+				for (int outcome = isContest(game, moves[i]) ? 0 : 1; outcome < 2; outcome++) {
+					game.makeMove(moves[i], outcome == 1);
+					parts.add(new Part(game.copy(GameListener.NONE, DEFENDER_WINS), getNextMover(game, mover), depth - 1));
+					game.unmake();
+				}
+			}
+			for (Part part : invokeAll(parts)) {
+				counter.merge(part.join());
+			}
+			return counter;
+		}
+	}
+
+	/**
+	 * Plays the placement stage and the first firing stage of a game at random, to get a position to count from.
+	 * @param rules The rules to play by.
+	 * @param seed The seed for the random choices.
+	 * @return The game, at the start of the first movement stage.
+	 * @throws IllegalStateException If the game ended before the movement stage.
+	 */
+	public static GameEngine makePosition(Rules rules, long seed) {
+		Random random = new Random(SelfPlay.mix(seed));
+		Policy policy = new RandomPolicy();
+		GameEngine game = new GameEngine(rules, GameListener.NONE, DEFENDER_WINS);
+		BoardState board = game.getBoard();
+
+		game.start();
+		while (game.getState().equals(GameEngine.GameState.ShipPlacement) || game.getState().equals(GameEngine.GameState.Firing)) {
+			for (PlayerState player : game.getPlayers()) {
+				if (game.getState().equals(GameEngine.GameState.ShipPlacement) && player.getNumShipsUnplaced() > 0) {
+					int square = policy.choosePlacement(player, random);
+					game.placeShip(player, board.getXOfIndex(square), board.getYOfIndex(square));
+				}
+				else if (game.getState().equals(GameEngine.GameState.Firing) && player.canShoot()) {
+					int square = policy.chooseShot(player, random);
+					game.shoot(player, board.getXOfIndex(square), board.getYOfIndex(square));
+				}
+			}
+		}
+		if (!game.getState().equals(GameEngine.GameState.Movement)) throw new IllegalStateException("The game ended before the movement stage.");
+		return game;
+	}
+
+	/**
+	 * Counts the sequences of moves from a random position with one thread, then two, then four and so on up to the
+	 * given number, and prints how fast each went. Fails if the counts don't all agree.
+	 * @param args The depth (default 6), the seed for the position (default 0) and the most threads (default all cores).
+	 */
+	public static void main(String[] args) {
+		int depth = (args.length > 0) ? Integer.parseInt(args[0]) : 6;
+		long seed = (args.length > 1) ? Long.parseLong(args[1]) : 0;
+		int maxThreads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+		GameEngine position = makePosition(Rules.DEFAULT, seed);
+		Result first = null;
+		for (int threads = 1; threads <= maxThreads; threads = (threads < maxThreads && threads * 2 > maxThreads) ? maxThreads : threads * 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				Result result = count(position, 0, depth, pool);
+				System.out.println(result);
+				if (first == null) first = result;
+				else if (result.sequences != first.sequences || result.nodes != first.nodes) throw new IllegalStateException("The count with " + threads + " threads doesn't match the count with " + first.threads + ".");
+			}
+			finally {
+				pool.shutdown();
+			}
+		}
+	}
+}
@@ -0,0 +1,287 @@
+package game.simulation;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import game.ai.AdvancePolicy;
+import game.ai.Policy;
+import game.ai.RandomPolicy;
+import game.engine.BoardState;
+import game.engine.BotContestResolver;
+import game.engine.GameEngine;
+import game.engine.GameListener;
+import game.engine.MoveGenerator;
+import game.engine.PlayerState;
+import game.engine.Rules;
+import game.engine.ShipState;
+
+/**
+ * Plays complete games between two policies, with no display, on every core of the machine at once. Each game
+ * gets its own random number generator seeded from the batch seed and the game's number, so a batch gives the
+ * same results every time no matter how many threads it's played on. The policies swap sides every game so
+ * that neither gets the advantage of always starting on the same side, and they settle contests themselves by how
+ * many times they click (see {@link BotContestResolver}).
+ */
+public class SelfPlay {
+	/**
+	 * The number of turns after which a game is given up on, in case neither policy can finish it.
+	 */
+	public static final int DEFAULT_MAX_TURNS = 1000;
+
+	/**
+	 * The margin that turns off adjudication, so that every game is played to the end.
+	 */
+	public static final int NO_ADJUDICATION = -1;
+
+	/**
+	 * How many turns sooner one player has to be able to get their ships into enemy territory than the other before
+	 * a game is counted as theirs without being played out (see {@link GameEngine#getDecidedWinner(int)}). By
+	 * default games are all played out, since working out who's ahead every turn costs more than the turns it saves.
+	 */
+	public static final int DEFAULT_ADJUDICATION_MARGIN = NO_ADJUDICATION;
+
+	/**
+	 * The margin for adjudicating only when the player behind can never get their ships into enemy territory at all,
+	 * which is the most that's worth it, since the number of turns is only a lower bound.
+	 */
+	public static final int UNREACHABLE_ONLY = Integer.MAX_VALUE;
+
+	// Batches with no more than this many games are played on one thread rather than split up further.
+	private static final int GAMES_PER_TASK = 32;
+
+	private final Rules rules;
+	private final Policy policyA, policyB;
+	private final int maxTurns, adjudicationMargin;
+
+	/**
+	 * Sets up self-play between two policies with the default turn limit and adjudication margin.
+	 * @param rules The rules to play by.
+	 * @param policyA The first policy.
+	 * @param policyB The second policy.
+	 */
+	public SelfPlay(Rules rules, Policy policyA, Policy policyB) {
+		this(rules, policyA, policyB, DEFAULT_MAX_TURNS);
+	}
+
+	/**
+	 * Sets up self-play between two policies with the default adjudication margin.
+	 * @param rules The rules to play by.
+	 * @param policyA The first policy.
+	 * @param policyB The second policy.
+	 * @param maxTurns The number of turns after which a game is stopped without a winner.
+	 */
+	public SelfPlay(Rules rules, Policy policyA, Policy policyB, int maxTurns) {
+		this(rules, policyA, policyB, maxTurns, DEFAULT_ADJUDICATION_MARGIN);
+	}
+
+	/**
+	 * Sets up self-play between two policies.
+	 * @param rules The rules to play by.
+	 * @param policyA The first policy.
+	 * @param policyB The second policy.
+	 * @param maxTurns The number of turns after which a game is stopped without a winner.
+	 * @param adjudicationMargin How many turns ahead in the race to enemy territory a player has to be for a game to
+	 * be counted as theirs without playing it out, or {@link #NO_ADJUDICATION}.
+	 */
+	public SelfPlay(Rules rules, Policy policyA, Policy policyB, int maxTurns, int adjudicationMargin) {
+		this.rules = rules;
+		this.policyA = policyA;
+		this.policyB = policyB;
+		this.maxTurns = maxTurns;
+		this.adjudicationMargin = adjudicationMargin;
+	}
+
+	/**
+	 * Plays a batch of games on the common fork-join pool.
+	 * @param games The number of games to play.
+	 * @param seed The seed for the whole batch.
+	 * @return The statistics of the batch.
+	 */
+	public Statistics play(long games, long seed) {
+		return play(games, seed, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Plays a batch of games.
+	 * @param games The number of games to play.
+	 * @param seed The seed for the whole batch.
+	 * @param pool The pool to play the games on.
+	 * @return The statistics of the batch.
+	 */
+	public Statistics play(long games, long seed, ForkJoinPool pool) {
+		long start = System.nanoTime();
+		Statistics statistics = pool.invoke(new Batch(0, games, seed));
+		statistics.elapsed = System.nanoTime() - start;
+		return statistics;
+	}
+
+	/**
+	 * Plays one complete game, adding its results to the given statistics.
+	 * @param number The number of the game in the batch, which decides its seed and which side each policy plays.
+	 * @param seed The seed for the whole batch.
+	 * @param statistics Where to add the results.
+	 */
+	void playGame(long number, long seed, Statistics statistics) {
+		Random random = new Random(mix(seed + number));
+		// Policy A plays the first player in even games and the second player in odd ones.
+		boolean swapped = (number & 1) != 0;
+		Policy[] policies = swapped ? new Policy[] { policyB, policyA } : new Policy[] { policyA, policyB };
+
+		Recorder recorder = new Recorder(statistics, swapped);
+		GameEngine game = new GameEngine(rules, recorder, new BotContestResolver(policies));
+		PlayerState[] players = game.getPlayers();
+		BoardState board = game.getBoard();
+
+		game.start();
+		PlayerState decidedWinner = null;
+		int checkedTurn = 0;
+		while (!game.getState().equals(GameEngine.GameState.Ended) && game.getTurn() <= maxTurns) {
+			GameEngine.GameState state = game.getState();
+			// Once a turn, see if the game is already decided, so that hopeless endgames aren't played out.
+			if (adjudicationMargin != NO_ADJUDICATION && game.getTurn() != checkedTurn && state.equals(GameEngine.GameState.Firing)) {
+				checkedTurn = game.getTurn();
+				decidedWinner = game.getDecidedWinner(adjudicationMargin);
+				if (decidedWinner != null) break;
+			}
+
+			// Take turns making one action each, until the stage is over.
+			for (int i = 0; i < players.length && game.getState().equals(state); i++) {
+				PlayerState player = players[i];
+				Policy policy = policies[i];
+
+				if (state.equals(GameEngine.GameState.ShipPlacement)) {
+					if (player.getNumShipsUnplaced() == 0) continue;
+					int square = policy.choosePlacement(player, random);
+					if (!game.placeShip(player, board.getXOfIndex(square), board.getYOfIndex(square))) throw illegal(policy, "placement");
+				}
+				else if (state.equals(GameEngine.GameState.Firing)) {
+					if (!player.canShoot()) continue;
+					int square = policy.chooseShot(player, random);
+					if (!game.shoot(player, board.getXOfIndex(square), board.getYOfIndex(square))) throw illegal(policy, "shot");
+				}
+				else if (state.equals(GameEngine.GameState.Movement)) {
+					if (!player.canMove()) continue;
+					int move = policy.chooseMove(player, random);
+					ShipState ship = (move >= 0) ? board.getShips()[MoveGenerator.getShipIndex(move)] : null;
+					if (ship == null || ship.player != player || !ship.canMoveInDirection(MoveGenerator.getDirection(move))) throw illegal(policy, "move");
+					// Doesn't move the ship if it starts a contest, but that's settled straight away.
+					game.moveShip(move);
+				}
+			}
+		}
+
+		statistics.games++;
+		if (decidedWinner != null) {
+			statistics.adjudicated++;
+			statistics.adjudicatedTurns += game.getTurn();
+			statistics.wins[recorder.getPolicy(decidedWinner)]++;
+		}
+		else if (!game.getState().equals(GameEngine.GameState.Ended)) statistics.unfinished++;
+		else {
+			statistics.turns += game.getTurn();
+			if (game.didBothWin()) statistics.draws++;
+			else if (game.getWinningPlayer() != null) statistics.wins[recorder.getPolicy(game.getWinningPlayer())]++;
+		}
+	}
+
+	// Makes the exception for a policy that picked something it wasn't allowed to.
+	private static IllegalStateException illegal(Policy policy, String action) {
+		return new IllegalStateException(policy.getClass().getSimpleName() + " chose an illegal " + action + ".");
+	}
+
+	/**
+	 * Scrambles the bits of a number, so that games with neighbouring numbers get unrelated seeds.
+	 * @param value The number to scramble.
+	 * @return The scrambled number.
+	 */
+	static long mix(long value) {
+		value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+		value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+		return value ^ (value >>> 31);
+	}
+
+	/**
+	 * A range of games, split in half until it's small enough to play on one thread.
+	 */
+	private class Batch extends RecursiveTask<Statistics> {
+		private static final long serialVersionUID = 1L;
+
+		private final long from, to, seed;
+
+		Batch(long from, long to, long seed) {
+			this.from = from;
+			this.to = to;
+			this.seed = seed;
+		}
+
+		@Override
+		protected Statistics compute() {
+			if (to - from <= GAMES_PER_TASK) {
+				Statistics statistics = new Statistics();
+				for (long number = from; number < to; number++) {
+					playGame(number, seed, statistics);
+				}
+				return statistics;
+			}
+
+			long middle = (from + to) >>> 1;
+			Batch left = new Batch(from, middle, seed);
+			left.fork();
+			Statistics right = new Batch(middle, to, seed).compute();
+			return right.merge(left.join());
+		}
+	}
+
+	/**
+	 * Counts the shots and contests of one game, credited to the policy playing each player.
+	 */
+	private static class Recorder implements GameListener {
+		private final Statistics statistics;
+		private final boolean swapped;
+
+		Recorder(Statistics statistics, boolean swapped) {
+			this.statistics = statistics;
+			this.swapped = swapped;
+		}
+
+		// Gets which policy, A or B, is playing the given player.
+		int getPolicy(PlayerState player) {
+			return swapped ? 1 - player.index : player.index;
+		}
+
+		@Override
+		public void shotFired(PlayerState shooter, int x, int y, ShipState hitShip) {
+			int policy = getPolicy(shooter);
+			statistics.shots[policy]++;
+			if (hitShip != null) {
+				statistics.hits[policy]++;
+				if (hitShip.isDestroyed()) statistics.kills[policy]++;
+			}
+		}
+
+		@Override
+		public void contestStarted(ShipState defender, ShipState contester) {
+			statistics.contests++;
+		}
+	}
+
+	/**
+	 * Plays a batch of games between a random policy (A) and an advancing policy (B) and prints the results.
+	 * @param args The number of games (default 10000), the seed (default 0) and the number of threads (default all cores).
+	 */
+	public static void main(String[] args) {
+		long games = (args.length > 0) ? Long.parseLong(args[0]) : 10000;
+		long seed = (args.length > 1) ? Long.parseLong(args[1]) : 0;
+		int threads = (args.length > 2) ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+		SelfPlay selfPlay = new SelfPlay(Rules.DEFAULT, new RandomPolicy(), new AdvancePolicy());
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			System.out.println(selfPlay.play(games, seed, pool));
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package game.simulation;
+
+/**
+ * Totals gathered over a batch of self-play games between two policies, called A and B. Each worker thread fills
+ * in its own statistics and they're merged together at the end, so nothing here needs to be thread safe.
+ */
+public class Statistics {
+	/**
+	 * The two policies being compared.
+	 */
+	public static final int A = 0, B = 1;
+
+	// The number of games played, of those the ones that hit the turn limit before anyone won, and the ones that were
+	// stopped early because they were already decided.
+	long games, unfinished, adjudicated;
+
+	// The number of games won outright by each policy, and the number that both won at once.
+	final long[] wins = new long[2];
+	long draws;
+
+	// The total number of turns over all games that were played out to the end, and over all adjudicated games up to
+	// the turn that they were stopped on, kept apart since those were cut short.
+	long turns, adjudicatedTurns;
+
+	// Shots fired by each policy, how many of them hit, and how many ships they sank.
+	final long[] shots = new long[2], hits = new long[2], kills = new long[2];
+
+	// The number of contests over squares.
+	long contests;
+
+	// How long the games took to play, in nanoseconds of wall-clock time.
+	long elapsed;
+
+	/**
+	 * Adds the totals of another batch of games to these.
+	 * @param other The other statistics.
+	 * @return These statistics.
+	 */
+	Statistics merge(Statistics other) {
+		games += other.games;
+		unfinished += other.unfinished;
+		adjudicated += other.adjudicated;
+		draws += other.draws;
+		turns += other.turns;
+		adjudicatedTurns += other.adjudicatedTurns;
+		contests += other.contests;
+		for (int i = 0; i < 2; i++) {
+			wins[i] += other.wins[i];
+			shots[i] += other.shots[i];
+			hits[i] += other.hits[i];
+			kills[i] += other.kills[i];
+		}
+		return this;
+	}
+
+	/**
+	 * Gets the number of games played.
+	 * @return The number of games.
+	 */
+	public long getGames() {
+		return games;
+	}
+
+	/**
+	 * Gets the number of games that were stopped at the turn limit without a winner.
+	 * @return The number of unfinished games.
+	 */
+	public long getUnfinished() {
+		return unfinished;
+	}
+
+	/**
+	 * Gets the number of games that were counted as won without being played out, because one player was too far
+	 * ahead in the race to enemy territory for the other to catch up.
+	 * @return The number of adjudicated games, which are also counted in the wins.
+	 */
+	public long getAdjudicated() {
+		return adjudicated;
+	}
+
+	/**
+	 * Gets the share of all games that the given policy won outright.
+	 * @param policy {@link #A} or {@link #B}.
+	 * @return The win rate, between 0 and 1.
+	 */
+	public double getWinRate(int policy) {
+		return (games > 0) ? (double) wins[policy] / games : 0;
+	}
+
+	/**
+	 * Gets the share of all games that both policies won at the same time.
+	 * @return The draw rate, between 0 and 1.
+	 */
+	public double getDrawRate() {
+		return (games > 0) ? (double) draws / games : 0;
+	}
+
+	/**
+	 * Gets the average number of turns that games played out to the end lasted. Games that were adjudicated aren't
+	 * counted, since they were stopped before they ended (see {@link #getMeanAdjudicatedTurn()}).
+	 * @return The mean game length in turns.
+	 */
+	public double getMeanGameLength() {
+		long finished = games - unfinished - adjudicated;
+		return (finished > 0) ? (double) turns / finished : 0;
+	}
+
+	/**
+	 * Gets the average turn that adjudicated games were stopped on.
+	 * @return The mean turn, or 0 if no games were adjudicated.
+	 */
+	public double getMeanAdjudicatedTurn() {
+		return (adjudicated > 0) ? (double) adjudicatedTurns / adjudicated : 0;
+	}
+
+	/**
+	 * Gets the average number of shots that the given policy fired for every ship that it sank.
+	 * @param policy {@link #A} or {@link #B}.
+	 * @return The shots per kill, or infinity if the policy never sank anything.
+	 */
+	public double getShotsToKill(int policy) {
+		return (kills[policy] > 0) ? (double) shots[policy] / kills[policy] : Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Gets the share of the given policy's shots that hit a ship.
+	 * @param policy {@link #A} or {@link #B}.
+	 * @return The hit rate, between 0 and 1.
+	 */
+	public double getHitRate(int policy) {
+		return (shots[policy] > 0) ? (double) hits[policy] / shots[policy] : 0;
+	}
+
+	/**
+	 * Gets the average number of contests over squares per game.
+	 * @return The mean number of contests.
+	 */
+	public double getMeanContests() {
+		return (games > 0) ? (double) contests / games : 0;
+	}
+
+	/**
+	 * Gets how many games were played per second of wall-clock time.
+	 * @return The throughput in games per second.
+	 */
+	public double getGamesPerSecond() {
+		return (elapsed > 0) ? games * 1e9 / elapsed : 0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format(
+				"%d games in %.2f s (%.0f games/s), %d unfinished, %d adjudicated\n" +
+				"Win rate: A %.1f%%, B %.1f%%, both %.1f%%\n" +
+				"Mean game length: %.1f turns (adjudicated at %.1f), %.2f contests\n" +
+				"Shots to kill: A %.1f, B %.1f\n" +
+				"Hit rate: A %.1f%%, B %.1f%%",
+				games, elapsed / 1e9, getGamesPerSecond(), unfinished, adjudicated,
+				getWinRate(A) * 100, getWinRate(B) * 100, getDrawRate() * 100,
+				getMeanGameLength(), getMeanAdjudicatedTurn(), getMeanContests(),
+				getShotsToKill(A), getShotsToKill(B),
+				getHitRate(A) * 100, getHitRate(B) * 100);
+	}
+}
@@ -37,8 +37,11 @@ public class BattleshipGalactica extends Application {
 	public void start(Stage primaryStage) throws Exception {
 		stage = primaryStage;
 		
+		// Make the input handler first so that the menu can give it the games it starts.
+		InputHandler input = new InputHandler();
+		
 		// Create the main menu right away and get the menuing going.
-		Scene scene = new Scene(new MainMenu());
+		Scene scene = new Scene(new MainMenu(input));
 		
 		// Now set up some window things
 		primaryStage.setTitle("Battleship Galactica");
@@ -49,7 +52,7 @@ public class BattleshipGalactica extends Application {
 		primaryStage.getIcons().add(new Image(getCorrectPath("resources/battleship.png")));
 		
 		// Now begin monitoring user input.
-		InputHandler.setScene(scene);
+		input.setScene(scene);
 		
 		// Show the scene after all the rendering is done.
 		primaryStage.show();
@@ -0,0 +1,248 @@
+package main;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+import javafx.scene.input.KeyCode;
+
+/**
+ * The input of a single game. Key presses can be submitted from any thread (the JavaFX key filter, a network
+ * connection, a bot) and are queued up without locking. The game then drains its own queue on its own thread,
+ * calling whatever bindings it currently has for each key. Nothing here is shared between sessions, so any
+ * number of games can run in the same program without getting each other's input.
+ */
+public class InputSession {
+	/**
+	 * A key press waiting to be handled, along with when it happened.
+	 */
+	public static final class KeyPress {
+		/**
+		 * The key that was pressed.
+		 */
+		public final KeyCode key;
+
+		/**
+		 * When the key was pressed, in nanoseconds as given by {@link System#nanoTime()}.
+		 */
+		public final long time;
+
+		KeyPress(KeyCode key, long time) {
+			this.key = key;
+			this.time = time;
+		}
+	}
+
+	/**
+	 * A set of key bindings, kept in a table indexed by {@link KeyCode#ordinal()} so that finding the binding of a
+	 * pressed key is a single array load.
+	 */
+	public static final class Bindings {
+		// The handler of each key, indexed by the key's ordinal, or null if the key isn't bound.
+		@SuppressWarnings("unchecked")
+		private final Consumer<KeyCode>[] handlers = (Consumer<KeyCode>[]) new Consumer<?>[NUM_KEYS];
+
+		/**
+		 * Gets the handler bound to the given key.
+		 * @param key The key.
+		 * @return The handler, or null if the key isn't bound.
+		 */
+		public Consumer<KeyCode> get(KeyCode key) {
+			return handlers[key.ordinal()];
+		}
+
+		/**
+		 * Binds the given key to the given handler, replacing any handler that it had before.
+		 * @param key The key.
+		 * @param handler The function to call when the key is pressed.
+		 */
+		public void put(KeyCode key, Consumer<KeyCode> handler) {
+			handlers[key.ordinal()] = handler;
+		}
+
+		/**
+		 * Unbinds the given key.
+		 * @param key The key.
+		 */
+		public void remove(KeyCode key) {
+			handlers[key.ordinal()] = null;
+		}
+
+		/**
+		 * Unbinds every key.
+		 */
+		public void clear() {
+			Arrays.fill(handlers, null);
+		}
+	}
+
+	// Cached so that every set of bindings doesn't copy the values array.
+	private static final int NUM_KEYS = KeyCode.values().length;
+
+	/**
+	 * Key presses that have been submitted but not handled yet. Safe to add to from any thread.
+	 */
+	private final ConcurrentLinkedQueue<KeyPress> queue = new ConcurrentLinkedQueue<KeyPress>();
+
+	/**
+	 * Whether or not this session is currently acting on its inputs. Written by the game, read when draining.
+	 */
+	private volatile boolean monitoring;
+
+	/**
+	 * Used to keep track of all the keys possible to be pressed and the method which must be called for each one.
+	 * Only touched by the thread that drains this session.
+	 */
+	private Bindings bindings = new Bindings();
+
+	/**
+	 * A backup list of the main bindings in case override bindings are set.
+	 */
+	private final Bindings mainBindings = bindings;
+
+	/**
+	 * When the key press currently being handled happened. Only touched by the thread that drains this session.
+	 */
+	private long pressTime;
+
+	/**
+	 * Queues up a key press that happened just now. May be called from any thread.
+	 * @param key The key that was pressed.
+	 */
+	public void submit(KeyCode key) {
+		submit(key, System.nanoTime());
+	}
+
+	/**
+	 * Queues up a key press. May be called from any thread.
+	 * @param key The key that was pressed.
+	 * @param time When the key was pressed, in nanoseconds as given by {@link System#nanoTime()}.
+	 */
+	public void submit(KeyCode key, long time) {
+		queue.offer(new KeyPress(key, time));
+	}
+
+	/**
+	 * Handles every key press that's been queued up so far, in the order that they were submitted, by calling the
+	 * binding for each key. Key presses that arrive while the session isn't monitoring are thrown away. Should
+	 * only ever be called from one thread at a time, normally the one that owns the game.
+	 * @return The number of key presses taken off of the queue.
+	 */
+	public int drain() {
+		int count = 0;
+		KeyPress press;
+		while ((press = queue.poll()) != null) {
+			count++;
+			// Bindings may stop the monitoring or swap the bindings, so check again for every key.
+			Consumer<KeyCode> binding = bindings.get(press.key);
+			if (binding != null && monitoring) {
+				pressTime = press.time;
+				binding.accept(press.key);
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Gets when the key press that's being handled right now happened, so that bindings can tell exactly when
+	 * their key was pressed rather than when the game got around to handling it.
+	 * @return The time of the current key press, in nanoseconds as given by {@link System#nanoTime()}.
+	 */
+	public long getPressTime() {
+		return pressTime;
+	}
+
+	/**
+	 * Throws away every key press that hasn't been handled yet.
+	 */
+	public void clearQueue() {
+		queue.clear();
+	}
+
+	/**
+	 * Used to add bindings when keys are pressed. If a binding for this key exists already, this will replace it.
+	 * @param binding the key to add the binding to.
+	 * @param handler The function to call in order to handle the pressing of this button.
+	 */
+	public void addKeyBinding(KeyCode binding, Consumer<KeyCode> handler) {
+		mainBindings.put(binding, handler);
+	}
+
+	/**
+	 * Adds multiple key bindings at once so that when the key is pressed, the supplied function is called.
+	 * If a binding for any of the keys exists already, this will replace it.
+	 * @param bindings The key to which the binding should be added
+	 * @param handler The function to handle the event of the binding.
+	 */
+	public void addKeyBindings(Collection<KeyCode> bindings, Consumer<KeyCode> handler) {
+		// Iterate through each key and add the binding to the list.
+		for (KeyCode key : bindings) {
+			// Add the key binding.
+			addKeyBinding(key, handler);
+		}
+	}
+
+	/**
+	 * Removes the binding to the supplied key
+	 * @param binding The key whose binding needs to be removed.
+	 */
+	public void removeKeyBinding(KeyCode binding) {
+		mainBindings.remove(binding);
+	}
+
+	/**
+	 * Removes all the bindings to the supplied keys
+	 * @param bindings The keys whose bindings need to be removed.
+	 */
+	public void removeKeyBindings(Collection<KeyCode> bindings) {
+		for (KeyCode binding : bindings) {
+			removeKeyBinding(binding);
+		}
+	}
+
+	/**
+	 * Deletes all bindings set to this session, including any override bindings.
+	 */
+	public void resetBindings() {
+		mainBindings.clear();
+		bindings = mainBindings;
+	}
+
+	/**
+	 * Stops the monitoring of this session.
+	 */
+	public void stopMonitoring() {
+		monitoring = false;
+	}
+
+	/**
+	 * Makes the session begin monitoring inputs and calling bindings when necessary
+	 */
+	public void startMonitoring() {
+		monitoring = true;
+	}
+
+	/**
+	 * Determines if this session is acting on its inputs.
+	 * @return True if key presses are being handled, false if they're thrown away.
+	 */
+	public boolean isMonitoring() {
+		return monitoring;
+	}
+
+	/**
+	 * Sets bindings to be used instead of the main bindings in cases such as during battle mode.
+	 * @param overrideBindings The override key bindings to be used.
+	 */
+	public void addOverrideBindings(Bindings overrideBindings) {
+		bindings = overrideBindings;
+	}
+
+	/**
+	 * Resets the key bindings back to the main bindings.
+	 */
+	public void clearOverrideBindings() {
+		bindings = mainBindings;
+	}
+}
@@ -0,0 +1,18 @@
+package main;
+
+import javafx.application.Application;
+
+/**
+ * Starts the game from the jar. Java refuses to start a main class that extends {@link Application} unless JavaFX is
+ * on the module path, so the jar, which carries JavaFX on the class path instead, starts from here.
+ */
+public class Launcher {
+
+	/**
+	 * Launches {@link BattleshipGalactica}.
+	 * @param args Command line arguments.
+	 */
+	public static void main(String[] args) {
+		Application.launch(BattleshipGalactica.class, args);
+	}
+}
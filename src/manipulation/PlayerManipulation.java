@@ -2,6 +2,7 @@ package manipulation;
 
 import game.board.Board;
 import game.board.Square;
+import game.engine.BoardState;
 import game.player.Player;
 import game.ships.Ship;
 
@@ -11,16 +12,17 @@ public class PlayerManipulation {
 	 * @param player The player whose cursor needs to be moved.
 	 * @param direction The direction of the movement.
 	 */
-	public void move(Player player, Board.MoveDirection direction) {
+	public void move(Player player, BoardState.MoveDirection direction) {
 		
 		// Determine if the player has a ship selected. If they do, we're moving the ship, not the selection
 		if (!player.hasSelectedShip()) {
+			Board board = player.getGame().getBoard();
 			int newX = player.x, newY = player.y;
 			// Make sure that it's possible to move in the direction, then move in that direction.
-			if (direction.equals(Board.MoveDirection.left) && player.x > 0) newX--;
-			else if (direction.equals(Board.MoveDirection.right) && player.x < Board.NUM_COLUMNS - 1) newX++;
-			else if (direction.equals(Board.MoveDirection.up) && player.y > 0) newY--;
-			else if (direction.equals(Board.MoveDirection.down) && player.y < Board.NUM_ROWS - 1) newY++;
+			if (direction.equals(BoardState.MoveDirection.left) && player.x > 0) newX--;
+			else if (direction.equals(BoardState.MoveDirection.right) && player.x < board.getNumColumns() - 1) newX++;
+			else if (direction.equals(BoardState.MoveDirection.up) && player.y > 0) newY--;
+			else if (direction.equals(BoardState.MoveDirection.down) && player.y < board.getNumRows() - 1) newY++;
 			
 			// Only bother to do something if the player's position has changed.
 			if (newX != player.x || newY != player.y) { 
@@ -44,7 +46,7 @@ public class PlayerManipulation {
 		// Get the player's board
 		Board board = player.getGame().getBoard();
 		// Determine if the supplied coordinates are valid, and if so continue
-		if (Board.isValidPosition(x, y)) {
+		if (board.isValidPosition(x, y)) {
 			// Get the old square before we move so we can refresh it
 			Square oldSquare = board.getSquare(player.x, player.y);
 
@@ -1,14 +1,19 @@
 package manipulation;
 
-import java.util.ArrayList;
-
 import game.Game;
 import game.board.Board;
 import game.board.Square;
+import game.engine.BoardState;
+import game.engine.GameEngine;
+import game.engine.MoveGenerator;
 import game.player.Player;
 import game.ships.Ship;
 
 public class ShipManipulation {
+	/**
+	 * Buffer for the squares that a ship can move to, reused for every selection since input is only handled on one thread.
+	 */
+	private static final int[] possibleSquares = new int[MoveGenerator.MAX_MOVES_PER_SHIP];
 
 	/**
 	 * Called when the given player presses the enter key
@@ -20,27 +25,23 @@ public class ShipManipulation {
 		Board board = playersGame.getBoard();
 		Square selectedSquare = board.getSquare(player.x, player.y);
 		
-		Game.GameState state = playersGame.getState();
+		GameEngine.GameState state = playersGame.getState();
 		// If we're in the ship placement stage, place one of the player's ships.
-		if (state.equals(Game.GameState.ShipPlacement)) {			
+		if (state.equals(GameEngine.GameState.ShipPlacement)) {			
 			// Make sure that the player is within three squares of their side.
-			if (Square.isWithinTerritory(player.getStartPosition(), player.x, player.y)) {
+			if (board.getBoardState().isWithinTerritory(player.getStartPosition(), player.x, player.y)) {
 				// Make sure there's no ship on that square before the player adds it to that square.
 				Ship shipOnSelectedSquare = selectedSquare.getShipOnSquare();
 				if (shipOnSelectedSquare == null) {
-					for (Ship ship : player.getShips()) {				
-						if (!ship.hasBeenPlaced()) {
-							addShip(board, ship);
-						}
-					}
+					addShip(player);
 				}
 				else {
-					removeShip(board, shipOnSelectedSquare);
+					removeShip(shipOnSelectedSquare);
 				}
 			}
 		}
 		// If the game is in movement stage, select the ship (if there is one) and move it.
-		else if (state.equals(Game.GameState.Movement)) {
+		else if (state.equals(GameEngine.GameState.Movement)) {
 			// Get the ship on the selected square
 			Ship shipOnSquare = selectedSquare.getShipOnSquare();
 			
@@ -51,7 +52,7 @@ public class ShipManipulation {
 			}
 		}
 		// If the game is in the firing stage, fire!
-		else if (state.equals(Game.GameState.Firing)) {
+		else if (state.equals(GameEngine.GameState.Firing)) {
 			player.shoot(selectedSquare);
 		}
 	}
@@ -61,62 +62,30 @@ public class ShipManipulation {
 	 * @param player The player to move the ship of
 	 * @param direction The direction to move the ship.
 	 */
-	public static void moveShip(Player player, Board.MoveDirection direction) {
+	public static void moveShip(Player player, BoardState.MoveDirection direction) {
 		// Make sure the player has selected a ship before we try to move it.
 		if (player.hasSelectedShip()) {
 			// Attempt to move the ship in this round.
 			player.getSelectedShip().move(direction);
-			player.getGame().refreshState();
 			// Nullify the player's selected ship.
 			player.setSelectedShip(null);
 		}
 	}
 	
 	/**
-	 * Moves the given ship to the new position
-	 * @param shipToMove The ship to move
-	 * @param newSquare The new square to move the ship to
-	 */
-	public static void moveShip(Ship shipToMove, Square newSquare) {
-		// Nullify the player's selected ship
-		shipToMove.player.setSelectedShip(null);
-		
-		// Move the ship
-		shipToMove.move(newSquare, true);
-		shipToMove.player.getGame().refreshState();
-	}
-	
-	/**
-	 * Adds the given ship to the board.
-	 * @param board The board to add the ship to
-	 * @param ship The ship to be added.
+	 * Places the player's next unplaced ship on the square that they have selected.
+	 * @param player The player placing a ship.
 	 */
-	private static void addShip(Board board, Ship ship) {
-		Square squareAtPosition = board.getSquare(ship.player.x, ship.player.y);
-		// Make sure that the given ship has not been placed already and that the square exists and is empty.
-		if (!ship.hasBeenPlaced() && squareAtPosition.getShipOnSquare() == null) {
-			ship.teleport(board.getSquare(ship.player.x, ship.player.y));
-			board.addShip(ship);
-			
-			// Refresh the game state.
-			board.getGame().refreshState();
-		}
+	private static void addShip(Player player) {
+		player.getGame().getEngine().placeShip(player.getPlayerState(), player.x, player.y);
 	}
 	
 	/**
 	 * Removes the given ship from the board
-	 * @param board The board to handle the removal of the ship on.
 	 * @param shipToRemove The ship to remove from the board
 	 */
-	private static void removeShip(Board board, Ship shipToRemove) {
-		// Make sure that the square property for the ship isn't null before removing the ship.
-		if (shipToRemove.getSquare() != null) {
-			board.removeShip(shipToRemove);
-			shipToRemove.removeFromBoard();
-			
-			// Refresh the game state
-			board.getGame().refreshState();
-		}
+	private static void removeShip(Ship shipToRemove) {
+		shipToRemove.player.getGame().getEngine().removeShip(shipToRemove.getShipState());
 	}
 	
 	/**
@@ -126,17 +95,16 @@ public class ShipManipulation {
 	 */
 	public static void selectShip(Ship ship, boolean select) {
 		// Determine possible squares for the ship to move to
-		ArrayList<Square> possibleSquares = ship.getPossibleSquares();
+		int numSquares = MoveGenerator.generateDestinations(ship.getShipState(), possibleSquares);
+		Board board = ship.player.getGame().getBoard();
+		BoardState boardState = board.getBoardState();
 		
-		// Only iterate if it's possible
-		if (possibleSquares != null && possibleSquares.size() > 0) {
-			// Iterate through each of the ship's possible squares.
-			for (Square square : possibleSquares) {
-				// Highlight if necessary, or clear highlight if requested.
-				if (select) square.highlight(ship.player);
-				else square.clearHighlight();
-			}
+		// Iterate through each of the ship's possible squares.
+		for (int i = 0; i < numSquares; i++) {
+			Square square = board.getSquare(boardState.getXOfIndex(possibleSquares[i]), boardState.getYOfIndex(possibleSquares[i]));
+			// Highlight if necessary, or clear highlight if requested.
+			if (select) square.highlight(ship.player);
+			else square.clearHighlight();
 		}
-		
 	}
 }
@@ -1,14 +1,24 @@
 package menu;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
 import game.Game;
-import game.board.Square;
+import game.engine.Rules;
+import game.player.KeyBindings;
+import game.player.Player;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.scene.Parent;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.ChoiceDialog;
 import javafx.scene.image.Image;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundImage;
 import javafx.scene.layout.BackgroundPosition;
@@ -17,6 +27,7 @@ import javafx.scene.layout.BackgroundSize;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import main.BattleshipGalactica;
+import main.InputHandler;
 import music.MusicPlayer;
 
 /**
@@ -26,11 +37,34 @@ import music.MusicPlayer;
  * ICS3U
  */
 public class MainMenu extends Parent { 	
+	/**
+	 * One of a player's actions, as picked from the list of keys that can be changed.
+	 */
+	private static class KeyChoice {
+		final Player player;
+		final KeyBindings.Action action;
+		
+		KeyChoice(Player player, KeyBindings.Action action) {
+			this.player = player;
+			this.action = action;
+		}
+		
+		@Override
+		public String toString() {
+			return player.getName() + " " + action + " (" + player.getKeyBindings().getKey(action) + ")";
+		}
+	}
+	
 	/**
 	 * The current game that's occuring
 	 */
 	private Game currentGame;
 	
+	/**
+	 * Sends key presses to the current game.
+	 */
+	private final InputHandler input;
+	
 	/**
 	 * The organizer for the menu.
 	 */
@@ -44,7 +78,7 @@ public class MainMenu extends Parent {
 			+ "the interesting game of battleship created by Kyle Anderson.\n"
 			+ "The goal of the game is simple: either knock out all of your opponent's ships,\n"
 			+ "using your cannons, or get all of your own ships to the other person's end of the game\n"
-			+ "(within " + Square.TERRITORY_SIZE + " squares of their side). Start by placing your ships within\n"
+			+ "(within " + Rules.DEFAULT.getTerritorySize() + " squares of their side). Start by placing your ships within\n"
 			+ "your own territory using the select key and the directional keys for your playing position,\n"
 			+ "in what is known as the ship placement stage.\n"
 			+ "Then move on to firing stage, where you use the directional keys and the select key to hit the\n"
@@ -59,8 +93,11 @@ public class MainMenu extends Parent {
 	
 	/**
 	 * Creates a new main menu object used by the user for preferences, new games, etc.
+	 * @param input The input handler that sends key presses to the games started from this menu.
 	 */
-	public MainMenu() {
+	public MainMenu(InputHandler input) {
+		this.input = input;
+		
 		// Begin the music right away
 		MusicPlayer.play();
 		
@@ -88,6 +125,25 @@ public class MainMenu extends Parent {
 			}
 		});
 		
+		// Same again, but with the computer as the opponent.
+		Button computerGameButton = new Button("New Game vs Computer");
+		computerGameButton.setFocusTraversable(false);
+		computerGameButton.setOnAction(new EventHandler<ActionEvent>() {
+			@Override
+			public void handle(ActionEvent event) {
+				newGame(true);
+			}
+		});
+		
+		// Lets the players pick their own keys, which are remembered for the games after this one too.
+		Button keysButton = new Button("Change Keys");
+		keysButton.setFocusTraversable(false);
+		keysButton.setOnAction(new EventHandler<ActionEvent>() {
+			@Override
+			public void handle(ActionEvent event) {
+				changeKeys();
+			}
+		});
 		
 		// Music controls go on the right side of the organizer
 		Button pausePlayMusic = new Button("Pause Music");
@@ -135,20 +191,72 @@ public class MainMenu extends Parent {
 		});
 		
 		// Add all of the buttons to the screen
-		organizer.setTop(new HBox(newGameButton, helpButton, pausePlayMusic, nextSong));
+		organizer.setTop(new HBox(newGameButton, computerGameButton, keysButton, helpButton, pausePlayMusic, nextSong));
 	}
 	
 	/**
-	 * Makes a new game and then starts it.
+	 * Makes a new game between two people and then starts it.
 	 */
 	public void newGame() {
+		newGame(false);
+	}
+	
+	/**
+	 * Makes a new game and then starts it.
+	 * @param againstComputer True to play against the computer, false for two people at the keyboard.
+	 */
+	public void newGame(boolean againstComputer) {
 		if (currentGame != null) {
 			currentGame.end();
+			input.detach(currentGame.getInput());
 		}
-		currentGame = new Game();
+		currentGame = new Game(Rules.DEFAULT, againstComputer);
+		input.attach(currentGame.getInput());
 		currentGame.start();
 		
 		// Put the game on screen.
 		organizer.setCenter(currentGame.getBoard());
 	}
+	
+	/**
+	 * Asks the user which of the current game's keys they'd like to change and then for the key to use instead, which
+	 * is used from then on in this game and in every game after it.
+	 */
+	private void changeKeys() {
+		// The computer doesn't use any keys, so only the people playing have any to change.
+		List<KeyChoice> choices = new ArrayList<KeyChoice>();
+		for (Player player : currentGame.getPlayers()) {
+			for (KeyBindings.Action action : KeyBindings.Action.values()) {
+				if (player.getKeyBindings().getKey(action) != null) choices.add(new KeyChoice(player, action));
+			}
+		}
+		if (choices.isEmpty()) return;
+		
+		ChoiceDialog<KeyChoice> choiceDialog = new ChoiceDialog<KeyChoice>(choices.get(0), choices);
+		choiceDialog.setTitle("Change Keys");
+		choiceDialog.setHeaderText("Which key would you like to change?");
+		Optional<KeyChoice> choice = choiceDialog.showAndWait();
+		if (!choice.isPresent()) return;
+		
+		// Catch the new key in a dialog of its own, so that the game never gets it.
+		final KeyCode[] pressed = new KeyCode[1];
+		final Alert keyDialog = new Alert(AlertType.NONE, "Press the new key for " + choice.get() + ".", ButtonType.CANCEL);
+		keyDialog.setTitle("Change Keys");
+		keyDialog.getDialogPane().addEventFilter(KeyEvent.KEY_PRESSED, new EventHandler<KeyEvent>() {
+			@Override
+			public void handle(KeyEvent event) {
+				pressed[0] = event.getCode();
+				event.consume();
+				keyDialog.close();
+			}
+		});
+		keyDialog.showAndWait();
+		if (pressed[0] == null) return;
+		
+		if (!choice.get().player.rebind(choice.get().action, pressed[0])) {
+			Alert taken = new Alert(AlertType.ERROR, pressed[0] + " is already used by the other player.");
+			taken.setTitle("Change Keys");
+			taken.showAndWait();
+		}
+	}
 }
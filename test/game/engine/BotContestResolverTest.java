@@ -0,0 +1,104 @@
+package game.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks that {@link BotContestResolver} settles contests as soon as they start, by the bots' clicks alone.
+ */
+public class BotContestResolverTest {
+	/**
+	 * A board of two by two squares with one ship each, in opposite corners, no shots and one move a turn. The ships
+	 * move diagonally, so the first move up is a contest.
+	 */
+	private static final Rules FACE_OFF = new Rules(2, 2, 1, 1, 50, new Rules.Schedule(0), new Rules.Schedule(1));
+
+	/**
+	 * Clicks as many times as the ship has health, so the healthier ship wins.
+	 */
+	private static final BotContestResolver.ClickPolicy BY_HEALTH = new BotContestResolver.ClickPolicy() {
+		@Override
+		public int getClicks(Contest contest, ShipState ship) {
+			return ship.getHealth();
+		}
+	};
+
+	/**
+	 * Clicks once, whatever the contest.
+	 */
+	private static final BotContestResolver.ClickPolicy ONCE = new BotContestResolver.ClickPolicy() {
+		@Override
+		public int getClicks(Contest contest, ShipState ship) {
+			return 1;
+		}
+	};
+
+	/**
+	 * Clicks twice, whatever the contest.
+	 */
+	private static final BotContestResolver.ClickPolicy TWICE = new BotContestResolver.ClickPolicy() {
+		@Override
+		public int getClicks(Contest contest, ShipState ship) {
+			return 2;
+		}
+	};
+
+	@Test
+	public void settlesInstantly() {
+		GameEngine game = startFaceOff(new BotContestResolver(ONCE, TWICE));
+		ShipState contester = game.getPlayers()[0].getShips()[0], defender = game.getPlayers()[1].getShips()[0];
+
+		assertFalse(game.moveShip(contester, BoardState.MoveDirection.up));
+		assertNull(game.getPendingContest());
+		// The defender clicked more.
+		assertTrue(contester.isDestroyed());
+		assertFalse(defender.isDestroyed());
+		assertSame(game.getPlayers()[1], game.getWinningPlayer());
+	}
+
+	@Test
+	public void clicksDecideTheWinner() {
+		GameEngine game = startFaceOff(new BotContestResolver(TWICE, ONCE));
+		ShipState contester = game.getPlayers()[0].getShips()[0], defender = game.getPlayers()[1].getShips()[0];
+
+		game.moveShip(contester, BoardState.MoveDirection.up);
+		assertFalse(contester.isDestroyed());
+		assertTrue(defender.isDestroyed());
+	}
+
+	@Test
+	public void tiesGoToTheDefender() {
+		GameEngine game = startFaceOff(new BotContestResolver(BY_HEALTH));
+		ShipState contester = game.getPlayers()[0].getShips()[0];
+
+		game.moveShip(contester, BoardState.MoveDirection.up);
+		assertTrue(contester.isDestroyed());
+	}
+
+	@Test
+	public void sameBotsGiveSameWinner() {
+		for (int i = 0; i < 10; i++) {
+			GameEngine game = startFaceOff(new BotContestResolver(TWICE, ONCE));
+			game.moveShip(game.getPlayers()[0].getShips()[0], BoardState.MoveDirection.up);
+			assertEquals(0, game.getWinningPlayer().index);
+		}
+	}
+
+	/**
+	 * Starts a game on {@link #FACE_OFF}, with both ships placed and the first player about to move.
+	 */
+	private static GameEngine startFaceOff(ContestResolver resolver) {
+		GameEngine game = new GameEngine(FACE_OFF, GameListener.NONE, resolver);
+		game.start();
+		// The first player starts on the right.
+		assertTrue(game.placeShip(game.getPlayers()[0], 1, 1));
+		assertTrue(game.placeShip(game.getPlayers()[1], 0, 0));
+		assertEquals(GameEngine.GameState.Movement, game.getState());
+		return game;
+	}
+}
@@ -0,0 +1,141 @@
+package game.simulation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import game.engine.BoardState;
+import game.engine.Contest;
+import game.engine.ContestResolver;
+import game.engine.GameEngine;
+import game.engine.GameListener;
+import game.engine.PlayerState;
+import game.engine.Rules;
+import game.engine.ShipState;
+
+/**
+ * Checks {@link Perft} against the counts it's known to give, and against a counter that works out the moves the
+ * slow way, from where every ship is and whether it's alive, without the board's own idea of where ships can go.
+ */
+public class PerftTest {
+	/**
+	 * The sequences from {@code Perft.makePosition(Rules.DEFAULT, seed)}, by seed and then by depth from 1.
+	 */
+	private static final long[][] KNOWN_COUNTS = {
+			{18, 342, 6555, 130410, 2624076},
+			{14, 294, 4851, 104181, 1852708},
+			{15, 345, 5796, 134568, 2418486},
+			{20, 420, 8400, 180800, 3656680},
+	};
+
+	/**
+	 * How deep the slow counter is checked against {@link Perft}, which it matches all the way to the depths of
+	 * {@link #KNOWN_COUNTS}, only much more slowly.
+	 */
+	private static final int REFERENCE_DEPTH = 3;
+
+	// Settle the contests of the slow counter, which tries each outcome on a copy of its own.
+	private static final ContestResolver CONTESTER_WINS = new ContestResolver() {
+		@Override
+		public void resolve(Contest contest) {
+			contest.settle(contest.contester);
+		}
+	};
+
+	private static final ContestResolver DEFENDER_WINS = new ContestResolver() {
+		@Override
+		public void resolve(Contest contest) {
+			contest.settle(contest.defender);
+		}
+	};
+
+	@Test
+	public void countsMatchKnownCounts() {
+		for (int seed = 0; seed < KNOWN_COUNTS.length; seed++) {
+			GameEngine position = Perft.makePosition(Rules.DEFAULT, seed);
+			for (int depth = 1; depth <= KNOWN_COUNTS[seed].length; depth++) {
+				assertEquals("seed " + seed + ", depth " + depth, KNOWN_COUNTS[seed][depth - 1], Perft.count(position, 0, depth).sequences);
+			}
+		}
+	}
+
+	@Test
+	public void countsMatchReferenceCounter() {
+		for (int seed = 0; seed < KNOWN_COUNTS.length; seed++) {
+			GameEngine position = Perft.makePosition(Rules.DEFAULT, seed);
+			for (int depth = 1; depth <= REFERENCE_DEPTH; depth++) {
+				assertEquals("seed " + seed + ", depth " + depth, countSlowly(position, 0, depth), Perft.count(position, 0, depth).sequences);
+			}
+		}
+	}
+
+	@Test
+	public void countsDontDependOnThreads() {
+		GameEngine position = Perft.makePosition(Rules.DEFAULT, 0);
+		int depth = Perft.SERIAL_DEPTH + 1;
+		for (int threads = 1; threads <= 4; threads *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				Perft.Result result = Perft.count(position, 0, depth, pool);
+				assertEquals(threads + " threads", KNOWN_COUNTS[0][depth - 1], result.sequences);
+			}
+			finally {
+				pool.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Counts the sequences of moves from a position without the move generator, the board's lookups or taking moves
+	 * back: whether a ship can move to a square is worked out from the ships alone (see {@link #findShip}), and each
+	 * move is made with {@link GameEngine#moveShip(ShipState, BoardState.MoveDirection)} on a copy of its own.
+	 * @param game The position, which is only read.
+	 * @param mover The index of the player who moves next.
+	 * @param depth How many moves long the sequences can be.
+	 * @return The number of sequences.
+	 */
+	private static long countSlowly(GameEngine game, int mover, int depth) {
+		PlayerState player = game.getPlayers()[mover];
+		if (depth == 0 || !game.getState().equals(GameEngine.GameState.Movement) || !player.canMove()) return 1;
+
+		Rules rules = game.getRules();
+		long sequences = 0;
+		boolean moved = false;
+		for (ShipState ship : player.getShips()) {
+			if (!ship.hasBeenPlaced() || ship.isDestroyed()) continue;
+			for (BoardState.MoveDirection direction : BoardState.MOVE_DIRECTIONS) {
+				int x = ship.getXInDirection(direction), y = ship.getYInDirection(direction);
+				if (x < 0 || x >= rules.getNumColumns() || y < 0 || y >= rules.getNumRows()) continue;
+
+				// Wrecks and the player's own ships are in the way, and an enemy ship means a contest.
+				ShipState other = findShip(game, x, y);
+				if (other != null && (other.isDestroyed() || other.player == player)) continue;
+				moved = true;
+
+				// A move onto a ship is tried once with each ship winning the contest.
+				for (int outcome = (other != null) ? 0 : 1; outcome < 2; outcome++) {
+					GameEngine copy = game.copy(GameListener.NONE, (outcome == 1) ? CONTESTER_WINS : DEFENDER_WINS);
+					copy.moveShip(copy.getBoard().getShips()[ship.index], direction);
+					sequences += countSlowly(copy, Perft.getNextMover(copy, mover), depth - 1);
+				}
+			}
+		}
+		return moved ? sequences : 1;
+	}
+
+	/**
+	 * Finds the ship on a square by going through every ship, living or wrecked. No two ships are ever on one square.
+	 * @param game The game.
+	 * @param x The x coordinate of the square.
+	 * @param y The y coordinate of the square.
+	 * @return The ship, or null if there isn't one.
+	 */
+	private static ShipState findShip(GameEngine game, int x, int y) {
+		for (ShipState ship : game.getBoard().getShips()) {
+			if (ship.hasBeenPlaced() && ship.getX() == x && ship.getY() == y) return ship;
+		}
+		return null;
+	}
+}